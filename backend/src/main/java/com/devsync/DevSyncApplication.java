@@ -2,8 +2,10 @@ package com.devsync;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DevSyncApplication {
     public static void main(String[] args) {
         SpringApplication.run(DevSyncApplication.class, args);
@@ -0,0 +1,215 @@
+package com.devsync.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-session wire format negotiated on CONNECT:
+//   payload-format: cbor   CBOR instead of JSON (native WebSocket endpoint only, SockJS is text-only)
+//   payload-elide: true    drop sender/channel display fields the client already holds
+// Compact sessions also never receive null fields. Broadcasts are serialized to JSON
+// by the broker and transcoded here token by token, without building a tree. Results are
+// cached by payload content: the simple broker hands every subscriber the same array,
+// but a relay delivers one copy per subscription, so identity alone would never hit
+@Component
+public class CompactPayloadInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactPayloadInterceptor.class);
+
+    public static final MimeType CBOR = MimeType.valueOf("application/cbor");
+
+    private static final String NATIVE_SESSION_ATTRIBUTE = "nativeWebSocket";
+    private static final String FORMAT_HEADER = "payload-format";
+    private static final String ELIDE_HEADER = "payload-elide";
+
+    private static final Set<String> ELIDED_FIELDS = Set.of("senderUsername", "senderAvatar", "channelName", "recipientUsername");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final CBORMapper cborMapper = CBORMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final Map<String, PayloadFormat> sessionFormats = new ConcurrentHashMap<>();
+
+    @Value("${websocket.compact.cache-entries:256}")
+    private int maxCachedPayloads;
+
+    // Recent transcodings by format and payload bytes, least recently used evicted first
+    private final Map<TranscodeKey, byte[]> transcoded = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TranscodeKey, byte[]> eldest) {
+            return size() > maxCachedPayloads;
+        }
+    };
+
+    // Decodes SEND frames whose content-type is application/cbor. Strict, so JSON stays
+    // the default for everything else
+    public MessageConverter cborMessageConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(CBOR);
+        converter.setObjectMapper(cborMapper);
+        converter.setStrictContentTypeMatch(true);
+        return converter;
+    }
+
+    // Marks sessions opened on the native (non-SockJS) endpoint, the only ones that get binary frames
+    public HandshakeInterceptor nativeEndpointMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(NATIVE_SESSION_ATTRIBUTE, true);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case CONNECT -> negotiate(accessor);
+            case DISCONNECT -> sessionFormats.remove(accessor.getSessionId());
+            case MESSAGE -> {
+                return encode(message, accessor);
+            }
+            default -> { }
+        }
+        return message;
+    }
+
+    private void negotiate(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean nativeSession = attributes != null && Boolean.TRUE.equals(attributes.get(NATIVE_SESSION_ATTRIBUTE));
+        boolean cbor = nativeSession && "cbor".equalsIgnoreCase(accessor.getFirstNativeHeader(FORMAT_HEADER));
+        boolean elide = "true".equalsIgnoreCase(accessor.getFirstNativeHeader(ELIDE_HEADER));
+        if (cbor || elide) {
+            sessionFormats.put(accessor.getSessionId(), new PayloadFormat(cbor, elide));
+        }
+    }
+
+    private Message<?> encode(Message<?> message, StompHeaderAccessor accessor) {
+        PayloadFormat format = accessor.getSessionId() != null ? sessionFormats.get(accessor.getSessionId()) : null;
+        if (format == null || !(message.getPayload() instanceof byte[] payload)
+                || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(accessor.getContentType())) {
+            return message;
+        }
+
+        try {
+            TranscodeKey key = new TranscodeKey(format, payload);
+            byte[] encoded;
+            synchronized (transcoded) {
+                encoded = transcoded.get(key);
+            }
+            if (encoded == null) {
+                // Concurrent misses may transcode the same payload twice; the results are equal
+                encoded = transcode(payload, format);
+                synchronized (transcoded) {
+                    transcoded.put(key, encoded);
+                }
+            }
+
+            StompHeaderAccessor encodedAccessor = StompHeaderAccessor.wrap(message);
+            if (format.cbor()) {
+                // Spring only writes binary WebSocket frames for octet-stream content
+                encodedAccessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+                encodedAccessor.setNativeHeader(FORMAT_HEADER, "cbor");
+            }
+            return MessageBuilder.createMessage(encoded, encodedAccessor.getMessageHeaders());
+        } catch (IOException e) {
+            logger.warn("Sending JSON, failed to compact payload for session {}: {}", accessor.getSessionId(), e.getMessage());
+            return message;
+        }
+    }
+
+    private byte[] transcode(byte[] json, PayloadFormat format) throws IOException {
+        JsonFactory target = format.cbor() ? cborMapper.getFactory() : objectMapper.getFactory();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json);
+             JsonGenerator generator = target.createGenerator(out)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_NULL || (format.elide() && ELIDED_FIELDS.contains(name))) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    generator.writeFieldName(name);
+                }
+                // For a start token this writes only the marker; the contents follow in the loop
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private record PayloadFormat(boolean cbor, boolean elide) {}
+
+    // Compares payloads by content; the hash is computed once, outside the cache lock
+    private static final class TranscodeKey {
+        private final PayloadFormat format;
+        private final byte[] payload;
+        private final int hash;
+
+        TranscodeKey(PayloadFormat format, byte[] payload) {
+            this.format = format;
+            this.payload = payload;
+            this.hash = 31 * format.hashCode() + Arrays.hashCode(payload);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TranscodeKey key && hash == key.hash && format.equals(key.format)
+                    && (payload == key.payload || Arrays.equals(payload, key.payload));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,363 @@
+package com.devsync.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Decouples socket writes from delivery: every session gets a bounded outbound queue
+// drained by a small writer pool. A slow client fills only its own queue instead of
+// holding outbound channel threads that every other session needs.
+// Frames arrive already encoded; the broker serialized the payload once and every
+// subscriber's frame shares that byte array, so nothing is re-serialized here.
+// When a queue is full, MESSAGE frames are handled per policy:
+//   drop        discard the new frame
+//   coalesce    keep only the newest queued frame per destination, then drop
+//   disconnect  close the session (the client reconnects and catches up via delta sync)
+// Dropped or coalesced messages show up as seq gaps on the client. Other frames
+// (CONNECTED, RECEIPT, ERROR, heartbeats) are never discarded.
+// Spring's SubProtocolWebSocketHandler still wraps the session handed to it in a
+// ConcurrentWebSocketSessionDecorator with its own buffer and send time limit. Its
+// delegate is our queue, whose sendMessage only enqueues, so that buffer stays empty and
+// its limit never trips; the limits here are the ones that apply. With fan-out disabled,
+// Spring's decorator is the only buffer left.
+@Component
+public class OutboundFanout {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundFanout.class);
+
+    // Frames a writer sends for one session before yielding to the others
+    private static final int DRAIN_BATCH = 64;
+
+    // STOMP headers are short; the destination is always within the first bytes
+    private static final int MAX_HEADER_SCAN = 1024;
+
+    public enum SlowConsumerPolicy { DROP, COALESCE, DISCONNECT }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${websocket.fanout.enabled:true}")
+    private boolean enabled;
+
+    @Value("${websocket.fanout.policy:disconnect}")
+    private String policyName;
+
+    @Value("${websocket.fanout.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${websocket.fanout.max-queued-bytes:1048576}")
+    private long maxQueuedBytes;
+
+    @Value("${websocket.fanout.writer-threads:16}")
+    private int writerThreads;
+
+    // A write blocked longer than this closes the session, which also frees the writer
+    @Value("${websocket.fanout.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    private SlowConsumerPolicy policy;
+    private ThreadPoolTaskExecutor writers;
+
+    private final Map<String, QueuedSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong queuedFrames = new AtomicLong();
+
+    private Counter sentFrames;
+    private Counter droppedFrames;
+    private Counter coalescedFrames;
+    private Timer queueDelay;
+
+    @PostConstruct
+    public void init() {
+        policy = SlowConsumerPolicy.valueOf(policyName.toUpperCase(Locale.ROOT));
+        if (!enabled) {
+            return;
+        }
+
+        writers = new ThreadPoolTaskExecutor();
+        writers.setThreadNamePrefix("stomp-fanout-");
+        writers.setCorePoolSize(writerThreads);
+        writers.setMaxPoolSize(writerThreads);
+        // At most one drain task per session is ever queued
+        writers.initialize();
+
+        sentFrames = Counter.builder("websocket.fanout.frames").tag("outcome", "sent").register(meterRegistry);
+        droppedFrames = Counter.builder("websocket.fanout.frames").tag("outcome", "dropped").register(meterRegistry);
+        coalescedFrames = Counter.builder("websocket.fanout.frames").tag("outcome", "coalesced").register(meterRegistry);
+        queueDelay = Timer.builder("websocket.fanout.queue.delay")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("websocket.fanout.queued.frames", queuedFrames, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("websocket.fanout.queue.max-lag-ms", this, OutboundFanout::getMaxLagMs).register(meterRegistry);
+        Gauge.builder("websocket.fanout.sessions", sessions, Map::size).register(meterRegistry);
+        logger.info("Outbound fan-out enabled (policy={}, queue={} frames/{} bytes, writers={})",
+                policy, queueCapacity, maxQueuedBytes, writerThreads);
+    }
+
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        if (!enabled) {
+            return handler;
+        }
+        // Every callback gets the queued session, so all writes go through the queue
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                QueuedSession queued = new QueuedSession(session);
+                sessions.put(session.getId(), queued);
+                super.afterConnectionEstablished(queued);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                QueuedSession queued = sessions.get(session.getId());
+                super.handleMessage(queued != null ? queued : session, message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                QueuedSession queued = sessions.get(session.getId());
+                super.handleTransportError(queued != null ? queued : session, exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                QueuedSession queued = sessions.remove(session.getId());
+                if (queued != null) {
+                    queued.discard();
+                }
+                super.afterConnectionClosed(queued != null ? queued : session, closeStatus);
+            }
+        };
+    }
+
+    // Closes sessions stuck in a single write; the blocked writer fails and moves on
+    @Scheduled(fixedDelayString = "${websocket.fanout.sweep-interval-ms:1000}")
+    public void closeStalledSessions() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (QueuedSession session : sessions.values()) {
+            long since = session.sendingSince;
+            if (since != 0 && now - since > sendTimeLimitMs) {
+                disconnect(session, "send_timeout");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writers != null) {
+            writers.shutdown();
+        }
+    }
+
+    private long getMaxLagMs() {
+        long now = System.nanoTime();
+        long maxLag = 0;
+        for (QueuedSession session : sessions.values()) {
+            long oldest = session.oldestEnqueuedAt();
+            if (oldest != 0) {
+                maxLag = Math.max(maxLag, now - oldest);
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxLag);
+    }
+
+    private void disconnect(QueuedSession session, String reason) {
+        if (session.closed) {
+            return;
+        }
+        session.discard();
+        Counter.builder("websocket.fanout.disconnects").tag("reason", reason).register(meterRegistry).increment();
+        logger.info("Closing slow WebSocket session {} ({})", session.getId(), reason);
+        try {
+            session.getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            logger.debug("Failed to close session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private final class QueuedSession extends WebSocketSessionDecorator {
+
+        // Guarded by this
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private long queuedBytes;
+        private boolean draining;
+
+        private volatile long sendingSince;
+        private volatile boolean closed;
+
+        QueuedSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (closed) {
+                return;
+            }
+            Frame frame = Frame.of(message);
+            boolean overflow = false;
+            boolean schedule = false;
+            synchronized (this) {
+                if (frame.droppable() && isFull(frame)) {
+                    if (policy == SlowConsumerPolicy.COALESCE) {
+                        coalesce(frame.destination());
+                    }
+                    if (isFull(frame)) {
+                        if (policy == SlowConsumerPolicy.DISCONNECT) {
+                            overflow = true;
+                        } else {
+                            droppedFrames.increment();
+                            return;
+                        }
+                    }
+                }
+                if (!overflow) {
+                    frames.addLast(frame);
+                    queuedBytes += frame.size();
+                    queuedFrames.incrementAndGet();
+                    if (!draining) {
+                        draining = true;
+                        schedule = true;
+                    }
+                }
+            }
+            if (overflow) {
+                disconnect(this, "overflow");
+            } else if (schedule) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private boolean isFull(Frame frame) {
+            return frames.size() >= queueCapacity || queuedBytes + frame.size() > maxQueuedBytes;
+        }
+
+        // Superseded frames of the same destination; the client resyncs from the newest one
+        private void coalesce(String destination) {
+            if (destination == null) {
+                return;
+            }
+            Iterator<Frame> it = frames.iterator();
+            while (it.hasNext()) {
+                Frame queued = it.next();
+                if (destination.equals(queued.destination())) {
+                    it.remove();
+                    queuedBytes -= queued.size();
+                    queuedFrames.decrementAndGet();
+                    coalescedFrames.increment();
+                }
+            }
+        }
+
+        private void drain() {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Frame frame;
+                synchronized (this) {
+                    frame = frames.pollFirst();
+                    if (frame == null) {
+                        draining = false;
+                        return;
+                    }
+                    queuedBytes -= frame.size();
+                    queuedFrames.decrementAndGet();
+                }
+
+                sendingSince = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(frame.message());
+                    sentFrames.increment();
+                    queueDelay.record(System.nanoTime() - frame.enqueuedAt(), TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    logger.debug("Send to session {} failed: {}", getId(), e.getMessage());
+                    disconnect(this, "send_error");
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+            // Busy sessions go to the back of the line so they cannot starve the others
+            writers.execute(this::drain);
+        }
+
+        private synchronized long oldestEnqueuedAt() {
+            Frame oldest = frames.peekFirst();
+            return oldest != null ? oldest.enqueuedAt() : 0;
+        }
+
+        private synchronized void discard() {
+            closed = true;
+            queuedFrames.addAndGet(-frames.size());
+            frames.clear();
+            queuedBytes = 0;
+        }
+    }
+
+    private record Frame(WebSocketMessage<?> message, int size, boolean droppable, String destination, long enqueuedAt) {
+
+        static Frame of(WebSocketMessage<?> message) {
+            String head = head(message);
+            int headersEnd = head.indexOf("\n\n");
+            if (headersEnd >= 0) {
+                head = head.substring(0, headersEnd + 1);
+            }
+            boolean isMessage = head.startsWith("MESSAGE\n");
+            return new Frame(message, message.getPayloadLength(), isMessage,
+                    isMessage ? destination(head) : null, System.nanoTime());
+        }
+
+        private static String head(WebSocketMessage<?> message) {
+            if (message instanceof TextMessage text) {
+                String payload = text.getPayload();
+                return payload.substring(0, Math.min(payload.length(), MAX_HEADER_SCAN));
+            }
+            if (message instanceof BinaryMessage binary) {
+                ByteBuffer payload = binary.getPayload().duplicate();
+                byte[] bytes = new byte[Math.min(payload.remaining(), MAX_HEADER_SCAN)];
+                payload.get(bytes);
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            }
+            return "";
+        }
+
+        private static String destination(String head) {
+            int start = head.indexOf("\ndestination:");
+            if (start < 0) {
+                return null;
+            }
+            start += "\ndestination:".length();
+            int end = head.indexOf('\n', start);
+            return end < 0 ? null : head.substring(start, end);
+        }
+    }
+}
\ No newline at end of file
@@ -80,6 +80,7 @@ public class SecurityConfig {
                     .requestMatchers("/oauth2/**").permitAll()
                     .requestMatchers("/api/test/**").permitAll()
                     .requestMatchers("/ws/**").permitAll()
+                    .requestMatchers("/ws-native").permitAll()
                     .anyRequest().authenticated()
             )
             .oauth2Login(oauth2 -> oauth2
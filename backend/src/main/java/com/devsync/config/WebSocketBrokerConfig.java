@@ -0,0 +1,44 @@
+package com.devsync.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+// What @EnableWebSocketMessageBroker imports, with WebSocketConfig still supplying the
+// settings. Subclassed so the virtual profile can give the inbound channel an executor
+// that is not a ThreadPoolTaskExecutor, the only kind ChannelRegistration accepts
+@Configuration
+public class WebSocketBrokerConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    @Value("${websocket.executor.profile:default}")
+    private String executorProfile;
+
+    @Value("${websocket.executor.virtual-max-concurrency:1000}")
+    private int virtualMaxConcurrency;
+
+    @Bean
+    @Override
+    public TaskExecutor clientInboundChannelExecutor() {
+        if ("virtual".equals(executorProfile)) {
+            return virtualThreadExecutor("stomp-inbound-", virtualMaxConcurrency);
+        }
+        return super.clientInboundChannelExecutor();
+    }
+
+    // One new virtual thread per inbound message rather than a pool of them. Past the
+    // concurrency limit the receiving connection waits, so handlers cannot open more
+    // concurrent work than the database can serve
+    static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < 21) {
+            throw new IllegalStateException("websocket.executor.profile=virtual needs a Java 21 runtime, this is Java " + javaVersion);
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrency);
+        return executor;
+    }
+}
\ No newline at end of file
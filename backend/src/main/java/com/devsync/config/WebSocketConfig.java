@@ -2,24 +2,100 @@ package com.devsync.config;
 
 import com.devsync.security.JwtChannelInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// The message broker itself is enabled by WebSocketBrokerConfig
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Autowired
     private JwtChannelInterceptor jwtChannelInterceptor;
 
+    @Autowired
+    private CompactPayloadInterceptor compactPayloadInterceptor;
+
+    @Autowired
+    private OutboundFanout outboundFanout;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
+    // simple: in-JVM broker, single instance only; relay: external STOMP broker
+    // (RabbitMQ, ActiveMQ) shared by every instance
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    // default: Spring's executors; tuned: fixed pools with bounded queues;
+    // virtual: virtual threads for inbound handling (Java 21+, see WebSocketBrokerConfig)
+    @Value("${websocket.executor.profile:default}")
+    private String executorProfile;
+
+    @Value("${websocket.executor.inbound-pool-size:32}")
+    private int inboundPoolSize;
+
+    @Value("${websocket.executor.outbound-pool-size:16}")
+    private int outboundPoolSize;
+
+    @Value("${websocket.executor.queue-capacity:10000}")
+    private int executorQueueCapacity;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple broker for topics
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equals(brokerMode)) {
+            // Client and system connections share the broker credentials. The two
+            // broadcast destinations let instances resolve /user destinations for
+            // sessions connected to another instance
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            // Enable simple broker for topics; heartbeats let the broker close dead
+            // connections, which is what fires the disconnect event presence relies on
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {10000, 10000})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
+        // Outbound messages of a session are sent in order even with a multi-threaded outbound channel
+        config.setPreservePublishOrder(true);
         // Set application destination prefix
         config.setApplicationDestinationPrefixes("/app");
         // Set user destination prefix for private messages
@@ -32,11 +108,57 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Plain WebSocket endpoint; only these sessions may negotiate binary (CBOR) payloads
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(compactPayloadInterceptor.nativeEndpointMarker());
+        // Inbound messages of a session are handled one at a time, in arrival order
+        registry.setPreserveReceiveOrder(true);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        // Add JWT authentication interceptor
-        registration.interceptors(jwtChannelInterceptor);
+        // Add JWT authentication interceptor, then record the session's negotiated payload format
+        registration.interceptors(jwtChannelInterceptor, compactPayloadInterceptor);
+        // @MessageMapping handlers block on JPA and pushes, so inbound gets the larger pool.
+        // Boot tags pool metrics with the executor's bean name as is: executor.* with
+        // name=clientInboundChannelExecutor. The virtual profile has no pool to measure
+        if ("tuned".equals(executorProfile)) {
+            registration.taskExecutor(pooledExecutor("stomp-inbound-", inboundPoolSize));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(compactPayloadInterceptor);
+        // Outbound work is socket writes only, platform threads suit it in every profile
+        if (!"default".equals(executorProfile)) {
+            registration.taskExecutor(pooledExecutor("stomp-outbound-", outboundPoolSize));
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Per-session outbound queues, so one slow client cannot hold the outbound threads.
+        // Spring's own send buffer and time limit sit in front of them and stay idle, see OutboundFanout
+        registration.addDecoratorFactory(outboundFanout::decorate);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(compactPayloadInterceptor.cborMessageConverter());
+        // Keep the default converters, JSON remains the format for everyone else
+        return true;
+    }
+
+    private ThreadPoolTaskExecutor pooledExecutor(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(executorQueueCapacity);
+        // A full queue slows the sending connection down instead of dropping frames
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
     }
 }
\ No newline at end of file
@@ -0,0 +1,255 @@
+package com.devsync.controller;
+
+import com.devsync.payload.request.AttachmentUploadRequest;
+import com.devsync.repository.AttachmentRepository.StoredAttachment;
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.service.AttachmentService;
+import com.devsync.service.BlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/attachments")
+public class AttachmentController {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    // Request attributes of Tomcat's sendfile support (NIO connector, on by default)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @PostMapping("/uploads")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> createUpload(@Valid @RequestBody AttachmentUploadRequest request, Authentication authentication) {
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            return ResponseEntity.ok(attachmentService.createUpload(userDetails.getId(), request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error creating upload: " + e.getMessage());
+        }
+    }
+
+    // One chunk per request as a raw body with Content-Range: bytes start-end/total.
+    // A chunk that does not start at receivedBytes gets 409 with the current state to resume from
+    @PutMapping("/uploads/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable Long id,
+            @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+            HttpServletRequest request,
+            Authentication authentication) {
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Matcher range = CONTENT_RANGE.matcher(contentRange.trim());
+        if (!range.matches()) {
+            return ResponseEntity.badRequest().body("Content-Range must be 'bytes start-end/total'");
+        }
+        try {
+            return ResponseEntity.ok(attachmentService.appendChunk(userDetails.getId(), id,
+                    Long.parseLong(range.group(1)), Long.parseLong(range.group(2)), Long.parseLong(range.group(3)),
+                    request.getInputStream()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(attachmentService.getUpload(userDetails.getId(), id));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error uploading chunk: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/uploads/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getUpload(@PathVariable Long id, Authentication authentication) {
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            return ResponseEntity.ok(attachmentService.getUpload(userDetails.getId(), id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getMessageAttachments(@RequestParam Long messageId, Authentication authentication) {
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            return ResponseEntity.ok(attachmentService.getMessageAttachments(userDetails.getId(), messageId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getAttachment(@PathVariable Long id, Authentication authentication) {
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            return ResponseEntity.ok(attachmentService.getAttachment(userDetails.getId(), id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{id}/content")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public void download(@PathVariable Long id, Authentication authentication,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredAttachment attachment = findContent(id, authentication, response);
+        if (attachment != null) {
+            send(attachment.storageKey(), attachment.size(), attachment.mimeType(), attachment.fileName(),
+                    attachment.contentHash(), request, response);
+        }
+    }
+
+    @GetMapping("/{id}/thumbnail")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public void thumbnail(@PathVariable Long id, Authentication authentication,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredAttachment attachment = findContent(id, authentication, response);
+        if (attachment == null) {
+            return;
+        }
+        if (attachment.thumbnailKey() == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        send(attachment.thumbnailKey(), blobStore.length(attachment.thumbnailKey()), "image/png", null,
+                attachment.contentHash() + "-thumbnail", request, response);
+    }
+
+    private StoredAttachment findContent(Long id, Authentication authentication, HttpServletResponse response) throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        try {
+            return attachmentService.getContent(userDetails.getId(), id);
+        } catch (IllegalStateException e) {
+            response.sendError(HttpStatus.CONFLICT.value(), e.getMessage());
+        } catch (RuntimeException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+        }
+        return null;
+    }
+
+    // Blobs are content-addressed and never change, so the hash is a strong ETag and
+    // clients may cache them indefinitely. A single byte range is honoured (206), which
+    // lets clients resume downloads and seek in audio and video
+    private void send(String key, long length, String mimeType, String fileName, String etag,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String quotedEtag = "\"" + etag + "\"";
+        response.setHeader(HttpHeaders.ETAG, quotedEtag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (quotedEtag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Multiple ranges would need a multipart body; the whole file is sent instead
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    // HttpRange does not check that the range starts inside the file
+                    if (start >= length || end < start) {
+                        throw new IllegalArgumentException("Range starts past the end of the file");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(mimeType);
+        response.setContentLengthLong(count);
+        if (fileName != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        }
+        if (count <= 0) {
+            return;
+        }
+
+        // With sendfile Tomcat hands the file to the kernel after this method returns;
+        // the bytes never pass through the JVM
+        Path path = blobStore.localPath(key);
+        if (path != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (ReadableByteChannel source = blobStore.open(key, start)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            if (source instanceof FileChannel file) {
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = file.transferTo(position, remaining, target);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                long remaining = count;
+                while (remaining > 0) {
+                    buffer.clear();
+                    if (remaining < buffer.capacity()) {
+                        buffer.limit((int) remaining);
+                    }
+                    if (source.read(buffer) < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    remaining -= buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -9,6 +9,7 @@ import com.devsync.payload.response.JwtResponse;
 import com.devsync.payload.response.MessageResponse;
 import com.devsync.repository.RoleRepository;
 import com.devsync.repository.UserRepository;
+import com.devsync.security.UserAuthCache;
 import com.devsync.security.UserDetailsImpl;
 import com.devsync.utils.JwtUtils;
 import jakarta.validation.Valid;
@@ -45,6 +46,9 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    UserAuthCache userAuthCache;
+
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
@@ -119,8 +123,12 @@ public class AuthController {
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
 
+    // Revokes every token of the user, so signing out on one device signs out all of them
     @PostMapping("/signout")
-    public ResponseEntity<?> logoutUser() {
+    public ResponseEntity<?> logoutUser(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            userAuthCache.invalidate(userDetails.getId());
+        }
         SecurityContextHolder.clearContext();
         return ResponseEntity.ok(new MessageResponse("User signed out successfully!"));
     }
@@ -5,8 +5,10 @@ import com.devsync.entity.User;
 import com.devsync.payload.request.ChannelRequest;
 import com.devsync.payload.response.MessageResponse;
 import com.devsync.repository.ChannelRepository;
+import com.devsync.repository.ConversationSummaryRepository;
 import com.devsync.repository.UserRepository;
 import com.devsync.security.UserDetailsImpl;
+import com.devsync.service.ChannelMembershipService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -28,6 +30,12 @@ public class ChannelController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
     @GetMapping
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<List<Channel>> getUserChannels(Authentication authentication) {
@@ -64,6 +72,8 @@ public class ChannelController {
             channel.getMembers().add(user);
             
             Channel savedChannel = channelRepository.save(channel);
+            channelMembershipService.invalidate(savedChannel.getId());
+            conversationSummaryRepository.addChannelMember(user.getId(), savedChannel.getId());
             return ResponseEntity.ok(savedChannel);
         }
         
@@ -84,9 +94,10 @@ public class ChannelController {
             User user = userOpt.get();
             Channel channel = channelOpt.get();
             
-            if (!channel.getIsPrivate() || channel.getMembers().contains(user)) {
-                channel.getMembers().add(user);
-                channelRepository.save(channel);
+            if (!channel.getIsPrivate() || channelMembershipService.isMember(channelId, user.getId())) {
+                channelRepository.addMember(channelId, user.getId());
+                channelMembershipService.memberAdded(channelId, user.getId());
+                conversationSummaryRepository.addChannelMember(user.getId(), channel.getId());
                 return ResponseEntity.ok(new MessageResponse("Joined channel successfully!"));
             } else {
                 return ResponseEntity.badRequest()
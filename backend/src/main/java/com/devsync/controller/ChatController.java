@@ -1,10 +1,16 @@
 package com.devsync.controller;
 
 import com.devsync.dto.ChatMessageDto;
+import com.devsync.dto.ReactionDto;
+import com.devsync.dto.ReadMarkerDto;
 import com.devsync.dto.TypingIndicatorDto;
 import com.devsync.entity.Message;
 import com.devsync.entity.User;
+import com.devsync.security.UserDetailsImpl;
 import com.devsync.service.ChatService;
+import com.devsync.service.MessageWriteBehindService;
+import com.devsync.service.ReactionService;
+import com.devsync.service.ReadMarkerService;
 import com.devsync.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -31,14 +38,29 @@ public class ChatController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private MessageWriteBehindService messageWriteBehindService;
+
+    @Autowired
+    private ReadMarkerService readMarkerService;
+
+    @Autowired
+    private ReactionService reactionService;
+
     @MessageMapping("/chat.send")
     public void sendMessage(@Payload ChatMessageDto chatMessage, Principal principal) {
         try {
             // Get sender user
             User sender = userService.findByUsername(principal.getName());
             
-            // Save message to database
-            Message savedMessage = chatService.saveMessage(chatMessage, sender);
+            // Save message to database, or hand it to the write-behind pipeline
+            // so the broadcast does not wait for the insert
+            Message savedMessage;
+            if (messageWriteBehindService.isEnabled()) {
+                savedMessage = messageWriteBehindService.enqueue(chatService.prepareMessage(chatMessage, sender));
+            } else {
+                savedMessage = chatService.saveMessage(chatMessage, sender);
+            }
             
             // Create response DTO
             ChatMessageDto responseMessage = ChatMessageDto.fromEntity(savedMessage);
@@ -102,4 +124,25 @@ public class ChatController {
             logger.error("Error handling typing indicator: {}", e.getMessage(), e);
         }
     }
+
+    @MessageMapping("/chat.read")
+    public void markRead(@Payload ReadMarkerDto readMarker, Principal principal) {
+        try {
+            // The principal already carries the user id, no lookup needed for frequent acks
+            UserDetailsImpl user = (UserDetailsImpl) ((Authentication) principal).getPrincipal();
+            readMarkerService.markRead(user.getId(), user.getUsername(), readMarker);
+        } catch (Exception e) {
+            logger.error("Error handling read marker: {}", e.getMessage(), e);
+        }
+    }
+
+    @MessageMapping("/chat.react")
+    public void react(@Payload ReactionDto reaction, Principal principal) {
+        try {
+            UserDetailsImpl user = (UserDetailsImpl) ((Authentication) principal).getPrincipal();
+            reactionService.react(user.getId(), reaction);
+        } catch (Exception e) {
+            logger.error("Error handling reaction: {}", e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
@@ -1,16 +1,16 @@
 package com.devsync.controller;
 
 import com.devsync.dto.ChatMessageDto;
+import com.devsync.dto.MessageSearchResultDto;
 import com.devsync.entity.Message;
 import com.devsync.entity.User;
 import com.devsync.security.UserDetailsImpl;
 import com.devsync.service.ChatService;
+import com.devsync.service.RecentMessageCache;
 import com.devsync.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -24,24 +24,36 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/chat")
 public class ChatRestController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+
     @Autowired
     private ChatService chatService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
     @GetMapping("/channels/{channelId}/messages")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<?> getChannelMessages(
             @PathVariable Long channelId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
             @RequestParam(defaultValue = "20") int size) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Message> messages = chatService.getChannelMessages(channelId, pageable);
+            // The latest page is served from the recent-message cache when possible
+            if (before == null && after == null) {
+                Slice<ChatMessageDto> cached = recentMessageCache.getLatest(channelId, size);
+                return ResponseEntity.ok(cached != null ? cached : chatService.loadLatestChannelMessages(channelId, size));
+            }
+
+            Slice<Message> messages = chatService.getChannelMessages(channelId, before, after, size);
             
-            Page<ChatMessageDto> messageDtos = messages.map(ChatMessageDto::fromEntity);
+            Slice<ChatMessageDto> messageDtos = messages.map(ChatMessageDto::fromEntity);
             return ResponseEntity.ok(messageDtos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error fetching channel messages: " + e.getMessage());
@@ -52,16 +64,16 @@ public class ChatRestController {
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<?> getDirectMessages(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         
         try {
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Message> messages = chatService.getDirectMessages(userDetails.getId(), userId, pageable);
+            Slice<Message> messages = chatService.getDirectMessages(userDetails.getId(), userId, before, after, size);
             
-            Page<ChatMessageDto> messageDtos = messages.map(ChatMessageDto::fromEntity);
+            Slice<ChatMessageDto> messageDtos = messages.map(ChatMessageDto::fromEntity);
             return ResponseEntity.ok(messageDtos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error fetching direct messages: " + e.getMessage());
@@ -87,6 +99,49 @@ public class ChatRestController {
         }
     }
 
+    @PostMapping("/messages/batch")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> sendMessages(
+            @RequestBody List<ChatMessageDto> chatMessageDtos,
+            Authentication authentication) {
+        
+        if (chatMessageDtos.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("Error sending messages: at most " + MAX_BATCH_SIZE + " messages per batch");
+        }
+        
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            User sender = userService.findById(userDetails.getId());
+            
+            List<ChatMessageDto> responseDtos = chatService.saveMessages(chatMessageDtos, sender).stream()
+                    .map(ChatMessageDto::fromEntity)
+                    .collect(Collectors.toList());
+            
+            return ResponseEntity.ok(responseDtos);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error sending messages: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+            Slice<MessageSearchResultDto> results = chatService.searchMessages(userDetails.getId(), query, Math.max(page, 0), pageSize);
+            
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error searching messages: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/messages/{messageId}/replies")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<?> getThreadReplies(@PathVariable Long messageId) {
@@ -0,0 +1,88 @@
+package com.devsync.controller;
+
+import com.devsync.dto.ConversationSummaryDto;
+import com.devsync.dto.ConversationSyncDto;
+import com.devsync.dto.MentionDto;
+import com.devsync.dto.ReadMarkerDto;
+import com.devsync.dto.SyncRequestDto;
+import com.devsync.repository.ConversationSummaryRepository;
+import com.devsync.repository.MentionRepository;
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.service.ReadMarkerService;
+import com.devsync.service.SyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/conversations")
+public class ConversationController {
+
+    private static final int MAX_INBOX_SIZE = 500;
+
+    private static final int MAX_MENTIONS_PAGE = 100;
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private MentionRepository mentionRepository;
+
+    @Autowired
+    private ReadMarkerService readMarkerService;
+
+    @Autowired
+    private SyncService syncService;
+
+    // The whole channel list screen (previews and unread counts) in one indexed query
+    @GetMapping
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<List<ConversationSummaryDto>> getInbox(
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_INBOX_SIZE));
+        return ResponseEntity.ok(conversationSummaryRepository.findInbox(userDetails.getId(), boundedLimit));
+    }
+
+    // Messages that mention the user (directly, @channel or @here), newest first;
+    // "before" is the message id of the oldest mention already loaded
+    @GetMapping("/mentions")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<List<MentionDto>> getMentions(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+        
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_MENTIONS_PAGE));
+        return ResponseEntity.ok(mentionRepository.findMentions(userDetails.getId(), before, boundedLimit));
+    }
+
+    // Same as the /app/chat.read STOMP mapping; the marker is stored with the next batch
+    @PostMapping("/read")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> markRead(@RequestBody ReadMarkerDto readMarker, Authentication authentication) {
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            readMarkerService.markRead(userDetails.getId(), userDetails.getUsername(), readMarker);
+            return ResponseEntity.accepted().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error recording read marker: " + e.getMessage());
+        }
+    }
+
+    // Reconnect catch-up: one request instead of a history fetch per conversation
+    @PostMapping("/sync")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<List<ConversationSyncDto>> sync(@RequestBody SyncRequestDto syncRequest, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(syncService.sync(userDetails.getId(), syncRequest));
+    }
+}
\ No newline at end of file
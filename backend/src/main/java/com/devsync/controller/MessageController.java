@@ -1,5 +1,6 @@
 package com.devsync.controller;
 
+import com.devsync.dto.ReactionDto;
 import com.devsync.entity.Channel;
 import com.devsync.entity.Message;
 import com.devsync.entity.User;
@@ -8,12 +9,13 @@ import com.devsync.repository.ChannelRepository;
 import com.devsync.repository.MessageRepository;
 import com.devsync.repository.UserRepository;
 import com.devsync.security.UserDetailsImpl;
+import com.devsync.service.ChannelMembershipService;
+import com.devsync.service.ChatService;
 import com.devsync.service.NotificationService;
+import com.devsync.service.ReactionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -39,44 +41,48 @@ public class MessageController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private ReactionService reactionService;
+
     @GetMapping("/channel/{channelId}")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
-    public ResponseEntity<Page<Message>> getChannelMessages(
+    public ResponseEntity<Slice<Message>> getChannelMessages(
             @PathVariable Long channelId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         
-        Optional<Channel> channelOpt = channelRepository.findById(channelId);
-        if (channelOpt.isPresent()) {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Message> messages = messageRepository.findByChannelOrderByCreatedAtDesc(channelOpt.get(), pageable);
+        try {
+            Slice<Message> messages = chatService.getChannelMessages(channelId, before, after, size);
             return ResponseEntity.ok(messages);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
-        
-        return ResponseEntity.notFound().build();
     }
 
     @GetMapping("/direct/{userId}")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
-    public ResponseEntity<Page<Message>> getDirectMessages(
+    public ResponseEntity<Slice<Message>> getDirectMessages(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        Optional<User> currentUser = userRepository.findById(userDetails.getId());
-        Optional<User> otherUser = userRepository.findById(userId);
-        
-        if (currentUser.isPresent() && otherUser.isPresent()) {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Message> messages = messageRepository.findDirectMessages(
-                currentUser.get(), otherUser.get(), pageable);
+        try {
+            Slice<Message> messages = chatService.getDirectMessages(userDetails.getId(), userId, before, after, size);
             return ResponseEntity.ok(messages);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
-        
-        return ResponseEntity.notFound().build();
     }
 
     @PostMapping("/channel/{channelId}")
@@ -95,7 +101,7 @@ public class MessageController {
             Channel channel = channelOpt.get();
             
             // Check if user is member of channel
-            if (!channel.getMembers().contains(user)) {
+            if (!channelMembershipService.isMember(channelId, user.getId())) {
                 return ResponseEntity.badRequest().build();
             }
             
@@ -104,14 +110,10 @@ public class MessageController {
                 message.setType(messageRequest.getType());
             }
             
-            Message savedMessage = messageRepository.save(message);
+            Message savedMessage = chatService.storeMessage(message);
             
-            // Send push notifications to channel members
-            for (User member : channel.getMembers()) {
-                if (!member.getId().equals(user.getId())) { // Don't send notification to sender
-                    notificationService.sendChannelNotification(channel, user, messageRequest.getContent(), member);
-                }
-            }
+            // Push to offline members only, like the STOMP path
+            chatService.sendChannelPushNotifications(savedMessage);
             
             return ResponseEntity.ok(savedMessage);
         }
@@ -139,7 +141,7 @@ public class MessageController {
                 message.setType(messageRequest.getType());
             }
             
-            Message savedMessage = messageRepository.save(message);
+            Message savedMessage = chatService.storeMessage(message);
             
             // Send push notification to recipient
             notificationService.sendDirectMessageNotification(recipient, sender, messageRequest.getContent());
@@ -156,4 +158,30 @@ public class MessageController {
         List<Message> replies = messageRepository.findThreadReplies(messageId);
         return ResponseEntity.ok(replies);
     }
+
+    // Same as the /app/chat.react STOMP mapping; returns the emoji's new count
+    @PutMapping("/{messageId}/reactions/{emoji}")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> addReaction(@PathVariable Long messageId, @PathVariable String emoji, Authentication authentication) {
+        return react(messageId, emoji, true, authentication);
+    }
+
+    @DeleteMapping("/{messageId}/reactions/{emoji}")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> removeReaction(@PathVariable Long messageId, @PathVariable String emoji, Authentication authentication) {
+        return react(messageId, emoji, false, authentication);
+    }
+
+    private ResponseEntity<?> react(Long messageId, String emoji, boolean added, Authentication authentication) {
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            ReactionDto request = new ReactionDto();
+            request.setMessageId(messageId);
+            request.setEmoji(emoji);
+            request.setAdded(added);
+            return ResponseEntity.ok(reactionService.react(userDetails.getId(), request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error updating reaction: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
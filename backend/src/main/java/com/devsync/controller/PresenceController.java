@@ -0,0 +1,27 @@
+package com.devsync.controller;
+
+import com.devsync.dto.PresenceFrameDto;
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.service.PresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+public class PresenceController {
+
+    @Autowired
+    private PresenceService presenceService;
+
+    // Subscribing to /app/presence.{channelId} returns the current snapshot once;
+    // deltas with a higher version then arrive on /topic/presence.{channelId}
+    @SubscribeMapping("/presence.{channelId}")
+    public PresenceFrameDto getChannelPresence(@DestinationVariable Long channelId, Principal principal) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) ((UsernamePasswordAuthenticationToken) principal).getPrincipal();
+        return presenceService.getChannelSnapshot(channelId, userDetails.getId());
+    }
+}
\ No newline at end of file
@@ -1,19 +1,29 @@
 package com.devsync.controller;
 
+import com.devsync.entity.ERole;
+import com.devsync.entity.Role;
 import com.devsync.entity.User;
 import com.devsync.entity.UserStatus;
+import com.devsync.payload.request.ChangePasswordRequest;
 import com.devsync.payload.response.MessageResponse;
+import com.devsync.repository.RoleRepository;
 import com.devsync.repository.UserRepository;
+import com.devsync.security.UserAuthCache;
 import com.devsync.security.UserDetailsImpl;
+import com.devsync.service.PresenceService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -23,6 +33,18 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private UserAuthCache userAuthCache;
+
     @GetMapping("/profile")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<?> getUserProfile(Authentication authentication) {
@@ -66,6 +88,7 @@ public class UserController {
             }
             user.setLastSeen(LocalDateTime.now());
             userRepository.save(user);
+            presenceService.statusChanged(user.getId(), user.getUsername(), status);
             
             return ResponseEntity.ok(new MessageResponse("Status updated successfully!"));
         }
@@ -84,4 +107,61 @@ public class UserController {
         
         return ResponseEntity.ok(new MessageResponse("Firebase token updated successfully!"));
     }
+
+    // Revokes the tokens issued before the change, including the one used here;
+    // the client signs in again with the new password
+    @PutMapping("/password")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> changePassword(
+            @Valid @RequestBody ChangePasswordRequest request,
+            Authentication authentication) {
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Optional<User> userOpt = userRepository.findById(userDetails.getId());
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        User user = userOpt.get();
+        if (!encoder.matches(request.getCurrentPassword(), user.getPassword())) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Current password is incorrect!"));
+        }
+        user.setPassword(encoder.encode(request.getNewPassword()));
+        userRepository.save(user);
+        userAuthCache.invalidate(user.getId());
+
+        return ResponseEntity.ok(new MessageResponse("Password changed successfully!"));
+    }
+
+    // Role names as in sign-up: "admin", "mod", anything else is a plain user.
+    // Tokens carry the roles, so the user's tokens are revoked to apply the change
+    @PutMapping("/{id}/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateUserRoles(@PathVariable Long id, @RequestBody Set<String> roleNames) {
+        Optional<User> userOpt = userRepository.findById(id);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Set<Role> roles = new HashSet<>();
+        for (String roleName : roleNames) {
+            ERole name = switch (roleName) {
+                case "admin" -> ERole.ROLE_ADMIN;
+                case "mod" -> ERole.ROLE_MODERATOR;
+                default -> ERole.ROLE_USER;
+            };
+            roles.add(roleRepository.findByName(name)
+                    .orElseThrow(() -> new RuntimeException("Error: Role is not found.")));
+        }
+        if (roles.isEmpty()) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: At least one role is required!"));
+        }
+
+        User user = userOpt.get();
+        user.setRoles(roles);
+        userRepository.save(user);
+        userAuthCache.invalidate(user.getId());
+
+        return ResponseEntity.ok(new MessageResponse("Roles updated successfully!"));
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.devsync.entity.Message;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 public class ChatMessageDto {
     private Long id;
@@ -18,6 +19,8 @@ public class ChatMessageDto {
     private Long recipientId;
     private String recipientUsername;
     private Long parentMessageId;
+    private Long seq; // per-conversation sequence number, consecutive unless a send failed
+    private Map<String, Integer> reactions; // emoji -> count, null when there are none
     
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
@@ -34,6 +37,8 @@ public class ChatMessageDto {
         dto.setSenderUsername(message.getSender().getUsername());
         dto.setSenderAvatar(message.getSender().getProfilePicture());
         dto.setTimestamp(message.getCreatedAt());
+        dto.setSeq(message.getSeq());
+        dto.setReactions(message.getReactionCounts());
         
         if (message.getChannel() != null) {
             dto.setType("CHANNEL");
@@ -89,6 +94,12 @@ public class ChatMessageDto {
     public Long getParentMessageId() { return parentMessageId; }
     public void setParentMessageId(Long parentMessageId) { this.parentMessageId = parentMessageId; }
 
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
+    public Map<String, Integer> getReactions() { return reactions; }
+    public void setReactions(Map<String, Integer> reactions) { this.reactions = reactions; }
+
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.devsync.dto;
+
+public class ConversationCursorDto {
+    private String type; // "CHANNEL" or "DIRECT"
+    private Long conversationId; // channelId, or the other user's id for direct messages
+    private Long lastMessageId; // newest message the client holds
+    private Long lastSeq; // its seq; preferred over lastMessageId when present
+    private Long lastReadMessageId; // read marker the client knows about
+
+    // Constructors
+    public ConversationCursorDto() {}
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getConversationId() { return conversationId; }
+    public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
+
+    public Long getLastMessageId() { return lastMessageId; }
+    public void setLastMessageId(Long lastMessageId) { this.lastMessageId = lastMessageId; }
+
+    public Long getLastSeq() { return lastSeq; }
+    public void setLastSeq(Long lastSeq) { this.lastSeq = lastSeq; }
+
+    public Long getLastReadMessageId() { return lastReadMessageId; }
+    public void setLastReadMessageId(Long lastReadMessageId) { this.lastReadMessageId = lastReadMessageId; }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.devsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+public class ConversationSummaryDto {
+    private String type; // "CHANNEL" or "DIRECT"
+    private Long conversationId; // channel id, or the other user's id for direct messages
+    private String name; // channel name or the other user's username
+    private String avatar;
+    private Long lastMessageId;
+    private Long lastMessageSeq;
+    private Long lastSenderId;
+    private String lastSenderUsername;
+    private String lastMessagePreview;
+    private Long lastReadMessageId;
+    private Long lastReadSeq;
+    private int unreadCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastMessageAt;
+
+    // Constructors
+    public ConversationSummaryDto() {}
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getConversationId() { return conversationId; }
+    public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getAvatar() { return avatar; }
+    public void setAvatar(String avatar) { this.avatar = avatar; }
+
+    public Long getLastMessageId() { return lastMessageId; }
+    public void setLastMessageId(Long lastMessageId) { this.lastMessageId = lastMessageId; }
+
+    public Long getLastMessageSeq() { return lastMessageSeq; }
+    public void setLastMessageSeq(Long lastMessageSeq) { this.lastMessageSeq = lastMessageSeq; }
+
+    public Long getLastSenderId() { return lastSenderId; }
+    public void setLastSenderId(Long lastSenderId) { this.lastSenderId = lastSenderId; }
+
+    public String getLastSenderUsername() { return lastSenderUsername; }
+    public void setLastSenderUsername(String lastSenderUsername) { this.lastSenderUsername = lastSenderUsername; }
+
+    public String getLastMessagePreview() { return lastMessagePreview; }
+    public void setLastMessagePreview(String lastMessagePreview) { this.lastMessagePreview = lastMessagePreview; }
+
+    public Long getLastReadMessageId() { return lastReadMessageId; }
+    public void setLastReadMessageId(Long lastReadMessageId) { this.lastReadMessageId = lastReadMessageId; }
+
+    public Long getLastReadSeq() { return lastReadSeq; }
+    public void setLastReadSeq(Long lastReadSeq) { this.lastReadSeq = lastReadSeq; }
+
+    public int getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
+
+    public LocalDateTime getLastMessageAt() { return lastMessageAt; }
+    public void setLastMessageAt(LocalDateTime lastMessageAt) { this.lastMessageAt = lastMessageAt; }
+}
\ No newline at end of file
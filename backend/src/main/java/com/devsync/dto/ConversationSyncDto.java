@@ -0,0 +1,49 @@
+package com.devsync.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConversationSyncDto {
+    private String type; // "CHANNEL" or "DIRECT"
+    private Long conversationId;
+    private String name;
+    private Long lastReadMessageId;
+    private int unreadCount;
+    private boolean reset; // messages are the latest page, not a continuation of the client's copy
+    private List<ChatMessageDto> messages = new ArrayList<>(); // oldest first
+
+    // Constructors
+    public ConversationSyncDto() {}
+
+    public static ConversationSyncDto fromSummary(ConversationSummaryDto summary) {
+        ConversationSyncDto dto = new ConversationSyncDto();
+        dto.setType(summary.getType());
+        dto.setConversationId(summary.getConversationId());
+        dto.setName(summary.getName());
+        dto.setLastReadMessageId(summary.getLastReadMessageId());
+        dto.setUnreadCount(summary.getUnreadCount());
+        return dto;
+    }
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getConversationId() { return conversationId; }
+    public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getLastReadMessageId() { return lastReadMessageId; }
+    public void setLastReadMessageId(Long lastReadMessageId) { this.lastReadMessageId = lastReadMessageId; }
+
+    public int getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
+
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+
+    public List<ChatMessageDto> getMessages() { return messages; }
+    public void setMessages(List<ChatMessageDto> messages) { this.messages = messages; }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.devsync.dto;
+
+import java.util.List;
+
+// One batched presence frame for a channel. A snapshot lists every online member,
+// a delta only the users that changed; clients apply deltas with a higher version
+public class PresenceFrameDto {
+    private Long channelId;
+    private long version;
+    private boolean snapshot;
+    private List<PresenceUpdateDto> users;
+
+    // Constructors
+    public PresenceFrameDto() {}
+
+    public PresenceFrameDto(Long channelId, long version, boolean snapshot, List<PresenceUpdateDto> users) {
+        this.channelId = channelId;
+        this.version = version;
+        this.snapshot = snapshot;
+        this.users = users;
+    }
+
+    // Getters and Setters
+    public Long getChannelId() { return channelId; }
+    public void setChannelId(Long channelId) { this.channelId = channelId; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isSnapshot() { return snapshot; }
+    public void setSnapshot(boolean snapshot) { this.snapshot = snapshot; }
+
+    public List<PresenceUpdateDto> getUsers() { return users; }
+    public void setUsers(List<PresenceUpdateDto> users) { this.users = users; }
+}
\ No newline at end of file
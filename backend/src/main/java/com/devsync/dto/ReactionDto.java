@@ -0,0 +1,38 @@
+package com.devsync.dto;
+
+// Request ({messageId, emoji, added}) and the delta broadcast to the conversation;
+// count is the emoji's new total on the message
+public class ReactionDto {
+    private Long messageId;
+    private String emoji;
+    private Long userId;
+    private boolean added = true; // false removes the user's reaction
+    private int count;
+
+    // Constructors
+    public ReactionDto() {}
+
+    public ReactionDto(Long messageId, String emoji, Long userId, boolean added, int count) {
+        this.messageId = messageId;
+        this.emoji = emoji;
+        this.userId = userId;
+        this.added = added;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public Long getMessageId() { return messageId; }
+    public void setMessageId(Long messageId) { this.messageId = messageId; }
+
+    public String getEmoji() { return emoji; }
+    public void setEmoji(String emoji) { this.emoji = emoji; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public boolean isAdded() { return added; }
+    public void setAdded(boolean added) { this.added = added; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.devsync.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+public class ReadMarkerDto {
+    private Long userId;
+    private String username;
+    private String type; // "CHANNEL" or "DIRECT"
+    private Long conversationId; // channelId, or the other user's id for direct messages
+    private Long messageId; // last message the user has read
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+    // Constructors
+    public ReadMarkerDto() {}
+
+    public ReadMarkerDto(Long userId, String username, String type, Long conversationId, Long messageId) {
+        this.userId = userId;
+        this.username = username;
+        this.type = type;
+        this.conversationId = conversationId;
+        this.messageId = messageId;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getConversationId() { return conversationId; }
+    public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
+
+    public Long getMessageId() { return messageId; }
+    public void setMessageId(Long messageId) { this.messageId = messageId; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.devsync.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SyncRequestDto {
+    private List<ConversationCursorDto> conversations = new ArrayList<>(); // what the client already has
+    private Integer limit; // max messages returned per conversation
+
+    // Constructors
+    public SyncRequestDto() {}
+
+    // Getters and Setters
+    public List<ConversationCursorDto> getConversations() { return conversations; }
+    public void setConversations(List<ConversationCursorDto> conversations) { this.conversations = conversations; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
\ No newline at end of file
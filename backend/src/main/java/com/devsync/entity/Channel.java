@@ -14,7 +14,8 @@ import java.util.Set;
 @Table(name = "channels")
 public class Channel {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "channels_seq")
+    @SequenceGenerator(name = "channels_seq", sequenceName = "channels_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
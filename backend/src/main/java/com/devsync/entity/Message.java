@@ -3,17 +3,33 @@ package com.devsync.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Entity
 @Table(name = "messages")
+// Everything ChatMessageDto.fromEntity reads; parentMessage is left out because
+// only its id is used, which Hibernate serves from the proxy without a query
+@NamedEntityGraph(name = Message.WITH_PARTICIPANTS, attributeNodes = {
+        @NamedAttributeNode("sender"),
+        @NamedAttributeNode("channel"),
+        @NamedAttributeNode("recipient")
+})
 public class Message {
+    public static final String WITH_PARTICIPANTS = "Message.withParticipants";
+
+    // Must match INCREMENT BY of messages_id_seq; each nextval hands out a block of this many ids
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
@@ -42,6 +58,15 @@ public class Message {
     @Enumerated(EnumType.STRING)
     private MessageType type = MessageType.TEXT;
 
+    // 1, 2, 3, ... within the channel or direct conversation, see MessageSequenceService
+    @Column(name = "seq", nullable = false)
+    private Long seq;
+
+    // emoji -> count, maintained by ReactionService from message_reactions; never written through JPA
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "reaction_counts", columnDefinition = "jsonb", insertable = false, updatable = false)
+    private Map<String, Integer> reactionCounts;
+
     @Column(name = "is_edited")
     private Boolean isEdited = false;
 
@@ -96,6 +121,12 @@ public class Message {
     public MessageType getType() { return type; }
     public void setType(MessageType type) { this.type = type; }
 
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
+    public Map<String, Integer> getReactionCounts() { return reactionCounts; }
+    public void setReactionCounts(Map<String, Integer> reactionCounts) { this.reactionCounts = reactionCounts; }
+
     public Boolean getIsEdited() { return isEdited; }
     public void setIsEdited(Boolean isEdited) { this.isEdited = isEdited; }
 
@@ -32,7 +32,7 @@ public class WebSocketEventListener {
             String sessionId = headerAccessor.getSessionId();
             Long userId = userDetails.getId();
             
-            presenceService.userConnected(userId, sessionId);
+            presenceService.userConnected(userId, userDetails.getUsername(), sessionId);
             logger.info("User connected: {} with session: {}", userDetails.getUsername(), sessionId);
         }
     }
@@ -45,9 +45,10 @@ public class WebSocketEventListener {
             UsernamePasswordAuthenticationToken auth = (UsernamePasswordAuthenticationToken) headerAccessor.getUser();
             UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
             
+            String sessionId = headerAccessor.getSessionId();
             Long userId = userDetails.getId();
-            presenceService.userDisconnected(userId);
-            logger.info("User disconnected: {}", userDetails.getUsername());
+            presenceService.userDisconnected(userId, sessionId);
+            logger.info("User disconnected: {} with session: {}", userDetails.getUsername(), sessionId);
         }
     }
 }
\ No newline at end of file
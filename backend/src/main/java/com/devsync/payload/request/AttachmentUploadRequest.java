@@ -0,0 +1,54 @@
+package com.devsync.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public class AttachmentUploadRequest {
+    @NotNull
+    private Long messageId;
+
+    @NotBlank
+    @Size(max = 255)
+    private String fileName;
+
+    @Size(max = 100)
+    private String mimeType;
+
+    @NotNull
+    @Positive
+    private Long size; // Total file size in bytes
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(Long messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+}
\ No newline at end of file
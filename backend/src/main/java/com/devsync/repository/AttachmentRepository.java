@@ -0,0 +1,124 @@
+package com.devsync.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// message_attachments rows for uploaded files, read together with the conversation
+// of their message so access can be checked without loading the entity graph
+@Repository
+public class AttachmentRepository {
+
+    // file_url and the staging key are derived from the id, so the row is created in one statement
+    private static final String INSERT_SQL =
+            "WITH next AS (SELECT nextval(pg_get_serial_sequence('message_attachments', 'id')) AS id) " +
+            "INSERT INTO message_attachments (id, message_id, uploader_id, file_name, file_url, file_size, mime_type, status, storage_key) " +
+            "SELECT next.id, ?, ?, ?, '/api/attachments/' || next.id || '/content', ?, ?, 'UPLOADING', 'uploads/' || next.id FROM next " +
+            "RETURNING id";
+
+    private static final String SELECT_SQL =
+            "SELECT a.id, a.message_id, a.uploader_id, a.file_name, a.file_url, a.file_size, a.mime_type, a.status, " +
+            "a.storage_key, a.content_hash, a.thumbnail_key, a.updated_at, m.channel_id, m.sender_id, m.recipient_id " +
+            "FROM message_attachments a JOIN messages m ON m.id = a.message_id ";
+
+    private static final String FIND_SENDER_SQL =
+            "SELECT sender_id FROM messages WHERE id = ?";
+
+    private static final String MARK_PROCESSING_SQL =
+            "UPDATE message_attachments SET status = 'PROCESSING', updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND status = 'UPLOADING'";
+
+    private static final String SET_CONTENT_HASH_SQL =
+            "UPDATE message_attachments SET content_hash = ? WHERE id = ? AND status = 'PROCESSING'";
+
+    private static final String MARK_READY_SQL =
+            "UPDATE message_attachments SET status = 'READY', storage_key = ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND status = 'PROCESSING'";
+
+    private static final String SET_THUMBNAIL_SQL =
+            "UPDATE message_attachments SET thumbnail_key = ? WHERE id = ?";
+
+    private static final String TOUCH_SQL =
+            "UPDATE message_attachments SET updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM message_attachments WHERE id = ? AND status = 'UPLOADING'";
+
+    private static final RowMapper<StoredAttachment> ROW_MAPPER = (rs, rowNum) -> new StoredAttachment(
+            rs.getLong("id"),
+            rs.getLong("message_id"),
+            rs.getObject("uploader_id", Long.class),
+            rs.getString("file_name"),
+            rs.getString("file_url"),
+            rs.getObject("file_size", Long.class),
+            rs.getString("mime_type"),
+            rs.getString("status"),
+            rs.getString("storage_key"),
+            rs.getString("content_hash"),
+            rs.getString("thumbnail_key"),
+            rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toInstant() : null,
+            rs.getObject("channel_id", Long.class),
+            rs.getLong("sender_id"),
+            rs.getObject("recipient_id", Long.class));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public Long create(Long messageId, Long uploaderId, String fileName, long size, String mimeType) {
+        return jdbcTemplate.queryForObject(INSERT_SQL, Long.class, messageId, uploaderId, fileName, size, mimeType);
+    }
+
+    public Optional<Long> findMessageSender(Long messageId) {
+        return jdbcTemplate.query(FIND_SENDER_SQL, (rs, rowNum) -> rs.getLong("sender_id"), messageId).stream().findFirst();
+    }
+
+    public Optional<StoredAttachment> findById(Long id) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE a.id = ?", ROW_MAPPER, id).stream().findFirst();
+    }
+
+    public List<StoredAttachment> findByMessageId(Long messageId) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE a.message_id = ? ORDER BY a.id", ROW_MAPPER, messageId);
+    }
+
+    // Uploads not touched since the cutoff, and processing that never finished (e.g. a restart)
+    public List<StoredAttachment> findStale(String status, Instant updatedBefore, int limit) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE a.status = ? AND a.updated_at < ? ORDER BY a.updated_at LIMIT ?",
+                ROW_MAPPER, status, Timestamp.from(updatedBefore), limit);
+    }
+
+    // False when another request completed the upload first
+    public boolean markProcessing(Long id) {
+        return jdbcTemplate.update(MARK_PROCESSING_SQL, id) > 0;
+    }
+
+    // Recorded before the staging file is moved, so processing can resume after a crash in between
+    public void setContentHash(Long id, String contentHash) {
+        jdbcTemplate.update(SET_CONTENT_HASH_SQL, contentHash, id);
+    }
+
+    public boolean markReady(Long id, String storageKey) {
+        return jdbcTemplate.update(MARK_READY_SQL, storageKey, id) > 0;
+    }
+
+    public void setThumbnail(Long id, String thumbnailKey) {
+        jdbcTemplate.update(SET_THUMBNAIL_SQL, thumbnailKey, id);
+    }
+
+    public void touch(Long id) {
+        jdbcTemplate.update(TOUCH_SQL, id);
+    }
+
+    public boolean deleteUpload(Long id) {
+        return jdbcTemplate.update(DELETE_SQL, id) > 0;
+    }
+
+    public record StoredAttachment(Long id, Long messageId, Long uploaderId, String fileName, String fileUrl,
+                                   Long size, String mimeType, String status, String storageKey, String contentHash,
+                                   String thumbnailKey, Instant updatedAt, Long channelId, Long senderId, Long recipientId) {}
+}
\ No newline at end of file
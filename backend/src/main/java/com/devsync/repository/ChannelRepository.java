@@ -3,9 +3,11 @@ package com.devsync.repository;
 import com.devsync.entity.Channel;
 import com.devsync.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -19,6 +21,23 @@ public interface ChannelRepository extends JpaRepository<Channel, Long> {
     @Query("SELECT c FROM Channel c WHERE c.isPrivate = false OR (c.isPrivate = true AND :user MEMBER OF c.members)")
     List<Channel> findAccessibleChannels(@Param("user") User user);
     
-    @Query("SELECT u FROM Channel c JOIN c.members u WHERE c.id = :channelId AND u.id NOT IN :onlineUserIds")
-    List<User> findOfflineChannelMembers(@Param("channelId") Long channelId, @Param("onlineUserIds") java.util.Set<Long> onlineUserIds);
+    @Query("SELECT u FROM Channel c JOIN c.members u WHERE c.id = :channelId")
+    List<User> findChannelMembers(@Param("channelId") Long channelId);
+    
+    // Ids only, for the membership index; never hydrates the member entities
+    @Query("SELECT u.id FROM Channel c JOIN c.members u WHERE c.id = :channelId")
+    List<Long> findMemberIds(@Param("channelId") Long channelId);
+    
+    // Adds one membership row without initializing Channel.members
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO channel_members (channel_id, user_id) VALUES (:channelId, :userId) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addMember(@Param("channelId") Long channelId, @Param("userId") Long userId);
+    
+    @Query("SELECT COUNT(u) > 0 FROM Channel c JOIN c.members u WHERE c.id = :channelId AND u.id = :userId")
+    boolean isMember(@Param("channelId") Long channelId, @Param("userId") Long userId);
+    
+    // Rows of (user id, channel id)
+    @Query("SELECT u.id, c.id FROM Channel c JOIN c.members u WHERE u.id IN :userIds")
+    List<Object[]> findChannelIdsByMemberIds(@Param("userIds") java.util.Collection<Long> userIds);
 }
\ No newline at end of file
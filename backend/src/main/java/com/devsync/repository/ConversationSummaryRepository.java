@@ -0,0 +1,176 @@
+package com.devsync.repository;
+
+import com.devsync.dto.ConversationSummaryDto;
+import com.devsync.dto.ReadMarkerDto;
+import com.devsync.entity.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Maintains the conversation_summary inbox rows: one per (user, conversation)
+@Repository
+public class ConversationSummaryRepository {
+
+    private static final int PREVIEW_LENGTH = 200;
+
+    // Sequence numbers order messages within a conversation, whichever instance wrote them
+    private static final String IS_NEWER = "(s.last_message_seq IS NULL OR EXCLUDED.last_message_seq > s.last_message_seq)";
+
+    // One statement per message fans out to every participant: the channel members, or
+    // both sides of a direct message (UNION collapses a message to oneself). The sender's
+    // own row is marked read, and every unread count is last_message_seq - last_read_seq.
+    // Rows are locked in user id order so concurrent writers to one channel cannot deadlock
+    private static final String RECORD_MESSAGE_SQL =
+            "WITH msg (id, seq, sender_id, sender_username, preview, created_at, channel_id, recipient_id) AS (" +
+            "VALUES (CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint), CAST(? AS varchar), CAST(? AS varchar), " +
+            "CAST(? AS timestamp), CAST(? AS bigint), CAST(? AS bigint))), " +
+            "participants (user_id, conversation_type, conversation_id) AS (" +
+            "SELECT cm.user_id, 'CHANNEL', cm.channel_id FROM msg JOIN channel_members cm ON cm.channel_id = msg.channel_id " +
+            "UNION SELECT msg.sender_id, 'DIRECT', msg.recipient_id FROM msg WHERE msg.recipient_id IS NOT NULL " +
+            "UNION SELECT msg.recipient_id, 'DIRECT', msg.sender_id FROM msg WHERE msg.recipient_id IS NOT NULL) " +
+            "INSERT INTO conversation_summary AS s (user_id, conversation_type, conversation_id, last_message_id, " +
+            "last_message_seq, last_sender_id, last_sender_username, last_message_preview, last_message_at, " +
+            "last_read_message_id, last_read_seq, unread_count) " +
+            "SELECT p.user_id, p.conversation_type, p.conversation_id, msg.id, msg.seq, msg.sender_id, msg.sender_username, " +
+            "msg.preview, msg.created_at, " +
+            "CASE WHEN p.user_id = msg.sender_id THEN msg.id END, " +
+            "CASE WHEN p.user_id = msg.sender_id THEN msg.seq END, " +
+            "CASE WHEN p.user_id = msg.sender_id THEN 0 ELSE msg.seq END " +
+            "FROM msg CROSS JOIN participants p ORDER BY p.user_id " +
+            "ON CONFLICT (user_id, conversation_type, conversation_id) DO UPDATE SET " +
+            "last_message_id = CASE WHEN " + IS_NEWER + " THEN EXCLUDED.last_message_id ELSE s.last_message_id END, " +
+            "last_sender_id = CASE WHEN " + IS_NEWER + " THEN EXCLUDED.last_sender_id ELSE s.last_sender_id END, " +
+            "last_sender_username = CASE WHEN " + IS_NEWER + " THEN EXCLUDED.last_sender_username ELSE s.last_sender_username END, " +
+            "last_message_preview = CASE WHEN " + IS_NEWER + " THEN EXCLUDED.last_message_preview ELSE s.last_message_preview END, " +
+            "last_message_at = CASE WHEN " + IS_NEWER + " THEN EXCLUDED.last_message_at ELSE s.last_message_at END, " +
+            "last_message_seq = GREATEST(s.last_message_seq, EXCLUDED.last_message_seq), " +
+            "last_read_message_id = CASE WHEN EXCLUDED.last_read_seq > COALESCE(s.last_read_seq, 0) " +
+            "THEN EXCLUDED.last_read_message_id ELSE s.last_read_message_id END, " +
+            "last_read_seq = GREATEST(s.last_read_seq, EXCLUDED.last_read_seq), " +
+            "unread_count = GREATEST(GREATEST(s.last_message_seq, EXCLUDED.last_message_seq) " +
+            "- COALESCE(GREATEST(s.last_read_seq, EXCLUDED.last_read_seq), 0), 0)";
+
+    // A new member starts from the channel's current latest message, with nothing unread
+    private static final String ADD_CHANNEL_MEMBER_SQL =
+            "INSERT INTO conversation_summary (user_id, conversation_type, conversation_id, last_message_id, " +
+            "last_message_seq, last_sender_id, last_sender_username, last_message_preview, last_message_at, " +
+            "last_read_message_id, last_read_seq) " +
+            "SELECT ?, 'CHANNEL', ?, m.id, m.seq, m.sender_id, u.username, left(m.content, " + PREVIEW_LENGTH + "), " +
+            "m.created_at, m.id, m.seq " +
+            "FROM (SELECT 1) one " +
+            "LEFT JOIN LATERAL (SELECT * FROM messages WHERE channel_id = ? ORDER BY seq DESC LIMIT 1) m ON true " +
+            "LEFT JOIN users u ON u.id = m.sender_id " +
+            "ON CONFLICT DO NOTHING";
+
+    // Served by idx_conversation_summary_inbox
+    private static final String INBOX_SQL =
+            "SELECT s.*, c.name AS channel_name, p.username AS peer_username, p.profile_picture AS peer_avatar " +
+            "FROM conversation_summary s " +
+            "LEFT JOIN channels c ON s.conversation_type = 'CHANNEL' AND c.id = s.conversation_id " +
+            "LEFT JOIN users p ON s.conversation_type = 'DIRECT' AND p.id = s.conversation_id " +
+            "WHERE s.user_id = ? " +
+            "ORDER BY s.last_message_at DESC NULLS LAST " +
+            "LIMIT ?";
+
+    // Read markers only move forward and must point into the conversation; the
+    // unread count follows from the marker's sequence number without counting rows
+    private static final String MARK_CHANNEL_READ_SQL =
+            "UPDATE conversation_summary s SET last_read_message_id = r.id, last_read_seq = r.seq, " +
+            "unread_count = GREATEST(COALESCE(s.last_message_seq, 0) - r.seq, 0) " +
+            "FROM messages r " +
+            "WHERE r.id = ? AND s.user_id = ? AND s.conversation_type = 'CHANNEL' AND s.conversation_id = ? " +
+            "AND r.channel_id = s.conversation_id " +
+            "AND (s.last_read_seq IS NULL OR r.seq > s.last_read_seq)";
+
+    private static final String MARK_DIRECT_READ_SQL =
+            "UPDATE conversation_summary s SET last_read_message_id = r.id, last_read_seq = r.seq, " +
+            "unread_count = GREATEST(COALESCE(s.last_message_seq, 0) - r.seq, 0) " +
+            "FROM messages r " +
+            "WHERE r.id = ? AND s.user_id = ? AND s.conversation_type = 'DIRECT' AND s.conversation_id = ? " +
+            "AND ((r.sender_id = s.user_id AND r.recipient_id = s.conversation_id) " +
+            "OR (r.recipient_id = s.user_id AND r.sender_id = s.conversation_id)) " +
+            "AND (s.last_read_seq IS NULL OR r.seq > s.last_read_seq)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void recordMessages(List<Message> messages) {
+        jdbcTemplate.batchUpdate(RECORD_MESSAGE_SQL, messages, messages.size(), (ps, message) -> {
+            ps.setLong(1, message.getId());
+            ps.setLong(2, message.getSeq());
+            ps.setLong(3, message.getSender().getId());
+            ps.setString(4, message.getSender().getUsername());
+            ps.setString(5, preview(message.getContent()));
+            ps.setTimestamp(6, Timestamp.valueOf(message.getCreatedAt()));
+            ps.setObject(7, message.getChannel() != null ? message.getChannel().getId() : null, Types.BIGINT);
+            ps.setObject(8, message.getRecipient() != null ? message.getRecipient().getId() : null, Types.BIGINT);
+        });
+    }
+
+    public void addChannelMember(Long userId, Long channelId) {
+        jdbcTemplate.update(ADD_CHANNEL_MEMBER_SQL, userId, channelId, channelId);
+    }
+
+    // Returns the markers that moved a read position; the others pointed at an unknown,
+    // older or foreign message, or at a conversation the user is not part of
+    public List<ReadMarkerDto> markRead(List<ReadMarkerDto> markers) {
+        List<ReadMarkerDto> applied = new ArrayList<>();
+        Map<String, List<ReadMarkerDto>> byType = markers.stream().collect(Collectors.groupingBy(ReadMarkerDto::getType));
+        byType.forEach((type, typed) -> {
+            String sql = "CHANNEL".equals(type) ? MARK_CHANNEL_READ_SQL : MARK_DIRECT_READ_SQL;
+            int[][] counts = jdbcTemplate.batchUpdate(sql, typed, typed.size(), (ps, marker) -> {
+                ps.setLong(1, marker.getMessageId());
+                ps.setLong(2, marker.getUserId());
+                ps.setLong(3, marker.getConversationId());
+            });
+            int i = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    // The driver may only report SUCCESS_NO_INFO for batched statements
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                        applied.add(typed.get(i));
+                    }
+                    i++;
+                }
+            }
+        });
+        return applied;
+    }
+
+    public List<ConversationSummaryDto> findInbox(Long userId, int limit) {
+        return jdbcTemplate.query(INBOX_SQL, (rs, rowNum) -> {
+            ConversationSummaryDto summary = new ConversationSummaryDto();
+            summary.setType(rs.getString("conversation_type"));
+            summary.setConversationId(rs.getLong("conversation_id"));
+            boolean isChannel = "CHANNEL".equals(summary.getType());
+            summary.setName(rs.getString(isChannel ? "channel_name" : "peer_username"));
+            summary.setAvatar(isChannel ? null : rs.getString("peer_avatar"));
+            summary.setLastMessageId(rs.getObject("last_message_id", Long.class));
+            summary.setLastMessageSeq(rs.getObject("last_message_seq", Long.class));
+            summary.setLastSenderId(rs.getObject("last_sender_id", Long.class));
+            summary.setLastSenderUsername(rs.getString("last_sender_username"));
+            summary.setLastMessagePreview(rs.getString("last_message_preview"));
+            Timestamp lastMessageAt = rs.getTimestamp("last_message_at");
+            summary.setLastMessageAt(lastMessageAt != null ? lastMessageAt.toLocalDateTime() : null);
+            summary.setLastReadMessageId(rs.getObject("last_read_message_id", Long.class));
+            summary.setLastReadSeq(rs.getObject("last_read_seq", Long.class));
+            summary.setUnreadCount(rs.getInt("unread_count"));
+            return summary;
+        }, userId, limit);
+    }
+
+    private String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.devsync.repository;
+
+import com.devsync.dto.MentionDto;
+import com.devsync.entity.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// The message_mentions inbox. A message mentions each user at most once; direct
+// @username rows are written first, so they win over @channel/@here
+@Repository
+public class MentionRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO message_mentions (user_id, message_id, channel_id, sender_id, mention_type, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    // @channel addresses every member; one statement however large the channel is
+    private static final String INSERT_CHANNEL_SQL =
+            "INSERT INTO message_mentions (user_id, message_id, channel_id, sender_id, mention_type, created_at) " +
+            "SELECT cm.user_id, ?, cm.channel_id, ?, 'CHANNEL', ? FROM channel_members cm " +
+            "WHERE cm.channel_id = ? AND cm.user_id <> ? " +
+            "ON CONFLICT DO NOTHING";
+
+    // Served by idx_message_mentions_inbox; "before" is the message id of the last mention the client holds
+    private static final String SELECT_SQL =
+            "SELECT mm.message_id, mm.mention_type, mm.channel_id, c.name AS channel_name, mm.sender_id, " +
+            "u.username AS sender_username, m.content, m.seq, mm.created_at " +
+            "FROM message_mentions mm " +
+            "JOIN messages m ON m.id = mm.message_id " +
+            "JOIN channels c ON c.id = mm.channel_id " +
+            "JOIN users u ON u.id = mm.sender_id " +
+            "WHERE mm.user_id = ? ";
+
+    private static final String BEFORE_CLAUSE =
+            "AND (mm.created_at, mm.message_id) < " +
+            "(SELECT created_at, message_id FROM message_mentions WHERE user_id = ? AND message_id = ?) ";
+
+    private static final String ORDER_CLAUSE = "ORDER BY mm.created_at DESC, mm.message_id DESC LIMIT ?";
+
+    private static final RowMapper<MentionDto> MENTION_MAPPER = (rs, rowNum) -> {
+        MentionDto mention = new MentionDto();
+        mention.setMessageId(rs.getLong("message_id"));
+        mention.setMentionType(rs.getString("mention_type"));
+        mention.setChannelId(rs.getLong("channel_id"));
+        mention.setChannelName(rs.getString("channel_name"));
+        mention.setSenderId(rs.getLong("sender_id"));
+        mention.setSenderUsername(rs.getString("sender_username"));
+        mention.setContent(rs.getString("content"));
+        mention.setSeq(rs.getObject("seq", Long.class));
+        mention.setTimestamp(rs.getTimestamp("created_at").toLocalDateTime());
+        return mention;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertMentions(Message message, Collection<Long> userIds, String mentionType) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        jdbcTemplate.batchUpdate(INSERT_SQL, ids, ids.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, message.getId());
+            ps.setLong(3, message.getChannel().getId());
+            ps.setLong(4, message.getSender().getId());
+            ps.setString(5, mentionType);
+            ps.setTimestamp(6, Timestamp.valueOf(message.getCreatedAt()));
+        });
+    }
+
+    public void insertChannelMentions(Message message) {
+        jdbcTemplate.update(INSERT_CHANNEL_SQL,
+                message.getId(),
+                message.getSender().getId(),
+                Timestamp.valueOf(message.getCreatedAt()),
+                message.getChannel().getId(),
+                message.getSender().getId());
+    }
+
+    public List<MentionDto> findMentions(Long userId, Long beforeMessageId, int limit) {
+        if (beforeMessageId == null) {
+            return jdbcTemplate.query(SELECT_SQL + ORDER_CLAUSE, MENTION_MAPPER, userId, limit);
+        }
+        return jdbcTemplate.query(SELECT_SQL + BEFORE_CLAUSE + ORDER_CLAUSE, MENTION_MAPPER,
+                userId, userId, beforeMessageId, limit);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.devsync.repository;
+
+import com.devsync.dto.MessageSearchResultDto;
+import com.devsync.entity.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+@Repository
+public class MessageJdbcRepository {
+
+    private static final String RESERVE_ID_BLOCK_SQL = "SELECT nextval('messages_id_seq')";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (id, content, sender_id, channel_id, recipient_id, parent_message_id, " +
+            "type, is_edited, created_at, updated_at, seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO NOTHING";
+
+    private static final String INSERT_DEAD_LETTER_SQL =
+            "INSERT INTO message_dead_letters (message_id, content, sender_id, channel_id, recipient_id, " +
+            "parent_message_id, type, seq, created_at, error) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (message_id) DO NOTHING";
+
+    // Reserves the next blockSize sequence numbers of a conversation and returns the
+    // last one; the first message of a conversation creates its row
+    private static final String RESERVE_SEQUENCE_BLOCK_SQL =
+            "INSERT INTO conversation_sequences AS s (conversation_key, last_seq) VALUES (?, ?) " +
+            "ON CONFLICT (conversation_key) DO UPDATE SET last_seq = s.last_seq + EXCLUDED.last_seq " +
+            "RETURNING last_seq";
+
+    // Matches go through the GIN index on search_vector; the access filter covers public
+    // channels, channels the user belongs to and the user's own direct messages.
+    // ts_headline is costly, Postgres only evaluates it for the rows that survive the LIMIT
+    private static final String SEARCH_SQL =
+            "SELECT m.id, m.content, m.sender_id, u.username AS sender_username, m.channel_id, " +
+            "c.name AS channel_name, m.recipient_id, m.created_at, " +
+            "ts_rank(m.search_vector, q) AS rank, " +
+            "ts_headline('english', m.content, q, 'StartSel=<mark>, StopSel=</mark>, MaxFragments=2') AS highlight " +
+            "FROM messages m " +
+            "CROSS JOIN websearch_to_tsquery('english', ?) q " +
+            "JOIN users u ON u.id = m.sender_id " +
+            "LEFT JOIN channels c ON c.id = m.channel_id " +
+            "WHERE m.search_vector @@ q " +
+            "AND ((m.channel_id IS NOT NULL AND (c.is_private = false OR EXISTS (" +
+            "SELECT 1 FROM channel_members cm WHERE cm.channel_id = m.channel_id AND cm.user_id = ?))) " +
+            "OR (m.recipient_id IS NOT NULL AND (m.sender_id = ? OR m.recipient_id = ?))) " +
+            "ORDER BY rank DESC, m.created_at DESC, m.id DESC " +
+            "LIMIT ? OFFSET ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Same pooled-lo scheme Hibernate uses: nextval returns the first id of a block
+    // of Message.ID_ALLOCATION_SIZE ids owned exclusively by the caller
+    public long reserveIdBlock() {
+        return jdbcTemplate.queryForObject(RESERVE_ID_BLOCK_SQL, Long.class);
+    }
+
+    public long reserveSequenceBlock(String conversationKey, int blockSize) {
+        return jdbcTemplate.queryForObject(RESERVE_SEQUENCE_BLOCK_SQL, Long.class, conversationKey, blockSize);
+    }
+
+    public List<MessageSearchResultDto> search(Long userId, String query, int limit, long offset) {
+        return jdbcTemplate.query(SEARCH_SQL, (rs, rowNum) -> {
+            MessageSearchResultDto result = new MessageSearchResultDto();
+            result.setId(rs.getLong("id"));
+            result.setContent(rs.getString("content"));
+            result.setHighlight(rs.getString("highlight"));
+            result.setRank(rs.getDouble("rank"));
+            result.setSenderId(rs.getLong("sender_id"));
+            result.setSenderUsername(rs.getString("sender_username"));
+            result.setChannelId(rs.getObject("channel_id", Long.class));
+            result.setChannelName(rs.getString("channel_name"));
+            result.setRecipientId(rs.getObject("recipient_id", Long.class));
+            result.setType(result.getChannelId() != null ? "CHANNEL" : "DIRECT");
+            result.setTimestamp(rs.getTimestamp("created_at").toLocalDateTime());
+            return result;
+        }, query, userId, userId, userId, limit, offset);
+    }
+
+    // With reWriteBatchedInserts enabled on the JDBC URL the driver sends
+    // each batch as multi-row INSERT statements. Ids are assigned up front, so a batch
+    // retried after a partial failure skips the rows that already made it
+    public void insertBatch(List<Message> messages) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (ps, message) -> {
+            Timestamp createdAt = Timestamp.valueOf(message.getCreatedAt());
+            ps.setLong(1, message.getId());
+            ps.setString(2, message.getContent());
+            ps.setLong(3, message.getSender().getId());
+            ps.setObject(4, message.getChannel() != null ? message.getChannel().getId() : null, Types.BIGINT);
+            ps.setObject(5, message.getRecipient() != null ? message.getRecipient().getId() : null, Types.BIGINT);
+            ps.setObject(6, message.getParentMessage() != null ? message.getParentMessage().getId() : null, Types.BIGINT);
+            // OTHER lets Postgres cast into either the message_type enum or a varchar column
+            ps.setObject(7, message.getType().name(), Types.OTHER);
+            ps.setBoolean(8, Boolean.TRUE.equals(message.getIsEdited()));
+            ps.setTimestamp(9, createdAt);
+            ps.setTimestamp(10, createdAt);
+            ps.setLong(11, message.getSeq());
+        });
+    }
+
+    public void insertDeadLetter(Message message, String error) {
+        jdbcTemplate.update(INSERT_DEAD_LETTER_SQL,
+                message.getId(),
+                message.getContent(),
+                message.getSender().getId(),
+                message.getChannel() != null ? message.getChannel().getId() : null,
+                message.getRecipient() != null ? message.getRecipient().getId() : null,
+                message.getParentMessage() != null ? message.getParentMessage().getId() : null,
+                message.getType().name(),
+                message.getSeq(),
+                Timestamp.valueOf(message.getCreatedAt()),
+                error);
+    }
+}
\ No newline at end of file
@@ -1,27 +1,94 @@
 package com.devsync.repository;
 
 import com.devsync.entity.Message;
-import com.devsync.entity.Channel;
-import com.devsync.entity.User;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
-    Page<Message> findByChannelOrderByCreatedAtDesc(Channel channel, Pageable pageable);
+    // Keyset pagination on (created_at, id): served by idx_messages_channel_keyset and
+    // idx_messages_direct_keyset, no OFFSET scan and no COUNT(*) since results are Slices.
+    // The cursor is a row-value comparison, which Postgres turns into a single range seek
+    // on the index; the expanded OR form would only filter rows after the prefix match.
+    // HQL rejects tuple comparisons against parameters, so row() is passed through to Postgres.
+    // History reads fetch-join the participants so a page is mapped to DTOs in one query
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.channel.id = :channelId ORDER BY m.createdAt DESC, m.id DESC")
+    Slice<Message> findLatestChannelMessages(@Param("channelId") Long channelId, Pageable pageable);
     
-    @Query("SELECT m FROM Message m WHERE (m.sender = :user1 AND m.recipient = :user2) OR (m.sender = :user2 AND m.recipient = :user1) ORDER BY m.createdAt DESC")
-    Page<Message> findDirectMessages(@Param("user1") User user1, @Param("user2") User user2, Pageable pageable);
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.channel.id = :channelId " +
+           "AND row(m.createdAt, m.id) < row(:createdAt, :id) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    Slice<Message> findChannelMessagesBefore(@Param("channelId") Long channelId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
     
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.channel.id = :channelId " +
+           "AND row(m.createdAt, m.id) > row(:createdAt, :id) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    Slice<Message> findChannelMessagesAfter(@Param("channelId") Long channelId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.recipient.id IS NOT NULL " +
+           "AND least(m.sender.id, m.recipient.id) = :lowId AND greatest(m.sender.id, m.recipient.id) = :highId " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    Slice<Message> findLatestDirectMessages(@Param("lowId") Long lowId, @Param("highId") Long highId, Pageable pageable);
+    
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.recipient.id IS NOT NULL " +
+           "AND least(m.sender.id, m.recipient.id) = :lowId AND greatest(m.sender.id, m.recipient.id) = :highId " +
+           "AND row(m.createdAt, m.id) < row(:createdAt, :id) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    Slice<Message> findDirectMessagesBefore(@Param("lowId") Long lowId,
+                                            @Param("highId") Long highId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.recipient.id IS NOT NULL " +
+           "AND least(m.sender.id, m.recipient.id) = :lowId AND greatest(m.sender.id, m.recipient.id) = :highId " +
+           "AND row(m.createdAt, m.id) > row(:createdAt, :id) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    Slice<Message> findDirectMessagesAfter(@Param("lowId") Long lowId,
+                                           @Param("highId") Long highId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+    
+    // Exact resume from a sequence number, served by idx_messages_channel_seq / idx_messages_direct_seq
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.channel.id = :channelId AND m.seq > :seq ORDER BY m.seq ASC")
+    Slice<Message> findChannelMessagesAfterSeq(@Param("channelId") Long channelId, @Param("seq") Long seq, Pageable pageable);
+    
+    @EntityGraph(Message.WITH_PARTICIPANTS)
+    @Query("SELECT m FROM Message m WHERE m.recipient.id IS NOT NULL " +
+           "AND least(m.sender.id, m.recipient.id) = :lowId AND greatest(m.sender.id, m.recipient.id) = :highId " +
+           "AND m.seq > :seq ORDER BY m.seq ASC")
+    Slice<Message> findDirectMessagesAfterSeq(@Param("lowId") Long lowId,
+                                              @Param("highId") Long highId,
+                                              @Param("seq") Long seq,
+                                              Pageable pageable);
+    
+    @Query("SELECT m.createdAt FROM Message m WHERE m.id = :id")
+    Optional<LocalDateTime> findCreatedAtById(@Param("id") Long id);
+    
+    @EntityGraph(Message.WITH_PARTICIPANTS)
     @Query("SELECT m FROM Message m WHERE m.parentMessage.id = :parentId ORDER BY m.createdAt ASC")
     List<Message> findThreadReplies(@Param("parentId") Long parentId);
-    
-    @Query("SELECT m FROM Message m WHERE m.content LIKE %:keyword% AND m.channel = :channel ORDER BY m.createdAt DESC")
-    List<Message> searchInChannel(@Param("keyword") String keyword, @Param("channel") Channel channel);
 }
\ No newline at end of file
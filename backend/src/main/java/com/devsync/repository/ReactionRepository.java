@@ -0,0 +1,81 @@
+package com.devsync.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// message_reactions rows plus the denormalized messages.reaction_counts they feed
+@Repository
+public class ReactionRepository {
+
+    private static final String FIND_TARGET_SQL =
+            "SELECT channel_id, sender_id, recipient_id FROM messages WHERE id = ?";
+
+    private static final String FIND_REACTIONS_SQL =
+            "SELECT user_id, emoji FROM message_reactions WHERE message_id = ?";
+
+    // A message the write-behind pipeline has not stored yet, or one deleted meanwhile,
+    // is skipped instead of failing the whole batch on the foreign key
+    private static final String INSERT_SQL =
+            "INSERT INTO message_reactions (message_id, user_id, emoji) " +
+            "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM messages WHERE id = ?) " +
+            "ON CONFLICT (message_id, user_id, emoji) DO NOTHING";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM message_reactions WHERE message_id = ? AND user_id = ? AND emoji = ?";
+
+    // Recomputed from the rows rather than incremented, so the counts cannot drift
+    private static final String REFRESH_COUNTS_SQL =
+            "UPDATE messages m SET reaction_counts = (" +
+            "SELECT jsonb_object_agg(r.emoji, r.n) FROM (" +
+            "SELECT emoji, count(*) AS n FROM message_reactions WHERE message_id = m.id GROUP BY emoji) r) " +
+            "WHERE m.id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public Optional<ReactionTarget> findTarget(Long messageId) {
+        return jdbcTemplate.query(FIND_TARGET_SQL, (rs, rowNum) -> new ReactionTarget(
+                rs.getObject("channel_id", Long.class),
+                rs.getLong("sender_id"),
+                rs.getObject("recipient_id", Long.class)), messageId).stream().findFirst();
+    }
+
+    // Rows of (user id, emoji)
+    public List<Object[]> findReactions(Long messageId) {
+        return jdbcTemplate.query(FIND_REACTIONS_SQL,
+                (rs, rowNum) -> new Object[] {rs.getLong("user_id"), rs.getString("emoji")}, messageId);
+    }
+
+    public void insertReactions(List<ReactionRow> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.messageId());
+            ps.setLong(2, row.userId());
+            ps.setString(3, row.emoji());
+            ps.setLong(4, row.messageId());
+        });
+    }
+
+    public void deleteReactions(List<ReactionRow> rows) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.messageId());
+            ps.setLong(2, row.userId());
+            ps.setString(3, row.emoji());
+        });
+    }
+
+    public void refreshCounts(Collection<Long> messageIds) {
+        List<Long> ids = new ArrayList<>(messageIds);
+        jdbcTemplate.batchUpdate(REFRESH_COUNTS_SQL, ids, ids.size(), (ps, messageId) -> ps.setLong(1, messageId));
+    }
+
+    // The conversation a message belongs to: a channel, or the two sides of a direct message
+    public record ReactionTarget(Long channelId, Long senderId, Long recipientId) {}
+
+    public record ReactionRow(Long messageId, Long userId, String emoji) {}
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.devsync.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// Persisted revocation marks in users.tokens_valid_after: tokens issued at or before it
+// are rejected. Only ever moves forward, so concurrent revocations keep the latest
+@Repository
+public class TokenRevocationRepository {
+
+    private static final String REVOKE_SQL =
+            "UPDATE users SET tokens_valid_after = ? " +
+            "WHERE id = ? AND (tokens_valid_after IS NULL OR tokens_valid_after < ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void revoke(Long userId, long cutoffMillis) {
+        Timestamp cutoff = new Timestamp(cutoffMillis);
+        jdbcTemplate.update(REVOKE_SQL, cutoff, userId, cutoff);
+    }
+
+    // Millis of the user's mark, or null when none was ever set
+    public Long findCutoff(Long userId) {
+        List<Timestamp> cutoffs = jdbcTemplate.queryForList(
+                "SELECT tokens_valid_after FROM users WHERE id = ?", Timestamp.class, userId);
+        return cutoffs.isEmpty() || cutoffs.get(0) == null ? null : cutoffs.get(0).getTime();
+    }
+}
\ No newline at end of file
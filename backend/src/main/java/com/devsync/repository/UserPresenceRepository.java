@@ -0,0 +1,39 @@
+package com.devsync.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+// Persisted copy of presence in users.is_online/last_seen. last_seen doubles as the time
+// of the presence change that was written, so a change is only applied when it is newer:
+// instances flush independently, and a stale offline from one must not override an
+// online that another instance already wrote
+@Repository
+public class UserPresenceRepository {
+
+    private static final String UPDATE_SQL =
+            "UPDATE users SET is_online = ?, last_seen = ?, " +
+            "status = CASE WHEN ? THEN 'ACTIVE' ELSE status END " +
+            "WHERE id = ? AND (last_seen IS NULL OR last_seen < ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void updatePresence(List<PresenceChange> changes, int batchSize) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, changes, batchSize, (ps, change) -> {
+            Timestamp at = Timestamp.from(change.at());
+            ps.setBoolean(1, change.online());
+            ps.setTimestamp(2, at);
+            ps.setBoolean(3, change.online());
+            ps.setLong(4, change.userId());
+            ps.setTimestamp(5, at);
+        });
+    }
+
+    // Coming online resets the status to ACTIVE
+    public record PresenceChange(Long userId, boolean online, Instant at) {}
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.devsync.repository;
 
 import com.devsync.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +17,12 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesById(Long id);
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesByUsername(String username);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
     
@@ -27,6 +35,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
                                @Param("isOnline") Boolean isOnline, 
                                @Param("lastSeen") LocalDateTime lastSeen);
     
+    // Rows of (username, id), for resolving mentions
+    @Query("SELECT u.username, u.id FROM User u WHERE u.username IN :usernames")
+    List<Object[]> findIdsByUsernames(@Param("usernames") Collection<String> usernames);
+    
     @Modifying
     @Query("UPDATE User u SET u.firebaseToken = :token WHERE u.id = :userId")
     void updateFirebaseToken(@Param("userId") Long userId, @Param("token") String token);
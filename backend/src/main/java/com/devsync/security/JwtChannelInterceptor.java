@@ -1,6 +1,7 @@
 package com.devsync.security;
 
 import com.devsync.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +13,6 @@ import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -24,7 +24,7 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsServiceImpl userDetailsService;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -37,9 +37,10 @@ public class JwtChannelInterceptor implements ChannelInterceptor {
                 String jwt = authToken.substring(7);
                 
                 try {
-                    if (jwtUtils.validateJwtToken(jwt)) {
-                        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    Claims claims = jwtUtils.parseClaims(jwt);
+                    if (claims != null) {
+                        String username = claims.getSubject();
+                        UserDetails userDetails = userDetailsService.loadUserFromToken(claims);
                         
                         UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -0,0 +1,93 @@
+package com.devsync.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+// Pushes token revocation marks to the other instances at once, rather than when they next
+// reload the mark from users.tokens_valid_after. A pub/sub message applies each new mark
+// on the running instances, and a sorted set scoring every user id by its latest cutoff
+// hands the live marks to an instance as it starts
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.broadcast", havingValue = "redis")
+public class RedisRevocationRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRevocationRelay.class);
+
+    private static final String REVOCATIONS_KEY = "{auth}:revoked";
+    private static final String REVOCATIONS_CHANNEL = "auth:revocations";
+
+    // KEYS: revocations zset. ARGV: user id, cutoff, oldest live issue, channel.
+    // Keeps the later cutoff, drops marks no live token predates, and announces the mark
+    private static final RedisScript<Long> REVOKE = new DefaultRedisScript<>(
+            "local current = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+            "if not current or tonumber(current) < tonumber(ARGV[2]) then " +
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) " +
+            "end " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3]) " +
+            "return redis.call('PUBLISH', ARGV[4], ARGV[1] .. ':' .. ARGV[2])", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    private RedisMessageListenerContainer container;
+
+    public void publish(Long userId, long cutoffMillis) {
+        long oldestLiveIssue = System.currentTimeMillis() - jwtExpirationMs;
+        redisTemplate.execute(REVOKE, List.of(REVOCATIONS_KEY),
+                userId.toString(), Long.toString(cutoffMillis), Long.toString(oldestLiveIssue), REVOCATIONS_CHANNEL);
+    }
+
+    // Subscribes before reading the stored marks, so a mark published in between is not missed
+    public synchronized void subscribe(BiConsumer<Long, Long> onRevoked) {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.indexOf(':');
+            try {
+                onRevoked.accept(Long.valueOf(body.substring(0, separator)), Long.valueOf(body.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring malformed revocation message: {}", body);
+            }
+        }, new ChannelTopic(REVOCATIONS_CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+
+        long oldestLiveIssue = System.currentTimeMillis() - jwtExpirationMs;
+        Set<ZSetOperations.TypedTuple<String>> marks = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(REVOCATIONS_KEY, oldestLiveIssue, Double.POSITIVE_INFINITY);
+        if (marks != null) {
+            marks.forEach(mark -> onRevoked.accept(Long.valueOf(mark.getValue()), mark.getScore().longValue()));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.devsync.security;
+
+import com.devsync.repository.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Short-lived cache of user details for non-stateless authentication, plus the
+// per-user revocation marks that make role changes and bans take effect before
+// already issued tokens expire. Marks are persisted in users.tokens_valid_after and
+// read back on a miss, so they outlive a restart and reach every instance within
+// jwt.revocation.reload-ms; with jwt.revocation.broadcast=redis RedisRevocationRelay
+// also pushes them to the running instances at once
+@Component
+public class UserAuthCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAuthCache.class);
+
+    // Cutoff of a user with no mark
+    private static final long NONE = Long.MIN_VALUE;
+
+    @Value("${jwt.user-cache-ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${jwt.revocation.reload-ms:60000}")
+    private long reloadMs;
+
+    @Value("${jwt.revocation.max-entries:10000}")
+    private int maxMarks;
+
+    @Autowired
+    private TokenRevocationRepository revocationRepository;
+
+    @Autowired(required = false)
+    private RedisRevocationRelay revocationRelay;
+
+    private final Map<Long, CachedUser> users = new ConcurrentHashMap<>();
+
+    // user id -> tokens issued at or before the cutoff (millis) are rejected. Users
+    // without a mark are cached too, so most requests need no query
+    private final Map<Long, RevocationMark> marks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (revocationRelay != null) {
+            revocationRelay.subscribe(this::revoke);
+        }
+    }
+
+    public UserDetailsImpl get(Long userId, Supplier<UserDetailsImpl> loader) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = users.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.details();
+        }
+        UserDetailsImpl details = loader.get();
+        users.put(userId, new CachedUser(details, now + ttlMs));
+        return details;
+    }
+
+    // Call after a password or role change, or on sign-out. Tokens carry no id of their
+    // own, so every token the user holds is revoked, not only the one in use
+    public void invalidate(Long userId) {
+        long cutoff = System.currentTimeMillis();
+        revoke(userId, cutoff);
+        revocationRepository.revoke(userId, cutoff);
+        if (revocationRelay != null) {
+            try {
+                revocationRelay.publish(userId, cutoff);
+            } catch (RuntimeException e) {
+                // Stored already; other instances pick it up when they next reload the user's mark
+                logger.warn("Could not share the token revocation of user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    // Keeps when the mark was last read, so a user not cached yet is still read from the database
+    private void revoke(Long userId, long cutoff) {
+        users.remove(userId);
+        marks.merge(userId, new RevocationMark(cutoff, 0), RevocationMark::latest);
+        trimMarks();
+        users.values().removeIf(cached -> cached.expiresAt() <= System.currentTimeMillis());
+    }
+
+    // Issue times are in millis, or the start of the second for tokens without iat_ms;
+    // a token issued in the same millisecond as the revocation is rejected too
+    public boolean isRevoked(Long userId, Long issuedAtMillis) {
+        long cutoff = cutoffOf(userId);
+        return cutoff != NONE && (issuedAtMillis == null || issuedAtMillis <= cutoff);
+    }
+
+    private long cutoffOf(Long userId) {
+        long now = System.currentTimeMillis();
+        RevocationMark mark = marks.get(userId);
+        if (mark != null && now - mark.loadedAt() < reloadMs) {
+            return mark.cutoff();
+        }
+        Long stored;
+        try {
+            stored = revocationRepository.findCutoff(userId);
+        } catch (RuntimeException e) {
+            if (mark == null) {
+                throw e;
+            }
+            logger.warn("Could not reload the revocation mark of user {}, using the cached one: {}", userId, e.getMessage());
+            return mark.cutoff();
+        }
+        RevocationMark loaded = marks.merge(userId, new RevocationMark(stored != null ? stored : NONE, now), RevocationMark::latest);
+        trimMarks();
+        return loaded.cutoff();
+    }
+
+    // Dropping a mark only costs a query, so past the limit the stale ones go first and then any
+    private void trimMarks() {
+        if (marks.size() > maxMarks) {
+            long staleBefore = System.currentTimeMillis() - reloadMs;
+            marks.values().removeIf(mark -> mark.loadedAt() < staleBefore);
+            Iterator<Long> userIds = marks.keySet().iterator();
+            while (marks.size() > maxMarks && userIds.hasNext()) {
+                userIds.next();
+                userIds.remove();
+            }
+        }
+    }
+
+    private record CachedUser(UserDetailsImpl details, long expiresAt) {}
+
+    private record RevocationMark(long cutoff, long loadedAt) {
+        RevocationMark latest(RevocationMark other) {
+            return new RevocationMark(Math.max(cutoff, other.cutoff), Math.max(loadedAt, other.loadedAt));
+        }
+    }
+}
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.devsync.security;
 
 import com.devsync.entity.User;
+import com.devsync.utils.JwtUtils;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -45,6 +47,21 @@ public class UserDetailsImpl implements UserDetails {
                 authorities);
     }
 
+    // Tokens carry everything authorization needs, so no user lookup is required
+    public static UserDetailsImpl fromClaims(Claims claims) {
+        List<?> roles = claims.get(JwtUtils.ROLES_CLAIM, List.class);
+        List<GrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(role -> new SimpleGrantedAuthority(role.toString()))
+                .collect(Collectors.toList());
+
+        return new UserDetailsImpl(
+                claims.get(JwtUtils.USER_ID_CLAIM, Long.class),
+                claims.getSubject(),
+                claims.get(JwtUtils.EMAIL_CLAIM, String.class),
+                null,
+                authorities);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -2,7 +2,11 @@ package com.devsync.security;
 
 import com.devsync.entity.User;
 import com.devsync.repository.UserRepository;
+import com.devsync.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -14,6 +18,12 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    private UserAuthCache userAuthCache;
+
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -22,4 +32,33 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return UserDetailsImpl.build(user);
     }
+
+    // Resolves the principal of an already verified token. Tokens carrying the user id
+    // and roles need no database access; older tokens fall back to the username lookup,
+    // and are checked against the revocation marks of the user id found there
+    public UserDetails loadUserFromToken(Claims claims) {
+        Long userId = claims.get(JwtUtils.USER_ID_CLAIM, Long.class);
+        if (userId == null || claims.get(JwtUtils.ROLES_CLAIM) == null) {
+            // Not through the proxy, so fetch the roles eagerly instead of relying on @Transactional
+            String username = claims.getSubject();
+            UserDetailsImpl details = userRepository.findWithRolesByUsername(username)
+                    .map(UserDetailsImpl::build)
+                    .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+            checkNotRevoked(details.getId(), claims);
+            return details;
+        }
+        checkNotRevoked(userId, claims);
+        if (stateless) {
+            return UserDetailsImpl.fromClaims(claims);
+        }
+        return userAuthCache.get(userId, () -> userRepository.findWithRolesById(userId)
+                .map(UserDetailsImpl::build)
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with id: " + userId)));
+    }
+
+    private void checkNotRevoked(Long userId, Claims claims) {
+        if (userAuthCache.isRevoked(userId, JwtUtils.issuedAtMillis(claims))) {
+            throw new CredentialsExpiredException("Token was revoked for user: " + claims.getSubject());
+        }
+    }
 }
\ No newline at end of file
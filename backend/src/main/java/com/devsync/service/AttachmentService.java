@@ -0,0 +1,365 @@
+package com.devsync.service;
+
+import com.devsync.dto.AttachmentDto;
+import com.devsync.payload.request.AttachmentUploadRequest;
+import com.devsync.repository.AttachmentRepository;
+import com.devsync.repository.AttachmentRepository.StoredAttachment;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Uploads are streamed chunk by chunk into the blob store and can resume after a dropped
+// connection. Hashing, deduplication and thumbnails run on a background pool once the
+// last chunk arrives, so the request that completes an upload returns right away
+@Service
+public class AttachmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentService.class);
+
+    private static final Set<String> THUMBNAIL_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/bmp");
+
+    // Decoded pixels are held in memory, so huge images are not thumbnailed
+    private static final long MAX_THUMBNAIL_SOURCE_PIXELS = 50_000_000L;
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${attachments.max-file-bytes:104857600}")
+    private long maxFileBytes;
+
+    @Value("${attachments.max-chunk-bytes:8388608}")
+    private long maxChunkBytes;
+
+    @Value("${attachments.processing-threads:2}")
+    private int processingThreads;
+
+    @Value("${attachments.processing-queue-capacity:1000}")
+    private int processingQueueCapacity;
+
+    @Value("${attachments.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${attachments.upload-expiry-ms:86400000}")
+    private long uploadExpiryMs;
+
+    // Processing older than this is assumed lost (restart, full queue) and started again
+    @Value("${attachments.processing-timeout-ms:600000}")
+    private long processingTimeoutMs;
+
+    private ThreadPoolExecutor processor;
+
+    @PostConstruct
+    public void start() {
+        // Rejected work keeps its PROCESSING status and is picked up again by the sweep
+        processor = new ThreadPoolExecutor(processingThreads, processingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(processingQueueCapacity),
+                new CustomizableThreadFactory("attachment-processor-"),
+                (task, pool) -> logger.warn("Attachment processing queue is full, deferring to the next sweep"));
+    }
+
+    public AttachmentDto createUpload(Long userId, AttachmentUploadRequest request) {
+        if (request.getSize() > maxFileBytes) {
+            throw new RuntimeException("File is larger than " + maxFileBytes + " bytes");
+        }
+        Long senderId = attachmentRepository.findMessageSender(request.getMessageId())
+                .orElseThrow(() -> new RuntimeException("Message not found"));
+        if (!senderId.equals(userId)) {
+            throw new RuntimeException("Only the sender can attach files to a message");
+        }
+
+        String mimeType = request.getMimeType() != null && !request.getMimeType().isBlank()
+                ? request.getMimeType() : "application/octet-stream";
+        Long id = attachmentRepository.create(request.getMessageId(), userId, fileName(request.getFileName()),
+                request.getSize(), mimeType);
+        return getUpload(userId, id);
+    }
+
+    // Appends the bytes of Content-Range start-end (inclusive) and returns the upload state.
+    // IllegalStateException when start is not where the upload currently ends
+    public AttachmentDto appendChunk(Long userId, Long id, long start, long end, long total, InputStream content) {
+        StoredAttachment attachment = findUpload(userId, id);
+        if (!"UPLOADING".equals(attachment.status())) {
+            throw new IllegalStateException("Upload is already complete");
+        }
+        if (total != attachment.size() || start < 0 || end < start || end >= total) {
+            throw new RuntimeException("Invalid Content-Range for a " + attachment.size() + " byte upload");
+        }
+        if (end - start + 1 > maxChunkBytes) {
+            throw new RuntimeException("Chunk is larger than " + maxChunkBytes + " bytes");
+        }
+
+        long received;
+        try {
+            received = blobStore.append(attachment.storageKey(), start, content, end - start + 1);
+        } catch (IOException e) {
+            // Whatever arrived before the connection dropped is kept; the client resumes from receivedBytes
+            logger.debug("Chunk of upload {} ended early: {}", id, e.getMessage());
+            attachmentRepository.touch(id);
+            return getUpload(userId, id);
+        }
+
+        if (received == attachment.size()) {
+            if (attachmentRepository.markProcessing(id)) {
+                processor.execute(() -> process(id));
+            }
+        } else {
+            attachmentRepository.touch(id);
+        }
+        return getUpload(userId, id);
+    }
+
+    public AttachmentDto getUpload(Long userId, Long id) {
+        return toDto(findUpload(userId, id));
+    }
+
+    public AttachmentDto getAttachment(Long userId, Long id) {
+        return toDto(findReadable(userId, id));
+    }
+
+    public List<AttachmentDto> getMessageAttachments(Long userId, Long messageId) {
+        List<StoredAttachment> attachments = attachmentRepository.findByMessageId(messageId);
+        if (!attachments.isEmpty() && !canRead(attachments.get(0), userId)) {
+            throw new RuntimeException("Message not found");
+        }
+        return attachments.stream().map(this::toDto).toList();
+    }
+
+    // A READY attachment the user may download
+    public StoredAttachment getContent(Long userId, Long id) {
+        StoredAttachment attachment = findReadable(userId, id);
+        if (attachment.storageKey() == null) {
+            // Attachments from before uploads were stored here only have their external file_url
+            throw new RuntimeException("Attachment is not stored here");
+        }
+        if (!"READY".equals(attachment.status())) {
+            throw new IllegalStateException("Attachment is still " + attachment.status().toLowerCase());
+        }
+        return attachment;
+    }
+
+    @Scheduled(fixedDelayString = "${attachments.sweep-interval-ms:300000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        for (StoredAttachment upload : attachmentRepository.findStale("UPLOADING", now.minusMillis(uploadExpiryMs), SWEEP_BATCH_SIZE)) {
+            if (attachmentRepository.deleteUpload(upload.id())) {
+                try {
+                    blobStore.delete(upload.storageKey());
+                } catch (IOException e) {
+                    logger.warn("Failed to delete abandoned upload {}: {}", upload.id(), e.getMessage());
+                }
+                logger.debug("Removed abandoned upload {}", upload.id());
+            }
+        }
+        for (StoredAttachment stuck : attachmentRepository.findStale("PROCESSING", now.minusMillis(processingTimeoutMs), SWEEP_BATCH_SIZE)) {
+            attachmentRepository.touch(stuck.id());
+            processor.execute(() -> process(stuck.id()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        processor.shutdown();
+        try {
+            if (!processor.awaitTermination(10, TimeUnit.SECONDS)) {
+                processor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(Long id) {
+        StoredAttachment attachment = attachmentRepository.findById(id).orElse(null);
+        if (attachment == null || !"PROCESSING".equals(attachment.status())) {
+            return;
+        }
+        try {
+            String hash = attachment.contentHash();
+            if (hash == null) {
+                hash = hash(attachment.storageKey());
+                attachmentRepository.setContentHash(id, hash);
+            }
+
+            // Equal files share one blob; the staging copy of a duplicate is dropped
+            String blobKey = "blobs/" + hash.substring(0, 2) + "/" + hash;
+            boolean duplicate = blobStore.exists(blobKey);
+            if (blobStore.exists(attachment.storageKey())) {
+                blobStore.promote(attachment.storageKey(), blobKey);
+            }
+            if (!attachmentRepository.markReady(id, blobKey)) {
+                return;
+            }
+            meterRegistry.counter("attachments.processed", "outcome", duplicate ? "deduplicated" : "stored").increment();
+
+            if (THUMBNAIL_TYPES.contains(attachment.mimeType())) {
+                createThumbnail(id, hash, blobKey);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to process attachment {}: {}", id, e.getMessage());
+        }
+    }
+
+    private String hash(String key) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(blobStore.openStream(key), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void createThumbnail(Long id, String hash, String blobKey) throws IOException {
+        String thumbnailKey = "thumbnails/" + hash.substring(0, 2) + "/" + hash + ".png";
+        if (!blobStore.exists(thumbnailKey)) {
+            BufferedImage thumbnail = scale(blobKey);
+            if (thumbnail == null) {
+                return;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(thumbnail, "png", out);
+            blobStore.write(thumbnailKey, new ByteArrayInputStream(out.toByteArray()));
+        }
+        attachmentRepository.setThumbnail(id, thumbnailKey);
+    }
+
+    // Null when the content is not a decodable image or too large to decode
+    private BufferedImage scale(String blobKey) throws IOException {
+        BufferedImage source;
+        try (ImageInputStream in = ImageIO.createImageInputStream(blobStore.openStream(blobKey))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_THUMBNAIL_SOURCE_PIXELS) {
+                    return null;
+                }
+                // Subsampling while decoding skips most pixels of large photos outright
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (thumbnailSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double factor = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    // Uploads are only visible to the uploader until they are attached for everyone
+    private StoredAttachment findUpload(Long userId, Long id) {
+        StoredAttachment attachment = attachmentRepository.findById(id).orElse(null);
+        if (attachment == null || !userId.equals(attachment.uploaderId())) {
+            throw new RuntimeException("Upload not found");
+        }
+        return attachment;
+    }
+
+    private StoredAttachment findReadable(Long userId, Long id) {
+        StoredAttachment attachment = attachmentRepository.findById(id).orElse(null);
+        if (attachment == null || !canRead(attachment, userId)) {
+            throw new RuntimeException("Attachment not found");
+        }
+        return attachment;
+    }
+
+    private boolean canRead(StoredAttachment attachment, Long userId) {
+        if (attachment.channelId() != null) {
+            return channelMembershipService.isMember(attachment.channelId(), userId);
+        }
+        return userId.equals(attachment.senderId()) || userId.equals(attachment.recipientId());
+    }
+
+    private AttachmentDto toDto(StoredAttachment attachment) {
+        AttachmentDto dto = new AttachmentDto();
+        dto.setId(attachment.id());
+        dto.setMessageId(attachment.messageId());
+        dto.setFileName(attachment.fileName());
+        dto.setMimeType(attachment.mimeType());
+        dto.setSize(attachment.size());
+        dto.setStatus(attachment.status());
+        dto.setContentHash(attachment.contentHash());
+        dto.setUrl(attachment.fileUrl());
+        if (attachment.thumbnailKey() != null) {
+            dto.setThumbnailUrl("/api/attachments/" + attachment.id() + "/thumbnail");
+        }
+        if ("UPLOADING".equals(attachment.status())) {
+            try {
+                dto.setReceivedBytes(blobStore.length(attachment.storageKey()));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read upload state", e);
+            }
+        } else {
+            dto.setReceivedBytes(attachment.size());
+        }
+        return dto;
+    }
+
+    // Only the last path segment, so names cannot smuggle directories into Content-Disposition
+    private String fileName(String name) {
+        String base = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1).strip();
+        return base.isEmpty() ? "file" : base;
+    }
+}
\ No newline at end of file
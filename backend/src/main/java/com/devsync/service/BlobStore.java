@@ -0,0 +1,36 @@
+package com.devsync.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+// Binary storage for attachments, addressed by key. Uploads are appended chunk by
+// chunk under a staging key and later promoted to their content-addressed key
+public interface BlobStore {
+
+    // Appends up to maxBytes from the stream at offset, which must equal the current
+    // length; returns the new length, also when the stream ends early
+    long append(String key, long offset, InputStream content, long maxBytes) throws IOException;
+
+    // 0 when the key does not exist
+    long length(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    ReadableByteChannel open(String key, long position) throws IOException;
+
+    InputStream openStream(String key) throws IOException;
+
+    void write(String key, InputStream content) throws IOException;
+
+    // Renames source to target; when target already exists (same content), source is dropped
+    void promote(String sourceKey, String targetKey) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // A file system path the servlet container can send without copying, or null
+    default Path localPath(String key) {
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.devsync.service;
+
+import com.devsync.repository.ChannelRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Answers "is this user in that channel" from a sorted long[] of member ids per channel,
+// so a send never initializes Channel.members (one User row per member) again
+@Service
+public class ChannelMembershipService {
+
+    // Per channel; past it the expired entries go, and if none have expired all of them
+    private static final int MAX_NON_MEMBERS = 1024;
+
+    @Autowired
+    private ChannelRepository channelRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.membership.max-channels:10000}")
+    private int maxChannels;
+
+    // Bounds how long a member removed on another instance can keep posting here
+    @Value("${chat.membership.ttl-ms:300000}")
+    private long ttlMs;
+
+    // Bounds how long a join on another instance can go unseen here
+    @Value("${chat.membership.negative-ttl-ms:5000}")
+    private long negativeTtlMs;
+
+    // Lookups take no lock; each entry carries its last use, and the least recently used
+    // are evicted in one pass once the map grows past max-channels
+    private final Map<Long, MemberSet> memberSets = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter loads;
+    private Counter nonMemberHits;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("chat.membership.lookups").tag("result", "hit").register(meterRegistry);
+        loads = Counter.builder("chat.membership.lookups").tag("result", "load").register(meterRegistry);
+        nonMemberHits = Counter.builder("chat.membership.lookups").tag("result", "non-member").register(meterRegistry);
+        Gauge.builder("chat.membership.channels", memberSets, Map::size).register(meterRegistry);
+    }
+
+    public boolean isMember(Long channelId, Long userId) {
+        if (channelId == null || userId == null) {
+            return false;
+        }
+        MemberSet members = getMembers(channelId);
+        if (members.contains(userId)) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (members.isKnownNonMember(userId, now)) {
+            nonMemberHits.increment();
+            return false;
+        }
+        // A join handled by another instance is not in our copy yet, so a negative answer
+        // is confirmed with the (indexed) single-row check and then remembered for a while
+        if (channelRepository.isMember(channelId, userId)) {
+            memberAdded(channelId, userId);
+            return true;
+        }
+        members.addNonMember(userId, now + negativeTtlMs);
+        return false;
+    }
+
+    // Sorted ascending and shared, callers must not modify it
+    public long[] getMemberIds(Long channelId) {
+        return getMembers(channelId).ids;
+    }
+
+    public void memberAdded(Long channelId, Long userId) {
+        // Atomic per channel, so concurrent joins are never lost to each other
+        memberSets.computeIfPresent(channelId, (id, members) -> members.with(userId));
+    }
+
+    public void invalidate(Long channelId) {
+        memberSets.remove(channelId);
+    }
+
+    private MemberSet getMembers(Long channelId) {
+        long now = System.currentTimeMillis();
+        MemberSet members = memberSets.get(channelId);
+        if (members != null && now - members.loadedAt < ttlMs) {
+            members.lastUsed = now;
+            hits.increment();
+            return members;
+        }
+
+        // Two threads racing on a cold channel both load it, which is harmless
+        loads.increment();
+        List<Long> ids = channelRepository.findMemberIds(channelId);
+        long[] sorted = new long[ids.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = ids.get(i);
+        }
+        Arrays.sort(sorted);
+        MemberSet loaded = new MemberSet(sorted, now, new ConcurrentHashMap<>());
+        memberSets.put(channelId, loaded);
+        if (memberSets.size() > maxChannels) {
+            evict();
+        }
+        return loaded;
+    }
+
+    // Drops the least recently used tenth beyond the limit, so the sort is paid once per
+    // many loads rather than on every one. Only evictions serialize, never lookups
+    private synchronized void evict() {
+        int excess = memberSets.size() - maxChannels;
+        if (excess <= 0) {
+            return;
+        }
+        memberSets.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .limit(excess + maxChannels / 10)
+                .toList()
+                .forEach(entry -> memberSets.remove(entry.getKey(), entry.getValue()));
+    }
+
+    // The ids never change: joins swap in a copy, readers never see a half-updated array.
+    // Confirmed non-members (user id -> expiry) belong to the copy and go with it on a reload
+    private static final class MemberSet {
+        final long[] ids;
+        final long loadedAt;
+        final Map<Long, Long> nonMembers;
+        volatile long lastUsed;
+
+        MemberSet(long[] ids, long loadedAt, Map<Long, Long> nonMembers) {
+            this.ids = ids;
+            this.loadedAt = loadedAt;
+            this.nonMembers = nonMembers;
+            this.lastUsed = loadedAt;
+        }
+
+        boolean contains(long userId) {
+            return Arrays.binarySearch(ids, userId) >= 0;
+        }
+
+        boolean isKnownNonMember(long userId, long now) {
+            Long expiresAt = nonMembers.get(userId);
+            return expiresAt != null && expiresAt > now;
+        }
+
+        void addNonMember(long userId, long expiresAt) {
+            if (nonMembers.size() >= MAX_NON_MEMBERS) {
+                long now = System.currentTimeMillis();
+                nonMembers.values().removeIf(expiry -> expiry <= now);
+                if (nonMembers.size() >= MAX_NON_MEMBERS) {
+                    nonMembers.clear();
+                }
+            }
+            nonMembers.put(userId, expiresAt);
+        }
+
+        MemberSet with(long userId) {
+            int index = Arrays.binarySearch(ids, userId);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] grown = new long[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, insertAt);
+            grown[insertAt] = userId;
+            System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+            Map<Long, Long> stillOut = new ConcurrentHashMap<>(nonMembers);
+            stillOut.remove(userId);
+            MemberSet copy = new MemberSet(grown, loadedAt, stillOut);
+            copy.lastUsed = lastUsed;
+            return copy;
+        }
+    }
+}
\ No newline at end of file
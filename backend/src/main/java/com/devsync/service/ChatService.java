@@ -1,19 +1,29 @@
 package com.devsync.service;
 
 import com.devsync.dto.ChatMessageDto;
+import com.devsync.dto.MessageSearchResultDto;
 import com.devsync.entity.*;
 import com.devsync.repository.ChannelRepository;
+import com.devsync.repository.ConversationSummaryRepository;
+import com.devsync.repository.MessageJdbcRepository;
 import com.devsync.repository.MessageRepository;
 import com.devsync.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -22,9 +32,15 @@ public class ChatService {
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private MessageJdbcRepository messageJdbcRepository;
+
     @Autowired
     private ChannelRepository channelRepository;
 
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -34,7 +50,92 @@ public class ChatService {
     @Autowired
     private PresenceService presenceService;
 
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private MessageSequenceService messageSequenceService;
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private MentionService mentionService;
+
+    // Deepest match a search page may reach; past it the OFFSET scan costs more than
+    // anyone reading that far gets out of it
+    @Value("${chat.search.max-results:1000}")
+    private int maxSearchResults;
+
     public Message saveMessage(ChatMessageDto chatMessageDto, User sender) {
+        return storeMessage(prepareMessage(chatMessageDto, sender));
+    }
+
+    // Synchronous write path for an already validated message: sequence number,
+    // insert, inbox summaries and (after commit) the recent-message cache
+    public Message storeMessage(Message message) {
+        if (message.getCreatedAt() == null) {
+            message.setCreatedAt(LocalDateTime.now());
+        }
+        messageSequenceService.assign(message);
+        Message saved = messageRepository.save(message);
+        conversationSummaryRepository.recordMessages(List.of(saved));
+        mentionService.recordMentions(List.of(saved));
+        cacheAfterCommit(saved);
+        return saved;
+    }
+
+    public List<Message> saveMessages(List<ChatMessageDto> chatMessageDtos, User sender) {
+        // Channels and recipients are loaded once per batch, not once per message
+        Set<Long> channelIds = new HashSet<>();
+        Set<Long> recipientIds = new HashSet<>();
+        for (ChatMessageDto chatMessageDto : chatMessageDtos) {
+            Long id = "DIRECT".equals(chatMessageDto.getType()) ? chatMessageDto.getRecipientId() : chatMessageDto.getChannelId();
+            if (id != null) {
+                ("DIRECT".equals(chatMessageDto.getType()) ? recipientIds : channelIds).add(id);
+            }
+        }
+        Map<Long, Channel> channels = new HashMap<>();
+        channelRepository.findAllById(channelIds).forEach(channel -> channels.put(channel.getId(), channel));
+        Map<Long, User> recipients = new HashMap<>();
+        userRepository.findAllById(recipientIds).forEach(recipient -> recipients.put(recipient.getId(), recipient));
+
+        List<Message> messages = new ArrayList<>(chatMessageDtos.size());
+        for (ChatMessageDto chatMessageDto : chatMessageDtos) {
+            Message message = buildMessage(chatMessageDto, sender,
+                    channels.get(chatMessageDto.getChannelId()), recipients.get(chatMessageDto.getRecipientId()));
+            messageSequenceService.assign(message);
+            messages.add(message);
+        }
+        // Sequence-generated ids let Hibernate send these as ordered JDBC batches
+        List<Message> saved = messageRepository.saveAll(messages);
+        conversationSummaryRepository.recordMessages(saved);
+        mentionService.recordMentions(saved);
+        saved.forEach(this::cacheAfterCommit);
+        return saved;
+    }
+
+    private void cacheAfterCommit(Message message) {
+        if (message.getChannel() != null) {
+            recentMessageCache.appendAfterCommit(ChatMessageDto.fromEntity(message));
+        }
+    }
+
+    // Validates the payload and builds the unsaved entity, shared by the
+    // synchronous path and the write-behind pipeline
+    public Message prepareMessage(ChatMessageDto chatMessageDto, User sender) {
+        if ("DIRECT".equals(chatMessageDto.getType())) {
+            User recipient = chatMessageDto.getRecipientId() != null
+                    ? userRepository.findById(chatMessageDto.getRecipientId()).orElse(null) : null;
+            return buildMessage(chatMessageDto, sender, null, recipient);
+        }
+        Channel channel = chatMessageDto.getChannelId() != null
+                ? channelRepository.findById(chatMessageDto.getChannelId()).orElse(null) : null;
+        return buildMessage(chatMessageDto, sender, channel, null);
+    }
+
+    // channel and recipient are the already loaded targets of the DTO, null when they do not exist
+    private Message buildMessage(ChatMessageDto chatMessageDto, User sender, Channel channel, User recipient) {
         Message message = new Message();
         message.setContent(chatMessageDto.getContent());
         message.setSender(sender);
@@ -43,46 +144,102 @@ public class ChatService {
 
         if ("DIRECT".equals(chatMessageDto.getType())) {
             // Direct message
-            Optional<User> recipient = userRepository.findById(chatMessageDto.getRecipientId());
-            if (recipient.isPresent()) {
-                message.setRecipient(recipient.get());
-            } else {
+            if (recipient == null) {
                 throw new RuntimeException("Recipient not found");
             }
+            message.setRecipient(recipient);
         } else {
             // Channel message
-            Optional<Channel> channel = channelRepository.findById(chatMessageDto.getChannelId());
-            if (channel.isPresent()) {
-                message.setChannel(channel.get());
-                
-                // Check if sender is member of channel
-                if (!channel.get().getMembers().contains(sender)) {
-                    throw new RuntimeException("User is not a member of this channel");
-                }
-            } else {
+            if (channel == null) {
                 throw new RuntimeException("Channel not found");
             }
+            message.setChannel(channel);
+
+            // Check if sender is member of channel
+            if (!channelMembershipService.isMember(channel.getId(), sender.getId())) {
+                throw new RuntimeException("User is not a member of this channel");
+            }
         }
 
-        return messageRepository.save(message);
+        return message;
     }
 
-    public Page<Message> getChannelMessages(Long channelId, Pageable pageable) {
-        Optional<Channel> channel = channelRepository.findById(channelId);
-        if (channel.isPresent()) {
-            return messageRepository.findByChannelOrderByCreatedAtDesc(channel.get(), pageable);
+    // History is paged with a keyset cursor: "before" returns older messages newest first,
+    // "after" returns newer messages oldest first, neither returns the latest page
+    public Slice<Message> getChannelMessages(Long channelId, Long beforeId, Long afterId, int size) {
+        if (!channelRepository.existsById(channelId)) {
+            throw new RuntimeException("Channel not found");
         }
-        throw new RuntimeException("Channel not found");
+        
+        Pageable pageable = PageRequest.of(0, size);
+        if (beforeId != null) {
+            return messageRepository.findChannelMessagesBefore(channelId, getCursorTimestamp(beforeId), beforeId, pageable);
+        }
+        if (afterId != null) {
+            return messageRepository.findChannelMessagesAfter(channelId, getCursorTimestamp(afterId), afterId, pageable);
+        }
+        return messageRepository.findLatestChannelMessages(channelId, pageable);
     }
 
-    public Page<Message> getDirectMessages(Long userId1, Long userId2, Pageable pageable) {
-        Optional<User> user1 = userRepository.findById(userId1);
-        Optional<User> user2 = userRepository.findById(userId2);
+    // Cache miss path for the latest channel page: loads a full cache window and seeds
+    // the recent-message cache with it, so following reads skip the database
+    public Slice<ChatMessageDto> loadLatestChannelMessages(Long channelId, int size) {
+        if (!recentMessageCache.isEnabled() || size > recentMessageCache.getCapacity()) {
+            return getChannelMessages(channelId, null, null, size).map(ChatMessageDto::fromEntity);
+        }
+        if (!channelRepository.existsById(channelId)) {
+            throw new RuntimeException("Channel not found");
+        }
+
+        recentMessageCache.beginLoad(channelId);
+        Slice<Message> latest = messageRepository.findLatestChannelMessages(channelId, PageRequest.of(0, recentMessageCache.getCapacity()));
+        List<ChatMessageDto> messages = latest.map(ChatMessageDto::fromEntity).getContent();
+        recentMessageCache.completeLoad(channelId, messages, !latest.hasNext());
+
+        List<ChatMessageDto> page = messages.subList(0, Math.min(size, messages.size()));
+        return new SliceImpl<>(page, PageRequest.of(0, size), messages.size() > size || latest.hasNext());
+    }
+
+    public Slice<Message> getDirectMessages(Long userId1, Long userId2, Long beforeId, Long afterId, int size) {
+        if (!userRepository.existsById(userId1) || !userRepository.existsById(userId2)) {
+            throw new RuntimeException("One or both users not found");
+        }
         
-        if (user1.isPresent() && user2.isPresent()) {
-            return messageRepository.findDirectMessages(user1.get(), user2.get(), pageable);
+        // Conversations are keyed on the ordered user pair, matching idx_messages_direct_keyset
+        Long lowId = Math.min(userId1, userId2);
+        Long highId = Math.max(userId1, userId2);
+        Pageable pageable = PageRequest.of(0, size);
+        if (beforeId != null) {
+            return messageRepository.findDirectMessagesBefore(lowId, highId, getCursorTimestamp(beforeId), beforeId, pageable);
+        }
+        if (afterId != null) {
+            return messageRepository.findDirectMessagesAfter(lowId, highId, getCursorTimestamp(afterId), afterId, pageable);
         }
-        throw new RuntimeException("One or both users not found");
+        return messageRepository.findLatestDirectMessages(lowId, highId, pageable);
+    }
+
+    private LocalDateTime getCursorTimestamp(Long messageId) {
+        return messageRepository.findCreatedAtById(messageId)
+                .orElseThrow(() -> new RuntimeException("Cursor message not found"));
+    }
+
+    // Ranked full-text search over everything the user can read; relevance ordering
+    // rules out a keyset cursor, so pages are offset based, sized by the controller and
+    // end at chat.search.max-results
+    public Slice<MessageSearchResultDto> searchMessages(Long userId, String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query must not be empty");
+        }
+        long offset = (long) page * size;
+        if (offset >= maxSearchResults) {
+            throw new RuntimeException("Search only returns the first " + maxSearchResults + " matches, please refine the query");
+        }
+        int limit = (int) Math.min(size, maxSearchResults - offset);
+
+        // One extra row tells whether another page exists without a COUNT(*)
+        List<MessageSearchResultDto> results = messageJdbcRepository.search(userId, query.trim(), limit + 1, offset);
+        boolean hasNext = results.size() > limit && offset + limit < maxSearchResults;
+        return new SliceImpl<>(results.size() > limit ? results.subList(0, limit) : results, PageRequest.of(page, size), hasNext);
     }
 
     public void sendPushNotificationIfOffline(Message message) {
@@ -99,19 +256,33 @@ public class ChatService {
         }
     }
 
+    // Members mentioned by @username get their own push, around coalescing and rate
+    // limiting. @channel reaches every member, so it stays on the regular coalesced
+    // channel push with everyone else; otherwise one sender could push the whole channel
+    // past its limits
     public void sendChannelPushNotifications(Message message) {
         if (message.getChannel() != null) {
             List<User> offlineMembers = presenceService.getOfflineChannelMembers(message.getChannel().getId());
+            MentionService.ResolvedMentions mentions = mentionService.resolve(message);
+            List<User> mentioned = new ArrayList<>();
+            List<User> others = new ArrayList<>(offlineMembers.size());
             for (User member : offlineMembers) {
-                if (!member.getId().equals(message.getSender().getId())) {
-                    notificationService.sendChannelNotification(
-                        message.getChannel(),
-                        message.getSender(),
-                        message.getContent(),
-                        member
-                    );
+                if (mentions.userIds().contains(member.getId()) && !member.getId().equals(message.getSender().getId())) {
+                    mentioned.add(member);
+                } else {
+                    others.add(member);
                 }
             }
+
+            if (!mentioned.isEmpty()) {
+                notificationService.sendMentionNotification(mentioned, message.getSender(), message.getChannel(), message.getContent());
+            }
+            notificationService.sendChannelNotification(
+                message.getChannel(),
+                message.getSender(),
+                message.getContent(),
+                others
+            );
         }
     }
 
@@ -0,0 +1,39 @@
+package com.devsync.service;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "push.gateway", havingValue = "firebase", matchIfMissing = true)
+public class FirebasePushGateway implements PushGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebasePushGateway.class);
+
+    @Override
+    public int sendMulticast(PushNotification notification, List<String> tokens) throws FirebaseMessagingException {
+        MulticastMessage message = MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(notification.getTitle())
+                        .setBody(notification.getBody())
+                        .setImage(notification.getImageUrl())
+                        .build())
+                .putAllData(notification.getData())
+                .build();
+
+        BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(message);
+        if (response.getFailureCount() > 0) {
+            logger.debug("FCM rejected {} of {} tokens", response.getFailureCount(), tokens.size());
+        }
+        return response.getSuccessCount();
+    }
+}
\ No newline at end of file
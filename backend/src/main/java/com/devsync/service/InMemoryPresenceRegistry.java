@@ -0,0 +1,117 @@
+package com.devsync.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-instance registry; session maps are only touched inside
+// ConcurrentHashMap.compute, which serializes access per user
+@Component
+@ConditionalOnProperty(name = "presence.registry", havingValue = "memory", matchIfMissing = true)
+public class InMemoryPresenceRegistry implements PresenceRegistry {
+
+    // user id -> (session id -> last heartbeat millis)
+    private final Map<Long, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+
+    private final Map<Long, AtomicLong> channelVersions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean addSession(Long userId, String sessionId) {
+        return touch(userId, sessionId, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean removeSession(Long userId, String sessionId) {
+        boolean[] wentOffline = new boolean[1];
+        sessions.computeIfPresent(userId, (id, userSessions) -> {
+            userSessions.remove(sessionId);
+            wentOffline[0] = userSessions.isEmpty();
+            return wentOffline[0] ? null : userSessions;
+        });
+        return wentOffline[0];
+    }
+
+    @Override
+    public Set<Long> refreshSessions(Map<String, Long> localSessions) {
+        long now = System.currentTimeMillis();
+        Set<Long> cameOnline = new HashSet<>();
+        localSessions.forEach((sessionId, userId) -> {
+            if (touch(userId, sessionId, now)) {
+                cameOnline.add(userId);
+            }
+        });
+        return cameOnline;
+    }
+
+    @Override
+    public Set<Long> expireSessions(long cutoffMillis) {
+        Set<Long> wentOffline = new HashSet<>();
+        for (Long userId : sessions.keySet()) {
+            sessions.computeIfPresent(userId, (id, userSessions) -> {
+                userSessions.values().removeIf(lastSeen -> lastSeen < cutoffMillis);
+                if (userSessions.isEmpty()) {
+                    wentOffline.add(id);
+                    return null;
+                }
+                return userSessions;
+            });
+        }
+        return wentOffline;
+    }
+
+    @Override
+    public boolean isOnline(Long userId) {
+        return sessions.containsKey(userId);
+    }
+
+    @Override
+    public Set<Long> getOnlineUserIds() {
+        return new HashSet<>(sessions.keySet());
+    }
+
+    @Override
+    public Set<Long> getOnlineUserIds(Collection<Long> userIds) {
+        Set<Long> online = new HashSet<>();
+        for (Long userId : userIds) {
+            if (sessions.containsKey(userId)) {
+                online.add(userId);
+            }
+        }
+        return online;
+    }
+
+    @Override
+    public Map<Long, Long> nextChannelVersions(Collection<Long> channelIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (Long channelId : channelIds) {
+            versions.put(channelId, channelVersions.computeIfAbsent(channelId, id -> new AtomicLong()).incrementAndGet());
+        }
+        return versions;
+    }
+
+    @Override
+    public long getChannelVersion(Long channelId) {
+        AtomicLong version = channelVersions.get(channelId);
+        return version != null ? version.get() : 0;
+    }
+
+    private boolean touch(Long userId, String sessionId, long now) {
+        boolean[] cameOnline = new boolean[1];
+        sessions.compute(userId, (id, userSessions) -> {
+            if (userSessions == null) {
+                userSessions = new HashMap<>();
+                cameOnline[0] = true;
+            }
+            userSessions.put(sessionId, now);
+            return userSessions;
+        });
+        return cameOnline[0];
+    }
+}
\ No newline at end of file
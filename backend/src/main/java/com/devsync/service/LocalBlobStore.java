@@ -0,0 +1,159 @@
+package com.devsync.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Blobs as files under attachments.local.root; keys map to relative paths.
+// Works across instances as long as they share the directory (NFS or similar)
+@Component
+@ConditionalOnProperty(name = "attachments.store", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBlobStore.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${attachments.local.root:./data/attachments}")
+    private String rootDirectory;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        logger.info("Storing attachments under {}", root);
+    }
+
+    @Override
+    public long append(String key, long offset, InputStream content, long maxBytes) throws IOException {
+        Path path = resolve(key);
+        Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Guards against two requests (possibly on different instances) appending the same upload
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new IllegalStateException("Upload is already receiving a chunk");
+            }
+            try {
+                if (channel.size() != offset) {
+                    throw new IllegalStateException("Expected offset " + channel.size() + " but got " + offset);
+                }
+                // One reusable direct buffer; the chunk is never held in the heap as a whole
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                ReadableByteChannel source = Channels.newChannel(content);
+                long position = offset;
+                long remaining = maxBytes;
+                while (remaining > 0) {
+                    buffer.clear();
+                    if (remaining < buffer.capacity()) {
+                        buffer.limit((int) remaining);
+                    }
+                    int read = source.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    remaining -= read;
+                }
+                channel.force(false);
+                return position;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    @Override
+    public long length(String key) throws IOException {
+        Path path = resolve(key);
+        return Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public ReadableByteChannel open(String key, long position) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(position);
+        return channel;
+    }
+
+    @Override
+    public InputStream openStream(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void write(String key, InputStream content) throws IOException {
+        Path path = resolve(key);
+        Files.createDirectories(path.getParent());
+        // Written next to the target and renamed, so readers never see a partial file
+        Path temp = Files.createTempFile(path.getParent(), ".write-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void promote(String sourceKey, String targetKey) throws IOException {
+        Path source = resolve(sourceKey);
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(source);
+            return;
+        }
+        try {
+            // Plain rename; open downloads of the staging file keep reading it
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return path;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.devsync.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Local stand-in for FCM: accepts every token and only logs the push
+@Component
+@ConditionalOnProperty(name = "push.gateway", havingValue = "log")
+public class LoggingPushGateway implements PushGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingPushGateway.class);
+
+    @Override
+    public int sendMulticast(PushNotification notification, List<String> tokens) {
+        logger.info("Push '{}' to {} devices: {}", notification.getTitle(), tokens.size(), notification.getData());
+        return tokens.size();
+    }
+}
\ No newline at end of file
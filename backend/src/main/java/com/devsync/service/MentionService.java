@@ -0,0 +1,89 @@
+package com.devsync.service;
+
+import com.devsync.entity.Message;
+import com.devsync.repository.MentionRepository;
+import com.devsync.utils.MentionParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Resolves the mentions of channel messages to member ids and keeps the mentions inbox.
+// Only channel members can be mentioned, and never the sender
+@Service
+public class MentionService {
+
+    @Autowired
+    private MentionRepository mentionRepository;
+
+    @Autowired
+    private UsernameIndex usernameIndex;
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    public ResolvedMentions resolve(Message message) {
+        if (message.getChannel() == null) {
+            return ResolvedMentions.NONE;
+        }
+        MentionParser.Mentions mentions = MentionParser.parse(message.getContent());
+        if (mentions.isEmpty()) {
+            return ResolvedMentions.NONE;
+        }
+
+        Long channelId = message.getChannel().getId();
+        Long senderId = message.getSender().getId();
+        Set<Long> userIds = Collections.emptySet();
+        if (!mentions.usernames().isEmpty()) {
+            userIds = new HashSet<>();
+            for (Long userId : usernameIndex.resolve(mentions.usernames()).values()) {
+                if (!userId.equals(senderId) && channelMembershipService.isMember(channelId, userId)) {
+                    userIds.add(userId);
+                }
+            }
+        }
+        return new ResolvedMentions(userIds, mentions.channel(), mentions.here());
+    }
+
+    // Runs with the message insert (or right after it, for the write-behind pipeline)
+    public void recordMentions(List<Message> messages) {
+        for (Message message : messages) {
+            ResolvedMentions mentions = resolve(message);
+            if (mentions.isEmpty()) {
+                continue;
+            }
+            mentionRepository.insertMentions(message, mentions.userIds(), "USER");
+            if (mentions.channel()) {
+                mentionRepository.insertChannelMentions(message);
+            } else if (mentions.here()) {
+                mentionRepository.insertMentions(message, onlineMembers(message), "HERE");
+            }
+        }
+    }
+
+    // @here addresses the members online when the message is sent
+    private List<Long> onlineMembers(Message message) {
+        long senderId = message.getSender().getId();
+        List<Long> memberIds = Arrays.stream(channelMembershipService.getMemberIds(message.getChannel().getId()))
+                .filter(memberId -> memberId != senderId)
+                .boxed()
+                .toList();
+        Set<Long> onlineUserIds = presenceRegistry.getOnlineUserIds(memberIds);
+        return memberIds.stream().filter(onlineUserIds::contains).toList();
+    }
+
+    public record ResolvedMentions(Set<Long> userIds, boolean channel, boolean here) {
+        static final ResolvedMentions NONE = new ResolvedMentions(Collections.emptySet(), false, false);
+
+        public boolean isEmpty() {
+            return userIds.isEmpty() && !channel && !here;
+        }
+    }
+}
\ No newline at end of file
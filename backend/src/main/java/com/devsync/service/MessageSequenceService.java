@@ -0,0 +1,166 @@
+package com.devsync.service;
+
+import com.devsync.entity.Message;
+import com.devsync.repository.MessageJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Hands out per-conversation sequence numbers from striped in-memory counters. Blocks
+// of block-size numbers are reserved from conversation_sequences by a small reserver
+// pool, outside the caller's transaction and outside the stripe lock, and the next block
+// is requested once half of the current one is used, the way write-behind prefetches id
+// blocks. Numbers stay unique, but a restart or an evicted counter leaves gaps and
+// instances writing one conversation interleave their blocks. With
+// chat.sequence.transactional each message instead reserves its number inside the
+// caller's transaction: the row stays locked until commit, so numbers are gapless and
+// committed in order on any number of instances, at a round trip and a row lock per message
+@Service
+public class MessageSequenceService {
+
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private MessageJdbcRepository messageJdbcRepository;
+
+    @Value("${chat.sequence.block-size:100}")
+    private int blockSize;
+
+    @Value("${chat.sequence.transactional:false}")
+    private boolean transactional;
+
+    @Value("${chat.sequence.max-conversations:100000}")
+    private int maxConversations;
+
+    @Value("${chat.sequence.reserver-threads:2}")
+    private int reserverThreads;
+
+    // Each stripe's lock also guards its counters, an access-ordered map that drops the
+    // least recently used conversation when full
+    private final Map<String, SequenceCounter>[] stripes = newStripes();
+    private ExecutorService blockReserver;
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, SequenceCounter>[] newStripes() {
+        return new Map[STRIPES];
+    }
+
+    @PostConstruct
+    public void init() {
+        int stripeCapacity = Math.max(1, maxConversations / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SequenceCounter> eldest) {
+                    return size() > stripeCapacity;
+                }
+            };
+        }
+        blockReserver = Executors.newFixedThreadPool(Math.max(1, reserverThreads),
+                new CustomizableThreadFactory("sequence-block-reserver-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        blockReserver.shutdown();
+    }
+
+    public void assign(Message message) {
+        assign(message, () -> {});
+    }
+
+    // Runs inOrder right after the number is assigned, under the conversation's stripe,
+    // so whatever it does happens in seq order within the conversation. No database work
+    // happens under the stripe; a sender that finds its block used up waits for the
+    // reservation without holding the lock
+    public void assign(Message message, Runnable inOrder) {
+        String conversationKey = conversationKey(message);
+        if (transactional) {
+            message.setSeq(messageJdbcRepository.reserveSequenceBlock(conversationKey, 1));
+            inOrder.run();
+            return;
+        }
+
+        Map<String, SequenceCounter> counters = stripes[Math.floorMod(conversationKey.hashCode(), STRIPES)];
+        while (true) {
+            CompletableFuture<Long> pending;
+            synchronized (counters) {
+                SequenceCounter counter = counters.computeIfAbsent(conversationKey, key -> new SequenceCounter());
+                if (counter.hasNext()) {
+                    message.setSeq(counter.next());
+                    if (counter.shouldPrefetch()) {
+                        counter.pending = reserve(conversationKey);
+                    }
+                    inOrder.run();
+                    return;
+                }
+                if (counter.pending == null) {
+                    counter.pending = reserve(conversationKey);
+                }
+                pending = counter.pending;
+            }
+            try {
+                pending.join();
+            } catch (CompletionException e) {
+                synchronized (counters) {
+                    SequenceCounter counter = counters.get(conversationKey);
+                    if (counter != null && counter.pending == pending) {
+                        counter.pending = null;
+                    }
+                }
+                throw new RuntimeException("Could not reserve sequence numbers for " + conversationKey, e.getCause());
+            }
+        }
+    }
+
+    private CompletableFuture<Long> reserve(String conversationKey) {
+        int size = Math.max(1, blockSize);
+        return CompletableFuture.supplyAsync(() -> messageJdbcRepository.reserveSequenceBlock(conversationKey, size), blockReserver);
+    }
+
+    // Matches the keys the migration seeded: 'c:<channel id>' or 'd:<low user id>:<high user id>'
+    private String conversationKey(Message message) {
+        if (message.getChannel() != null) {
+            return "c:" + message.getChannel().getId();
+        }
+        long senderId = message.getSender().getId();
+        long recipientId = message.getRecipient().getId();
+        return "d:" + Math.min(senderId, recipientId) + ":" + Math.max(senderId, recipientId);
+    }
+
+    // Only touched under its stripe's lock. pending is the next block's reservation,
+    // which completes with the last number of that block
+    private class SequenceCounter {
+        private long next;
+        private long last = -1;
+        private CompletableFuture<Long> pending;
+
+        boolean hasNext() {
+            if (next > last && pending != null && pending.isDone() && !pending.isCompletedExceptionally()) {
+                long reservedLast = pending.join();
+                next = reservedLast - Math.max(1, blockSize) + 1;
+                last = reservedLast;
+                pending = null;
+            }
+            return next <= last;
+        }
+
+        long next() {
+            return next++;
+        }
+
+        boolean shouldPrefetch() {
+            return pending == null && last - next + 1 <= Math.max(1, blockSize) / 2;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,383 @@
+package com.devsync.service;
+
+import com.devsync.dto.ChatMessageDto;
+import com.devsync.entity.Message;
+import com.devsync.repository.ConversationSummaryRepository;
+import com.devsync.repository.MessageJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Opt-in write-behind pipeline: messages get their id and timestamp in memory so
+// they can be broadcast immediately, and a single writer thread persists them in batches.
+// A queued message has been acknowledged to its sender, so it is never dropped: failed
+// batches are retried with backoff, and rows the database rejects for good are moved
+// to message_dead_letters
+@Service
+public class MessageWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindService.class);
+
+    @Autowired
+    private MessageJdbcRepository messageJdbcRepository;
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private MessageSequenceService messageSequenceService;
+
+    @Autowired
+    private MentionService mentionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.write-behind.max-delay-ms:50}")
+    private long maxDelayMs;
+
+    @Value("${chat.write-behind.offer-timeout-ms:200}")
+    private long offerTimeoutMs;
+
+    @Value("${chat.write-behind.retry-initial-ms:100}")
+    private long retryInitialMs;
+
+    @Value("${chat.write-behind.retry-max-ms:5000}")
+    private long retryMaxMs;
+
+    // How long shutdown keeps retrying a failing batch before giving up on it
+    @Value("${chat.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    // Sequence numbers are handed out and messages queued under the conversation's stripe
+    // in MessageSequenceService, so queue order, seq order and created_at order agree
+    // within a conversation. Senders take the read lock only around the queueing itself,
+    // after any wait for a sequence block; shutdown takes the write lock, so nothing is
+    // queued after the final drain
+    private final ReadWriteLock pipelineLock = new ReentrantReadWriteLock();
+
+    // Ids come from the current block; the next block is reserved in the background
+    // once half of the current one is used, so senders do not wait on the database
+    private final Object idLock = new Object();
+    private long nextId;
+    private long idBlockEnd;
+    private CompletableFuture<Long> nextIdBlock;
+    private ExecutorService idBlockReserver;
+
+    // Queue capacity; a permit is held from enqueue until the message is stored
+    private Semaphore capacity;
+    private BlockingQueue<Message> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile long shutdownDeadline = Long.MAX_VALUE;
+    // The batch the writer was holding when it exited, flushed once more by shutdown
+    private volatile List<Message> unfinished = List.of();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        capacity = new Semaphore(queueCapacity);
+        queue = new LinkedBlockingQueue<>();
+        idBlockReserver = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("message-id-reserver-"));
+        running = true;
+        writer = new Thread(this::runWriter, "message-writer");
+        writer.start();
+        logger.info("Message write-behind pipeline started (queue={}, batch={})", queueCapacity, batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Message enqueue(Message message) {
+        if (!running) {
+            throw new RuntimeException("Message pipeline is shutting down");
+        }
+        // Checked before the message is acknowledged, the writer could not store it otherwise
+        if (message.getSender() == null || message.getSender().getId() == null || message.getType() == null) {
+            throw new RuntimeException("Message has no sender or type");
+        }
+        // Backpressure: wait for room for a bounded time, then reject. No lock is held
+        // while waiting, so a full queue does not stall unrelated work behind it
+        try {
+            if (!capacity.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Message queue is full, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing message");
+        }
+
+        try {
+            message.setId(nextId());
+            messageSequenceService.assign(message, () -> {
+                pipelineLock.readLock().lock();
+                try {
+                    if (!running) {
+                        throw new RuntimeException("Message pipeline is shutting down");
+                    }
+                    message.setCreatedAt(LocalDateTime.now());
+                    queue.add(message);
+                } finally {
+                    pipelineLock.readLock().unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        return message;
+    }
+
+    private Long nextId() {
+        synchronized (idLock) {
+            if (nextId >= idBlockEnd) {
+                long first;
+                try {
+                    // Only waits when the background reservation has not finished yet (or on the first message)
+                    first = nextIdBlock != null ? nextIdBlock.join() : messageJdbcRepository.reserveIdBlock();
+                } finally {
+                    nextIdBlock = null;
+                }
+                nextId = first;
+                idBlockEnd = first + Message.ID_ALLOCATION_SIZE;
+            }
+            if (nextIdBlock == null && idBlockEnd - nextId <= Message.ID_ALLOCATION_SIZE / 2) {
+                nextIdBlock = CompletableFuture.supplyAsync(messageJdbcRepository::reserveIdBlock, idBlockReserver);
+            }
+            return nextId++;
+        }
+    }
+
+    // A batch is only let go once flush has stored or dead-lettered it; anything else
+    // keeps it and tries it again, inserts are idempotent on the message id
+    private void runWriter() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        int attempt = 0;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    Message first = queue.poll(maxDelayMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                flush(batch);
+                capacity.release(batch.size());
+                batch.clear();
+                attempt = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Message writer failed on {} messages: {}", batch.size(), e.getMessage(), e);
+                if (!awaitRetry(++attempt, batch.size(), e)) {
+                    break;
+                }
+            }
+        }
+        unfinished = new ArrayList<>(batch);
+    }
+
+    private void flush(List<Message> batch) {
+        List<Message> persisted = persist(batch);
+        if (persisted.isEmpty()) {
+            return;
+        }
+
+        // The messages are stored at this point, a stale inbox preview is not worth failing them for
+        try {
+            conversationSummaryRepository.recordMessages(persisted);
+        } catch (RuntimeException e) {
+            logger.error("Failed to update conversation summaries for {} messages: {}", persisted.size(), e.getMessage(), e);
+        }
+        try {
+            mentionService.recordMentions(persisted);
+        } catch (RuntimeException e) {
+            logger.error("Failed to record mentions for {} messages: {}", persisted.size(), e.getMessage(), e);
+        }
+        persisted.forEach(this::cachePersisted);
+    }
+
+    // Returns the messages stored. Only returns early (with the rest unstored) when
+    // shutdown runs out of time while the database is unreachable
+    private List<Message> persist(List<Message> batch) {
+        List<Message> persisted = new ArrayList<>(batch.size());
+        boolean rowByRow = false;
+        int next = 0;
+        int attempt = 0;
+        while (true) {
+            try {
+                if (!rowByRow) {
+                    messageJdbcRepository.insertBatch(batch);
+                    logger.debug("Persisted {} messages", batch.size());
+                    return batch;
+                }
+                // Row by row, so a message the database rejects does not hold back the others
+                for (; next < batch.size(); next++) {
+                    Message message = batch.get(next);
+                    try {
+                        messageJdbcRepository.insertBatch(List.of(message));
+                        persisted.add(message);
+                    } catch (DataIntegrityViolationException rowError) {
+                        deadLetter(message, rowError.getMostSpecificCause().getMessage());
+                    } catch (DataAccessException rowError) {
+                        throw rowError;
+                    } catch (RuntimeException rowError) {
+                        // The row could not even be bound, retrying will not help
+                        deadLetter(message, rowError.toString());
+                    }
+                }
+                return persisted;
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Batch insert of {} messages was rejected, retrying individually: {}", batch.size(), e.getMessage());
+                rowByRow = true;
+            } catch (DataAccessException e) {
+                // Most likely the database is unreachable; the same rows are tried again
+                if (!awaitRetry(++attempt, batch.size() - next, e)) {
+                    List<Long> lost = batch.subList(next, batch.size()).stream().map(Message::getId).toList();
+                    logger.error("Giving up on {} unstored messages at shutdown: {}", lost.size(), lost);
+                    meterRegistry.counter("chat.write-behind.lost").increment(lost.size());
+                    return persisted;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Batch insert of {} messages failed, retrying individually: {}", batch.size(), e.getMessage());
+                rowByRow = true;
+            }
+        }
+    }
+
+    // A dead-letter insert that fails on the connection is retried with the rest of the
+    // batch; one the database refuses as well leaves only the log line below
+    private void deadLetter(Message message, String error) {
+        logger.error("Message {} was rejected by the database, moving it to message_dead_letters: {}", message.getId(), error);
+        try {
+            messageJdbcRepository.insertDeadLetter(message, error);
+            meterRegistry.counter("chat.write-behind.dead-letters").increment();
+        } catch (DataAccessException e) {
+            if (!(e instanceof DataIntegrityViolationException)) {
+                throw e;
+            }
+            lose(message, e);
+        } catch (RuntimeException e) {
+            lose(message, e);
+        }
+    }
+
+    private void lose(Message message, RuntimeException error) {
+        logger.error("Message {} could not be dead-lettered either, dropping it: {} (sender={}, channel={}, recipient={}, seq={}, content={})",
+                message.getId(), error.getMessage(),
+                message.getSender() != null ? message.getSender().getId() : null,
+                message.getChannel() != null ? message.getChannel().getId() : null,
+                message.getRecipient() != null ? message.getRecipient().getId() : null,
+                message.getSeq(), message.getContent());
+        meterRegistry.counter("chat.write-behind.lost").increment();
+    }
+
+    // Exponential backoff; false once shutdown is past its deadline or the writer is interrupted
+    private boolean awaitRetry(int attempt, int pending, RuntimeException error) {
+        if (!running && System.currentTimeMillis() >= shutdownDeadline) {
+            return false;
+        }
+        long delayMs = Math.min(retryMaxMs, retryInitialMs << Math.min(attempt - 1, 20));
+        logger.warn("Storing {} messages failed (attempt {}), retrying in {} ms: {}", pending, attempt, delayMs, error.getMessage());
+        meterRegistry.counter("chat.write-behind.retries").increment();
+        try {
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // The recent-message cache must never get ahead of the database. If the append fails
+    // the channel is dropped from the cache instead of serving it with a hole
+    private void cachePersisted(Message message) {
+        if (message.getChannel() == null) {
+            return;
+        }
+        try {
+            recentMessageCache.append(ChatMessageDto.fromEntity(message));
+        } catch (RuntimeException e) {
+            logger.error("Failed to cache message {}: {}", message.getId(), e.getMessage(), e);
+            recentMessageCache.evict(message.getChannel().getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        pipelineLock.writeLock().lock();
+        try {
+            shutdownDeadline = System.currentTimeMillis() + shutdownTimeoutMs;
+            running = false;
+        } finally {
+            pipelineLock.writeLock().unlock();
+        }
+        idBlockReserver.shutdown();
+        try {
+            // A little longer than the retry deadline, so the writer gives up on its own
+            writer.join(shutdownTimeoutMs + retryMaxMs);
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Drain whatever the writer could not finish before exiting
+        List<Message> remaining = new ArrayList<>(unfinished);
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            List<Message> batch = remaining.subList(i, Math.min(i + batchSize, remaining.size()));
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                logger.error("Giving up on {} unstored messages at shutdown: {}", batch.size(),
+                        batch.stream().map(Message::getId).toList(), e);
+                meterRegistry.counter("chat.write-behind.lost").increment(batch.size());
+            }
+        }
+        logger.info("Message write-behind pipeline stopped, drained {} pending messages", remaining.size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.devsync.service;
+
+import com.devsync.entity.Channel;
+import com.devsync.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collapses bursts of channel pushes per (recipient, channel): the first message of a
+// burst is pushed right away, the rest of the window is folded into a single
+// "N new messages in #channel" push. Every push also draws from a per-user token bucket
+@Service
+public class NotificationCoalescer {
+
+    @Autowired
+    private PushNotificationDispatcher pushNotificationDispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${push.coalesce.window-ms:30000}")
+    private long windowMs;
+
+    @Value("${push.rate-limit.burst:5}")
+    private int burst;
+
+    @Value("${push.rate-limit.per-minute:6}")
+    private double perMinute;
+
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private Counter immediatePushes;
+    private Counter foldedPushes;
+    private Counter summaryPushes;
+
+    @PostConstruct
+    public void init() {
+        immediatePushes = Counter.builder("push.coalescer.messages").tag("outcome", "immediate").register(meterRegistry);
+        foldedPushes = Counter.builder("push.coalescer.messages").tag("outcome", "folded").register(meterRegistry);
+        summaryPushes = Counter.builder("push.coalescer.summaries").register(meterRegistry);
+    }
+
+    // Returns the recipients that should get this message's own push now; the others
+    // are counted towards the summary of their open window
+    public List<User> admit(Channel channel, Collection<User> recipients) {
+        long now = System.currentTimeMillis();
+        List<User> immediate = new ArrayList<>();
+        for (User recipient : recipients) {
+            boolean[] sendNow = new boolean[1];
+            windows.compute(new WindowKey(recipient.getId(), channel.getId()), (key, window) -> {
+                if (window == null) {
+                    window = new Window(channel.getId(), channel.getName(), now);
+                    sendNow[0] = tryAcquire(recipient.getId(), now);
+                }
+                window.token = recipient.getFirebaseToken();
+                if (!sendNow[0]) {
+                    window.pending++;
+                }
+                return window;
+            });
+
+            if (sendNow[0]) {
+                immediate.add(recipient);
+                immediatePushes.increment();
+            } else {
+                foldedPushes.increment();
+            }
+        }
+        return immediate;
+    }
+
+    @Scheduled(fixedDelayString = "${push.coalesce.flush-interval-ms:1000}")
+    public void flushExpiredWindows() {
+        long now = System.currentTimeMillis();
+        Map<Summary, List<String>> summaries = new HashMap<>();
+        for (WindowKey key : windows.keySet()) {
+            windows.computeIfPresent(key, (k, window) -> {
+                if (now - window.openedAt < windowMs) {
+                    return window;
+                }
+                if (window.pending == 0) {
+                    return null; // the burst is over
+                }
+                if (!tryAcquire(k.userId(), now)) {
+                    return window; // rate limited, keep folding and retry on the next run
+                }
+                summaries.computeIfAbsent(new Summary(window.channelId, window.channelName, window.pending), s -> new ArrayList<>())
+                        .add(window.token);
+                // Keep the window open so a channel that is still busy stays folded
+                window.pending = 0;
+                window.openedAt = now;
+                return window;
+            });
+        }
+
+        // Recipients with the same summary share one multicast
+        summaries.forEach((summary, tokens) -> {
+            pushNotificationDispatcher.dispatch(summary.toNotification(), tokens);
+            summaryPushes.increment(tokens.size());
+        });
+        // Full buckets are dropped under the same per-key lock that draws from them, so a
+        // token is never taken from a bucket that was just evicted and then recreated full
+        for (Long userId : buckets.keySet()) {
+            buckets.computeIfPresent(userId, (id, bucket) -> bucket.isFull(now) ? null : bucket);
+        }
+    }
+
+    private boolean tryAcquire(Long userId, long now) {
+        boolean[] acquired = new boolean[1];
+        buckets.compute(userId, (id, bucket) -> {
+            if (bucket == null) {
+                bucket = new TokenBucket(burst, perMinute / 60_000.0);
+            }
+            acquired[0] = bucket.tryAcquire(now);
+            return bucket;
+        });
+        return acquired[0];
+    }
+
+    private record WindowKey(Long userId, Long channelId) {}
+
+    private record Summary(Long channelId, String channelName, int count) {
+        PushNotification toNotification() {
+            return new PushNotification(
+                    "#" + channelName,
+                    count + (count == 1 ? " new message" : " new messages") + " in #" + channelName,
+                    null,
+                    Map.of(
+                            "type", "channel_summary",
+                            "channelId", channelId.toString(),
+                            "channelName", channelName,
+                            "count", Integer.toString(count)));
+        }
+    }
+
+    // Only mutated inside ConcurrentHashMap.compute, which serializes access per key
+    private static class Window {
+        private final Long channelId;
+        private final String channelName;
+        private long openedAt;
+        private int pending;
+        private String token;
+
+        Window(Long channelId, String channelName, long openedAt) {
+            this.channelId = channelId;
+            this.channelName = channelName;
+            this.openedAt = openedAt;
+        }
+    }
+
+    // Like Window, only used inside compute on the buckets map
+    private static class TokenBucket {
+        private final int capacity;
+        private final double refillPerMs;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, double refillPerMs) {
+            this.capacity = capacity;
+            this.refillPerMs = refillPerMs;
+            this.tokens = capacity;
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMs);
+                lastRefill = now;
+            }
+        }
+    }
+}
\ No newline at end of file
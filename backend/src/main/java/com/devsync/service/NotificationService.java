@@ -1,99 +1,106 @@
 package com.devsync.service;
 
 import com.devsync.entity.*;
-import com.google.firebase.messaging.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 
 @Service
 public class NotificationService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
+    @Autowired
+    private PushNotificationDispatcher pushNotificationDispatcher;
+
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+
     public void sendDirectMessageNotification(User recipient, User sender, String messageContent) {
-        if (recipient.getFirebaseToken() == null || recipient.getFirebaseToken().isEmpty()) {
+        if (!hasFirebaseToken(recipient)) {
             logger.debug("No Firebase token found for user: {}", recipient.getUsername());
             return;
         }
 
-        try {
-            com.google.firebase.messaging.Message message = com.google.firebase.messaging.Message.builder()
-                    .setToken(recipient.getFirebaseToken())
-                    .setNotification(Notification.builder()
-                            .setTitle(sender.getUsername())
-                            .setBody(truncateMessage(messageContent))
-                            .setImage(sender.getProfilePicture())
-                            .build())
-                    .putData("type", "direct_message")
-                    .putData("senderId", sender.getId().toString())
-                    .putData("senderUsername", sender.getUsername())
-                    .putData("recipientId", recipient.getId().toString())
-                    .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
-            logger.debug("Successfully sent DM notification: {}", response);
-        } catch (Exception e) {
-            logger.error("Error sending direct message notification: {}", e.getMessage());
-        }
+        PushNotification notification = new PushNotification(
+                sender.getUsername(),
+                truncateMessage(messageContent),
+                sender.getProfilePicture(),
+                Map.of(
+                        "type", "direct_message",
+                        "senderId", sender.getId().toString(),
+                        "senderUsername", sender.getUsername(),
+                        "recipientId", recipient.getId().toString()));
+
+        pushNotificationDispatcher.dispatch(notification, List.of(recipient.getFirebaseToken()));
     }
 
-    public void sendChannelNotification(Channel channel, User sender, String messageContent, User recipient) {
-        if (recipient.getFirebaseToken() == null || recipient.getFirebaseToken().isEmpty()) {
-            logger.debug("No Firebase token found for user: {}", recipient.getUsername());
+    // All recipients share one payload, so the channel push goes out as multicast batches.
+    // Recipients inside an open coalescing window only count towards its summary push
+    public void sendChannelNotification(Channel channel, User sender, String messageContent, Collection<User> recipients) {
+        List<User> eligible = recipients.stream()
+                .filter(recipient -> !recipient.getId().equals(sender.getId()))
+                .filter(this::hasFirebaseToken)
+                .collect(Collectors.toList());
+        List<String> tokens = notificationCoalescer.admit(channel, eligible).stream()
+                .map(User::getFirebaseToken)
+                .distinct()
+                .collect(Collectors.toList());
+        if (tokens.isEmpty()) {
+            logger.debug("No Firebase tokens to notify for channel: {}", channel.getName());
             return;
         }
 
-        try {
-            com.google.firebase.messaging.Message message = com.google.firebase.messaging.Message.builder()
-                    .setToken(recipient.getFirebaseToken())
-                    .setNotification(Notification.builder()
-                            .setTitle("#" + channel.getName())
-                            .setBody(sender.getUsername() + ": " + truncateMessage(messageContent))
-                            .setImage(sender.getProfilePicture())
-                            .build())
-                    .putData("type", "channel_message")
-                    .putData("channelId", channel.getId().toString())
-                    .putData("channelName", channel.getName())
-                    .putData("senderId", sender.getId().toString())
-                    .putData("senderUsername", sender.getUsername())
-                    .putData("recipientId", recipient.getId().toString())
-                    .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
-            logger.debug("Successfully sent channel notification: {}", response);
-        } catch (Exception e) {
-            logger.error("Error sending channel notification: {}", e.getMessage());
-        }
+        PushNotification notification = new PushNotification(
+                "#" + channel.getName(),
+                sender.getUsername() + ": " + truncateMessage(messageContent),
+                sender.getProfilePicture(),
+                Map.of(
+                        "type", "channel_message",
+                        "channelId", channel.getId().toString(),
+                        "channelName", channel.getName(),
+                        "senderId", sender.getId().toString(),
+                        "senderUsername", sender.getUsername()));
+
+        pushNotificationDispatcher.dispatch(notification, tokens);
     }
 
-    public void sendMentionNotification(User mentionedUser, User sender, Channel channel, String messageContent) {
-        if (mentionedUser.getFirebaseToken() == null || mentionedUser.getFirebaseToken().isEmpty()) {
-            logger.warn("No Firebase token found for mentioned user: {}", mentionedUser.getUsername());
+    // Mentions are addressed to the person, so they skip coalescing and rate limiting.
+    // Every mentioned user shares one payload, so this is a multicast as well
+    public void sendMentionNotification(Collection<User> mentionedUsers, User sender, Channel channel, String messageContent) {
+        List<String> tokens = mentionedUsers.stream()
+                .filter(this::hasFirebaseToken)
+                .map(User::getFirebaseToken)
+                .distinct()
+                .collect(Collectors.toList());
+        if (tokens.isEmpty()) {
+            logger.debug("No Firebase tokens to notify for mentions in channel: {}", channel.getName());
             return;
         }
 
-        try {
-            com.google.firebase.messaging.Message message = com.google.firebase.messaging.Message.builder()
-                    .setToken(mentionedUser.getFirebaseToken())
-                    .setNotification(Notification.builder()
-                            .setTitle("Mentioned in #" + channel.getName())
-                            .setBody(sender.getUsername() + ": " + truncateMessage(messageContent))
-                            .setImage(sender.getProfilePicture())
-                            .build())
-                    .putData("type", "mention")
-                    .putData("channelId", channel.getId().toString())
-                    .putData("channelName", channel.getName())
-                    .putData("senderId", sender.getId().toString())
-                    .putData("senderUsername", sender.getUsername())
-                    .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
-            logger.debug("Successfully sent mention notification: {}", response);
-        } catch (Exception e) {
-            logger.error("Error sending mention notification: {}", e.getMessage());
-        }
+        PushNotification notification = new PushNotification(
+                "Mentioned in #" + channel.getName(),
+                sender.getUsername() + ": " + truncateMessage(messageContent),
+                sender.getProfilePicture(),
+                Map.of(
+                        "type", "mention",
+                        "channelId", channel.getId().toString(),
+                        "channelName", channel.getName(),
+                        "senderId", sender.getId().toString(),
+                        "senderUsername", sender.getUsername()));
+
+        pushNotificationDispatcher.dispatch(notification, tokens);
+    }
+
+    private boolean hasFirebaseToken(User user) {
+        return user.getFirebaseToken() != null && !user.getFirebaseToken().isEmpty();
     }
 
     private String truncateMessage(String content) {
@@ -0,0 +1,107 @@
+package com.devsync.service;
+
+import com.devsync.dto.PresenceFrameDto;
+import com.devsync.dto.PresenceUpdateDto;
+import com.devsync.repository.ChannelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Aggregates presence changes and sends them as one frame per channel per interval,
+// only to /topic/presence.{channelId}, instead of one global message per change.
+// Frame versions come from the presence registry, so with presence.registry=redis the
+// frames that different instances send for one channel share a single version sequence
+@Service
+public class PresenceBroadcaster {
+
+    // Bound on the member id list of one channel lookup
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ChannelRepository channelRepository;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Value("${presence.offline-grace-ms:3000}")
+    private long offlineGraceMs;
+
+    // Latest change per user waiting for the next frame
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    // Last state sent per online user, so a flap that ends where it started sends nothing
+    private final Map<Long, String> published = new ConcurrentHashMap<>();
+
+    public void publish(PresenceUpdateDto update) {
+        // Going offline is held back for a grace period; a reconnect inside it replaces
+        // the pending change and the flap is never broadcast
+        long dueAt = update.isOnline() ? 0 : System.currentTimeMillis() + offlineGraceMs;
+        pending.put(update.getUserId(), new PendingUpdate(update, dueAt));
+    }
+
+    public long currentVersion(Long channelId) {
+        return presenceRegistry.getChannelVersion(channelId);
+    }
+
+    @Scheduled(fixedDelayString = "${presence.broadcast-interval-ms:500}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        Map<Long, PresenceUpdateDto> changed = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            pending.computeIfPresent(userId, (id, update) -> {
+                if (update.dueAt() > now) {
+                    return update;
+                }
+                String state = stateOf(update.update());
+                if (!state.equals(published.get(id))) {
+                    changed.put(id, update.update());
+                }
+                if (update.update().isOnline()) {
+                    published.put(id, state);
+                } else {
+                    published.remove(id);
+                }
+                return null;
+            });
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<PresenceUpdateDto>> updatesByChannel = new HashMap<>();
+        List<Long> userIds = new ArrayList<>(changed.keySet());
+        for (int i = 0; i < userIds.size(); i += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, userIds.size()));
+            for (Object[] membership : channelRepository.findChannelIdsByMemberIds(chunk)) {
+                Long userId = (Long) membership[0];
+                Long channelId = (Long) membership[1];
+                updatesByChannel.computeIfAbsent(channelId, id -> new ArrayList<>()).add(changed.get(userId));
+            }
+        }
+        if (updatesByChannel.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> versions = presenceRegistry.nextChannelVersions(updatesByChannel.keySet());
+        updatesByChannel.forEach((channelId, updates) ->
+                messagingTemplate.convertAndSend("/topic/presence." + channelId,
+                        new PresenceFrameDto(channelId, versions.get(channelId), false, updates)));
+    }
+
+    private String stateOf(PresenceUpdateDto update) {
+        return update.isOnline() ? "online:" + update.getStatus() : "offline";
+    }
+
+    private record PendingUpdate(PresenceUpdateDto update, long dueAt) {}
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.devsync.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+// Tracks live WebSocket sessions per user. A user is online while at least one
+// session is registered; sessions that stop being refreshed expire, which covers
+// instances that die without sending disconnects
+public interface PresenceRegistry {
+
+    // Returns true when this was the user's first live session
+    boolean addSession(Long userId, String sessionId);
+
+    // Returns true when this was the user's last live session
+    boolean removeSession(Long userId, String sessionId);
+
+    // Heartbeat for the sessions held by this instance (session id -> user id);
+    // returns the users that were offline before, e.g. after an expiry
+    Set<Long> refreshSessions(Map<String, Long> sessions);
+
+    // Drops sessions not refreshed since the cutoff and returns the users that went offline
+    Set<Long> expireSessions(long cutoffMillis);
+
+    boolean isOnline(Long userId);
+
+    Set<Long> getOnlineUserIds();
+
+    // Those of the given users that are online; asks about them only, so the cost follows
+    // the size of the group (a channel's members) rather than the number of users online
+    Set<Long> getOnlineUserIds(Collection<Long> userIds);
+
+    // Presence frames carry a per-channel version so clients can order deltas against a
+    // snapshot. The counters live here so that every instance draws from the same sequence.
+    // Increments each channel once and returns the new versions
+    Map<Long, Long> nextChannelVersions(Collection<Long> channelIds);
+
+    long getChannelVersion(Long channelId);
+}
\ No newline at end of file
@@ -1,83 +1,222 @@
 package com.devsync.service;
 
+import com.devsync.dto.PresenceFrameDto;
 import com.devsync.dto.PresenceUpdateDto;
 import com.devsync.entity.User;
 import com.devsync.entity.UserStatus;
 import com.devsync.repository.ChannelRepository;
+import com.devsync.repository.UserPresenceRepository;
+import com.devsync.repository.UserPresenceRepository.PresenceChange;
 import com.devsync.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class PresenceService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+
+    private static final int FLUSH_CHUNK_SIZE = 1000;
+
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private PresenceBroadcaster presenceBroadcaster;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserPresenceRepository userPresenceRepository;
+
     @Autowired
     private ChannelRepository channelRepository;
 
-    // In-memory store for online users (in production, use Redis)
-    private final Map<Long, String> onlineUsers = new ConcurrentHashMap<>();
+    @Autowired
+    private PresenceRegistry presenceRegistry;
 
-    public void userConnected(Long userId, String sessionId) {
-        onlineUsers.put(userId, sessionId);
-        updateUserOnlineStatus(userId, true);
-        broadcastPresenceUpdate(userId, true);
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${presence.session-timeout-ms:45000}")
+    private long sessionTimeoutMs;
+
+    // Sessions opened on this instance; their heartbeats keep them alive in the registry
+    private final Map<String, Long> localSessions = new ConcurrentHashMap<>();
+
+    // Presence lives in memory (the registry); users.is_online and last_seen are only
+    // a persisted copy, written in bulk by flushOnlineStates. Latest state per user wins,
+    // and each change carries the time of its edge so older changes never overwrite newer ones
+    private final Map<Long, PresenceChange> pendingOnlineStates = new ConcurrentHashMap<>();
+
+    // Username and status of online users, so presence broadcasts need no user lookup
+    private final Map<Long, PresenceProfile> profiles = new ConcurrentHashMap<>();
+
+    // A user may hold several sessions (tabs, devices); only the first connect
+    // and the last disconnect change their presence
+    public void userConnected(Long userId, String username, String sessionId) {
+        localSessions.put(sessionId, userId);
+        profiles.putIfAbsent(userId, new PresenceProfile(username, UserStatus.ACTIVE));
+        if (presenceRegistry.addSession(userId, sessionId)) {
+            markOnline(userId);
+        }
     }
 
-    public void userDisconnected(Long userId) {
-        onlineUsers.remove(userId);
-        updateUserOnlineStatus(userId, false);
-        broadcastPresenceUpdate(userId, false);
+    public void userDisconnected(Long userId, String sessionId) {
+        localSessions.remove(sessionId);
+        if (presenceRegistry.removeSession(userId, sessionId)) {
+            markOffline(userId);
+        }
     }
 
     public boolean isUserOnline(Long userId) {
-        return onlineUsers.containsKey(userId);
+        return presenceRegistry.isOnline(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${presence.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        presenceRegistry.refreshSessions(localSessions).forEach(this::markOnline);
+        // Sessions of crashed instances (or lost disconnect events) stop being refreshed
+        presenceRegistry.expireSessions(System.currentTimeMillis() - sessionTimeoutMs).forEach(this::markOffline);
     }
 
+    private void markOnline(Long userId) {
+        // Coming online resets the status to ACTIVE, as it always has
+        PresenceProfile profile = getProfile(userId);
+        if (profile != null) {
+            profiles.put(userId, profile.withStatus(UserStatus.ACTIVE));
+        }
+        pendingOnlineStates.put(userId, new PresenceChange(userId, true, Instant.now()));
+        broadcastPresenceUpdate(userId, true);
+    }
+
+    private void markOffline(Long userId) {
+        pendingOnlineStates.put(userId, new PresenceChange(userId, false, Instant.now()));
+        broadcastPresenceUpdate(userId, false);
+        profiles.remove(userId);
+    }
+
+    // Asks the registry about this channel's members only, then loads the offline ones
     public List<User> getOfflineChannelMembers(Long channelId) {
-        return channelRepository.findOfflineChannelMembers(channelId, onlineUsers.keySet());
+        List<Long> memberIds = Arrays.stream(channelMembershipService.getMemberIds(channelId)).boxed().toList();
+        Set<Long> onlineUserIds = presenceRegistry.getOnlineUserIds(memberIds);
+        List<Long> offlineUserIds = memberIds.stream().filter(id -> !onlineUserIds.contains(id)).toList();
+        return offlineUserIds.isEmpty() ? List.of() : userRepository.findAllById(offlineUserIds);
     }
 
-    private void updateUserOnlineStatus(Long userId, boolean isOnline) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setIsOnline(isOnline);
-            user.setLastSeen(LocalDateTime.now());
-            if (isOnline) {
-                user.setStatus(UserStatus.ACTIVE);
+    // A reconnect storm collapses into one batched round trip per interval
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:5000}")
+    public void flushOnlineStates() {
+        if (pendingOnlineStates.isEmpty()) {
+            return;
+        }
+
+        Map<Long, PresenceChange> batch = new HashMap<>();
+        for (Long userId : pendingOnlineStates.keySet()) {
+            PresenceChange change = pendingOnlineStates.remove(userId);
+            if (change != null) {
+                batch.put(userId, change);
             }
-            userRepository.save(user);
-        });
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    userPresenceRepository.updatePresence(new ArrayList<>(batch.values()), FLUSH_CHUNK_SIZE));
+        } catch (DataAccessException e) {
+            // Put the states back unless a newer one arrived meanwhile
+            logger.warn("Failed to persist presence of {} users, will retry: {}", batch.size(), e.getMessage());
+            batch.forEach(pendingOnlineStates::putIfAbsent);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushOnlineStates();
     }
 
     private void broadcastPresenceUpdate(Long userId, boolean isOnline) {
-        userRepository.findById(userId).ifPresent(user -> {
-            PresenceUpdateDto presenceUpdate = new PresenceUpdateDto();
-            presenceUpdate.setUserId(userId);
-            presenceUpdate.setUsername(user.getUsername());
-            presenceUpdate.setOnline(isOnline);
-            presenceUpdate.setStatus(user.getStatus().toString());
-            presenceUpdate.setTimestamp(LocalDateTime.now());
-
-            messagingTemplate.convertAndSend("/topic/presence", presenceUpdate);
-        });
+        PresenceProfile profile = getProfile(userId);
+        if (profile == null) {
+            return;
+        }
+
+        presenceBroadcaster.publish(new PresenceUpdateDto(userId, profile.username(), isOnline, profile.status().toString()));
+    }
+
+    public PresenceFrameDto getChannelSnapshot(Long channelId, Long requesterId) {
+        if (!channelMembershipService.isMember(channelId, requesterId)) {
+            throw new RuntimeException("User is not a member of this channel");
+        }
+
+        // Read the version first: deltas sent while the snapshot is built carry a
+        // higher version and are re-applied by the client, which is harmless
+        long version = presenceBroadcaster.currentVersion(channelId);
+        List<User> members = channelRepository.findChannelMembers(channelId);
+        Set<Long> onlineUserIds = presenceRegistry.getOnlineUserIds(members.stream().map(User::getId).toList());
+        List<PresenceUpdateDto> onlineMembers = new ArrayList<>();
+        for (User member : members) {
+            if (onlineUserIds.contains(member.getId())) {
+                PresenceProfile profile = profiles.get(member.getId());
+                UserStatus status = profile != null ? profile.status() : member.getStatus();
+                onlineMembers.add(new PresenceUpdateDto(member.getId(), member.getUsername(), true, status.toString()));
+            }
+        }
+        return new PresenceFrameDto(channelId, version, true, onlineMembers);
+    }
+
+    // Only users whose presence edge was seen by another instance miss the cache
+    private PresenceProfile getProfile(Long userId) {
+        PresenceProfile profile = profiles.get(userId);
+        if (profile != null) {
+            return profile;
+        }
+        return userRepository.findById(userId)
+                .map(user -> new PresenceProfile(user.getUsername(), user.getStatus()))
+                .map(loaded -> {
+                    PresenceProfile existing = profiles.putIfAbsent(userId, loaded);
+                    return existing != null ? existing : loaded;
+                })
+                .orElse(null);
+    }
+
+    // Called after the status has been stored on the user
+    public void statusChanged(Long userId, String username, UserStatus status) {
+        boolean isOnline = isUserOnline(userId);
+        profiles.put(userId, new PresenceProfile(username, status));
+        broadcastPresenceUpdate(userId, isOnline);
+        if (!isOnline) {
+            profiles.remove(userId);
+        }
     }
 
     public void updateUserStatus(Long userId, UserStatus status) {
         userRepository.findById(userId).ifPresent(user -> {
             user.setStatus(status);
             userRepository.save(user);
-            broadcastPresenceUpdate(userId, isUserOnline(userId));
+            statusChanged(userId, user.getUsername(), status);
         });
     }
+
+    private record PresenceProfile(String username, UserStatus status) {
+        PresenceProfile withStatus(UserStatus newStatus) {
+            return new PresenceProfile(username, newStatus);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.devsync.service;
+
+import java.util.List;
+
+// Seam between the dispatcher and FCM, so delivery can run against a stub
+// (push.gateway=log) in development and tests
+public interface PushGateway {
+
+    // FCM accepts at most this many registration tokens per multicast request
+    int MAX_MULTICAST_TOKENS = 500;
+
+    // Returns the number of devices the notification was accepted for
+    int sendMulticast(PushNotification notification, List<String> tokens) throws Exception;
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.devsync.service;
+
+import java.util.Map;
+
+// Device-independent payload of a push, built on the caller thread so the
+// dispatcher never touches JPA entities
+public class PushNotification {
+    private final String title;
+    private final String body;
+    private final String imageUrl;
+    private final Map<String, String> data;
+
+    public PushNotification(String title, String body, String imageUrl, Map<String, String> data) {
+        this.title = title;
+        this.body = body;
+        this.imageUrl = imageUrl;
+        this.data = data;
+    }
+
+    public String getTitle() { return title; }
+
+    public String getBody() { return body; }
+
+    public String getImageUrl() { return imageUrl; }
+
+    public Map<String, String> getData() { return data; }
+}
\ No newline at end of file
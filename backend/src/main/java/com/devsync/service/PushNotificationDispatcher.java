@@ -0,0 +1,95 @@
+package com.devsync.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Sends pushes off the caller's thread: tokens are split into multicast batches
+// and handed to a bounded pool, so a large channel costs a few FCM requests
+// instead of one blocking request per member on the STOMP inbound thread
+@Service
+public class PushNotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushNotificationDispatcher.class);
+
+    @Autowired
+    private PushGateway pushGateway;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${push.dispatcher.threads:4}")
+    private int threads;
+
+    @Value("${push.dispatcher.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private Counter droppedQueueFull;
+    private Counter droppedShutdown;
+
+    @PostConstruct
+    public void start() {
+        droppedQueueFull = Counter.builder("push.dispatcher.dropped").tag("reason", "queue-full").register(meterRegistry);
+        droppedShutdown = Counter.builder("push.dispatcher.dropped").tag("reason", "shutdown").register(meterRegistry);
+        // When FCM falls behind, batches beyond the queue are dropped rather than
+        // pushing the backlog onto message senders
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("push-dispatcher-"),
+                (task, pool) -> reject(pool));
+    }
+
+    // The executor also rejects once shutdown has begun; those batches are late
+    // sends during a stop, not a sign that FCM is falling behind
+    private void reject(ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            droppedShutdown.increment();
+            logger.info("Push dispatcher is shutting down, dropping a notification batch");
+        } else {
+            droppedQueueFull.increment();
+            logger.warn("Push queue is full, dropping a notification batch");
+        }
+    }
+
+    public void dispatch(PushNotification notification, List<String> tokens) {
+        for (int i = 0; i < tokens.size(); i += PushGateway.MAX_MULTICAST_TOKENS) {
+            List<String> batch = List.copyOf(tokens.subList(i, Math.min(i + PushGateway.MAX_MULTICAST_TOKENS, tokens.size())));
+            executor.execute(() -> send(notification, batch));
+        }
+    }
+
+    private void send(PushNotification notification, List<String> tokens) {
+        try {
+            int delivered = pushGateway.sendMulticast(notification, tokens);
+            logger.debug("Push '{}' delivered to {} of {} devices", notification.getTitle(), delivered, tokens.size());
+        } catch (Exception e) {
+            logger.error("Error sending push notification: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.devsync.service;
+
+import com.devsync.dto.ReactionDto;
+import com.devsync.repository.ReactionRepository;
+import com.devsync.repository.ReactionRepository.ReactionRow;
+import com.devsync.repository.ReactionRepository.ReactionTarget;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reactions are applied to in-memory per-message state first, so toggles are answered
+// and broadcast (as a one-emoji delta) right away; message_reactions rows and the
+// denormalized messages.reaction_counts are written in batches
+@Service
+public class ReactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactionService.class);
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    // message_reactions.emoji is VARCHAR(10)
+    private static final int MAX_EMOJI_LENGTH = 10;
+
+    private static final int MAX_EMOJIS_PER_MESSAGE = 50;
+
+    @Autowired
+    private ReactionRepository reactionRepository;
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${reactions.max-messages:10000}")
+    private int maxMessages;
+
+    // Other instances change reactions too; their changes show up after a reload
+    @Value("${reactions.ttl-ms:60000}")
+    private long ttlMs;
+
+    // Access-ordered, so the eldest entry is the least recently reacted-to message
+    private Map<Long, MessageReactions> messages;
+
+    // Latest change per (message, user, emoji) not stored yet. Entries are removed
+    // only once stored, so a reload in between still sees them
+    private final Map<ReactionRow, PendingReaction> pendingReactions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        messages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MessageReactions> eldest) {
+                return size() > maxMessages;
+            }
+        };
+    }
+
+    public ReactionDto react(Long userId, ReactionDto request) {
+        String emoji = request.getEmoji() != null ? request.getEmoji().strip() : null;
+        if (request.getMessageId() == null || emoji == null || emoji.isEmpty()) {
+            throw new RuntimeException("messageId and emoji are required");
+        }
+        if (emoji.codePointCount(0, emoji.length()) > MAX_EMOJI_LENGTH || emoji.chars().anyMatch(Character::isWhitespace)) {
+            throw new RuntimeException("Invalid emoji");
+        }
+
+        Long messageId = request.getMessageId();
+        MessageReactions reactions = getReactions(messageId);
+        if (reactions == null || !canRead(reactions.target, userId)) {
+            throw new RuntimeException("Message not found");
+        }
+
+        boolean added = request.isAdded();
+        boolean changed;
+        int count;
+        Map<String, Integer> counts;
+        synchronized (reactions) {
+            if (added && !reactions.usersByEmoji.containsKey(emoji) && reactions.usersByEmoji.size() >= MAX_EMOJIS_PER_MESSAGE) {
+                throw new RuntimeException("Too many different reactions on this message");
+            }
+            changed = added ? reactions.add(emoji, userId) : reactions.remove(emoji, userId);
+            if (changed) {
+                // Under the message lock, so the pending change always matches the in-memory state
+                pendingReactions.put(new ReactionRow(messageId, userId, emoji), new PendingReaction(added, 0));
+            }
+            count = reactions.count(emoji);
+            counts = reactions.counts();
+        }
+
+        ReactionDto delta = new ReactionDto(messageId, emoji, userId, added, count);
+        if (changed) {
+            broadcast(reactions.target, delta);
+            if (reactions.target.channelId() != null) {
+                recentMessageCache.updateReactions(reactions.target.channelId(), messageId, counts);
+            }
+        }
+        return delta;
+    }
+
+    @Scheduled(fixedDelayString = "${reactions.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingReactions.isEmpty()) {
+            return;
+        }
+
+        Map<ReactionRow, PendingReaction> batch = new HashMap<>(pendingReactions);
+        List<ReactionRow> inserts = new ArrayList<>();
+        List<ReactionRow> deletes = new ArrayList<>();
+        Set<Long> messageIds = new HashSet<>();
+        batch.forEach((row, pending) -> {
+            (pending.added() ? inserts : deletes).add(row);
+            messageIds.add(row.messageId());
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                reactionRepository.insertReactions(inserts);
+                reactionRepository.deleteReactions(deletes);
+                reactionRepository.refreshCounts(messageIds);
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Failed to store {} reaction changes, will retry: {}", batch.size(), e.getMessage());
+            // Count the attempt unless a newer change replaced the entry meanwhile
+            batch.forEach((row, pending) -> pendingReactions.computeIfPresent(row, (key, current) -> {
+                if (current != pending) {
+                    return current;
+                }
+                return pending.attempts() + 1 < MAX_FLUSH_ATTEMPTS ? new PendingReaction(pending.added(), pending.attempts() + 1) : null;
+            }));
+            return;
+        }
+        batch.forEach(pendingReactions::remove);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private MessageReactions getReactions(Long messageId) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            MessageReactions cached = messages.get(messageId);
+            if (cached != null && now - cached.loadedAt < ttlMs) {
+                return cached;
+            }
+        }
+
+        ReactionTarget target = reactionRepository.findTarget(messageId).orElse(null);
+        if (target == null) {
+            return null;
+        }
+        MessageReactions loaded = new MessageReactions(target, now);
+        for (Object[] row : reactionRepository.findReactions(messageId)) {
+            loaded.add((String) row[1], (Long) row[0]);
+        }
+
+        synchronized (this) {
+            MessageReactions cached = messages.get(messageId);
+            if (cached != null && now - cached.loadedAt < ttlMs) {
+                return cached; // another thread loaded it first
+            }
+            // Changes not stored yet are applied on top of the database state
+            pendingReactions.forEach((row, pending) -> {
+                if (row.messageId().equals(messageId)) {
+                    if (pending.added()) {
+                        loaded.add(row.emoji(), row.userId());
+                    } else {
+                        loaded.remove(row.emoji(), row.userId());
+                    }
+                }
+            });
+            messages.put(messageId, loaded);
+        }
+        return loaded;
+    }
+
+    private boolean canRead(ReactionTarget target, Long userId) {
+        if (target.channelId() != null) {
+            return channelMembershipService.isMember(target.channelId(), userId);
+        }
+        return userId.equals(target.senderId()) || userId.equals(target.recipientId());
+    }
+
+    private void broadcast(ReactionTarget target, ReactionDto delta) {
+        if (target.channelId() != null) {
+            messagingTemplate.convertAndSend("/topic/reactions." + target.channelId(), delta);
+            return;
+        }
+        messagingTemplate.convertAndSendToUser(target.senderId().toString(), "/queue/reactions", delta);
+        if (!target.senderId().equals(target.recipientId())) {
+            messagingTemplate.convertAndSendToUser(target.recipientId().toString(), "/queue/reactions", delta);
+        }
+    }
+
+    private record PendingReaction(boolean added, int attempts) {}
+
+    // Guarded by its own monitor once published
+    private static class MessageReactions {
+        private final ReactionTarget target;
+        private final long loadedAt;
+        private final Map<String, Set<Long>> usersByEmoji = new LinkedHashMap<>();
+
+        MessageReactions(ReactionTarget target, long loadedAt) {
+            this.target = target;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean add(String emoji, Long userId) {
+            return usersByEmoji.computeIfAbsent(emoji, e -> new HashSet<>()).add(userId);
+        }
+
+        boolean remove(String emoji, Long userId) {
+            Set<Long> users = usersByEmoji.get(emoji);
+            if (users == null || !users.remove(userId)) {
+                return false;
+            }
+            if (users.isEmpty()) {
+                usersByEmoji.remove(emoji);
+            }
+            return true;
+        }
+
+        int count(String emoji) {
+            Set<Long> users = usersByEmoji.get(emoji);
+            return users != null ? users.size() : 0;
+        }
+
+        // Same shape as messages.reaction_counts; null when there are none
+        Map<String, Integer> counts() {
+            if (usersByEmoji.isEmpty()) {
+                return null;
+            }
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            usersByEmoji.forEach((emoji, users) -> counts.put(emoji, users.size()));
+            return counts;
+        }
+    }
+}
\ No newline at end of file
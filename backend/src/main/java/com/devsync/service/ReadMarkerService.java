@@ -0,0 +1,135 @@
+package com.devsync.service;
+
+import com.devsync.dto.ReadMarkerDto;
+import com.devsync.repository.ConversationSummaryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Read markers are acknowledged in memory and written in batches: a user scrolling
+// through a conversation produces many acks, only the latest per conversation is stored
+@Service
+public class ReadMarkerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadMarkerService.class);
+
+    // A marker may point at a message the write-behind pipeline has not stored yet
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${read.receipt-interval-ms:5000}")
+    private long receiptIntervalMs;
+
+    private final Map<MarkerKey, PendingMarker> pendingMarkers = new ConcurrentHashMap<>();
+
+    // Receipts are sent at most once per receipt interval per (reader, conversation);
+    // a receipt that comes too early waits, and newer ones replace it meanwhile
+    private final Map<MarkerKey, Long> lastReceiptAt = new ConcurrentHashMap<>();
+    private final Map<MarkerKey, ReadMarkerDto> delayedReceipts = new ConcurrentHashMap<>();
+
+    public void markRead(Long userId, String username, ReadMarkerDto request) {
+        if (!"CHANNEL".equals(request.getType()) && !"DIRECT".equals(request.getType())) {
+            throw new RuntimeException("Unknown conversation type: " + request.getType());
+        }
+        if (request.getConversationId() == null || request.getMessageId() == null) {
+            throw new RuntimeException("conversationId and messageId are required");
+        }
+
+        ReadMarkerDto marker = new ReadMarkerDto(userId, username, request.getType(), request.getConversationId(), request.getMessageId());
+        pendingMarkers.put(MarkerKey.of(marker), new PendingMarker(marker, 0));
+    }
+
+    @Scheduled(fixedDelayString = "${read.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        sendDueReceipts(now);
+        if (pendingMarkers.isEmpty()) {
+            return;
+        }
+
+        List<PendingMarker> batch = new ArrayList<>();
+        for (MarkerKey key : pendingMarkers.keySet()) {
+            PendingMarker pending = pendingMarkers.remove(key);
+            if (pending != null) {
+                batch.add(pending);
+            }
+        }
+
+        List<ReadMarkerDto> applied;
+        try {
+            applied = conversationSummaryRepository.markRead(batch.stream().map(PendingMarker::marker).collect(Collectors.toList()));
+        } catch (DataAccessException e) {
+            // Put the markers back unless a newer one arrived meanwhile
+            logger.warn("Failed to store {} read markers, will retry: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pendingMarkers.putIfAbsent(MarkerKey.of(pending.marker()), pending));
+            return;
+        }
+
+        for (PendingMarker pending : batch) {
+            if (!applied.contains(pending.marker()) && pending.attempts() + 1 < MAX_FLUSH_ATTEMPTS) {
+                pendingMarkers.putIfAbsent(MarkerKey.of(pending.marker()), new PendingMarker(pending.marker(), pending.attempts() + 1));
+            }
+        }
+        applied.forEach(marker -> sendReceipt(marker, now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void sendReceipt(ReadMarkerDto marker, long now) {
+        MarkerKey key = MarkerKey.of(marker);
+        Long last = lastReceiptAt.get(key);
+        if (last != null && now - last < receiptIntervalMs) {
+            delayedReceipts.put(key, marker);
+            return;
+        }
+        lastReceiptAt.put(key, now);
+        delayedReceipts.remove(key);
+
+        if ("DIRECT".equals(marker.getType())) {
+            messagingTemplate.convertAndSendToUser(marker.getConversationId().toString(), "/queue/receipts", marker);
+        } else {
+            messagingTemplate.convertAndSend("/topic/receipts." + marker.getConversationId(), marker);
+        }
+    }
+
+    private void sendDueReceipts(long now) {
+        for (MarkerKey key : delayedReceipts.keySet()) {
+            Long last = lastReceiptAt.get(key);
+            if (last == null || now - last >= receiptIntervalMs) {
+                ReadMarkerDto marker = delayedReceipts.remove(key);
+                if (marker != null) {
+                    sendReceipt(marker, now);
+                }
+            }
+        }
+        lastReceiptAt.entrySet().removeIf(entry -> now - entry.getValue() >= receiptIntervalMs && !delayedReceipts.containsKey(entry.getKey()));
+    }
+
+    private record MarkerKey(Long userId, String type, Long conversationId) {
+        static MarkerKey of(ReadMarkerDto marker) {
+            return new MarkerKey(marker.getUserId(), marker.getType(), marker.getConversationId());
+        }
+    }
+
+    private record PendingMarker(ReadMarkerDto marker, int attempts) {}
+}
\ No newline at end of file
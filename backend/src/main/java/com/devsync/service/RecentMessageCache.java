@@ -0,0 +1,242 @@
+package com.devsync.service;
+
+import com.devsync.dto.ChatMessageDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps the newest messages of recently read channels in memory so the first
+// history page (the common case) is served without touching the database
+@Service
+public class RecentMessageCache {
+
+    private static final Comparator<ChatMessageDto> MESSAGE_ORDER = Comparator
+            .comparing(ChatMessageDto::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ChatMessageDto::getId);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.recent-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.recent-cache.messages-per-channel:50}")
+    private int capacity;
+
+    @Value("${chat.recent-cache.max-messages:100000}")
+    private int maxMessages;
+
+    // Access-ordered, so the eldest entry is the least recently used channel
+    private Map<Long, ChannelTail> tails;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        int maxChannels = Math.max(1, maxMessages / capacity);
+        tails = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ChannelTail> eldest) {
+                return size() > maxChannels;
+            }
+        };
+
+        hits = Counter.builder("chat.recent_cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("chat.recent_cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("chat.recent_cache.channels", this, RecentMessageCache::getChannelCount).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Returns the newest messages (newest first) or null when the channel is not cached
+    public Slice<ChatMessageDto> getLatest(Long channelId, int size) {
+        if (!enabled) {
+            return null;
+        }
+        ChannelTail tail = size <= capacity ? getTail(channelId) : null;
+        if (tail != null) {
+            synchronized (tail) {
+                if (tail.loaded) {
+                    hits.increment();
+                    return new SliceImpl<>(tail.newest(size), PageRequest.of(0, size), tail.size > size || !tail.complete);
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Must be called before reading the latest page from the database, so messages
+    // committed while the read is in flight are captured and merged by completeLoad
+    public void beginLoad(Long channelId) {
+        synchronized (tails) {
+            if (!tails.containsKey(channelId)) {
+                tails.put(channelId, new ChannelTail(capacity));
+            }
+        }
+    }
+
+    public void completeLoad(Long channelId, List<ChatMessageDto> newestFirst, boolean wholeHistory) {
+        ChannelTail tail = getTail(channelId);
+        if (tail == null) {
+            return;
+        }
+        synchronized (tail) {
+            if (tail.loaded) {
+                return;
+            }
+            tail.complete = wholeHistory;
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                tail.add(newestFirst.get(i));
+            }
+            tail.loaded = true;
+        }
+    }
+
+    // Drops a channel's tail, so the next read loads it from the database again
+    public void evict(Long channelId) {
+        synchronized (tails) {
+            tails.remove(channelId);
+        }
+    }
+
+    // Only appends to channels that are already cached; others are loaded on first read
+    public void append(ChatMessageDto message) {
+        if (!enabled || message.getChannelId() == null) {
+            return;
+        }
+        ChannelTail tail = getTail(message.getChannelId());
+        if (tail != null) {
+            synchronized (tail) {
+                tail.add(message);
+            }
+        }
+    }
+
+    // Messages must only become visible in the cache once they are visible in the
+    // database, otherwise a concurrent load could miss them for good
+    public void appendAfterCommit(ChatMessageDto message) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(message);
+                }
+            });
+        } else {
+            append(message);
+        }
+    }
+
+    // Cached messages carry their reaction counts too; the map is replaced, never modified
+    public void updateReactions(Long channelId, Long messageId, Map<String, Integer> counts) {
+        ChannelTail tail = enabled ? getTail(channelId) : null;
+        if (tail == null) {
+            return;
+        }
+        synchronized (tail) {
+            ChatMessageDto cached = tail.find(messageId);
+            if (cached != null) {
+                cached.setReactions(counts);
+            }
+        }
+    }
+
+    private ChannelTail getTail(Long channelId) {
+        synchronized (tails) {
+            return tails.get(channelId);
+        }
+    }
+
+    private int getChannelCount() {
+        synchronized (tails) {
+            return tails.size();
+        }
+    }
+
+    // Ring buffer of the newest messages of one channel, ordered by (timestamp, id)
+    private static class ChannelTail {
+        private final ChatMessageDto[] ring;
+        private int head;
+        private int size;
+        private boolean loaded;
+        private boolean complete; // the ring holds the channel's entire history
+
+        ChannelTail(int capacity) {
+            this.ring = new ChatMessageDto[capacity];
+        }
+
+        void add(ChatMessageDto message) {
+            // New messages almost always land at the end, so scan from the newest
+            int pos = size;
+            while (pos > 0 && MESSAGE_ORDER.compare(get(pos - 1), message) > 0) {
+                pos--;
+            }
+            if (pos > 0 && get(pos - 1).getId().equals(message.getId())) {
+                set(pos - 1, message);
+                return;
+            }
+            if (size == ring.length) {
+                complete = false;
+                if (pos == 0) {
+                    return;
+                }
+                head = (head + 1) % ring.length;
+                size--;
+                pos--;
+            }
+            for (int i = size; i > pos; i--) {
+                set(i, get(i - 1));
+            }
+            set(pos, message);
+            size++;
+        }
+
+        ChatMessageDto find(Long messageId) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (get(i).getId().equals(messageId)) {
+                    return get(i);
+                }
+            }
+            return null;
+        }
+
+        List<ChatMessageDto> newest(int count) {
+            List<ChatMessageDto> result = new ArrayList<>(Math.min(count, size));
+            for (int i = size - 1; i >= 0 && result.size() < count; i--) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        private ChatMessageDto get(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void set(int index, ChatMessageDto message) {
+            ring[(head + index) % ring.length] = message;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.devsync.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Registry shared by all backend instances. Each user has a hash of session id ->
+// last heartbeat, and a set holds the online user ids. A sorted set scores every
+// "userId:sessionId" by its last heartbeat, so a sweep finds stale sessions with one
+// range query instead of visiting every online user. The Lua scripts keep all three in
+// step atomically, so exactly one instance observes a user's online/offline edge.
+// All keys share the {presence} hash tag to stay in one Redis Cluster slot, which is
+// also what lets the expiry script address per-user keys it derives from the sorted set
+@Component
+@ConditionalOnProperty(name = "presence.registry", havingValue = "redis")
+public class RedisPresenceRegistry implements PresenceRegistry {
+
+    private static final String ONLINE_USERS_KEY = "{presence}:online";
+    private static final String SESSION_EXPIRY_KEY = "{presence}:expiry";
+    private static final String SESSIONS_KEY_PREFIX = "{presence}:sessions:";
+    private static final String CHANNEL_VERSION_KEY_PREFIX = "{presence}:version:";
+
+    // Stale sessions removed per script call, so one sweep never blocks Redis for long
+    private static final int EXPIRE_BATCH_SIZE = 1000;
+
+    // User ids asked about per SMISMEMBER, so a large channel never becomes one huge command
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    // ARGV: user id, now, session ids... Returns 1 when the user was not online before
+    private static final RedisScript<Long> TOUCH_SESSIONS = new DefaultRedisScript<>(
+            "for i = 3, #ARGV do " +
+            "redis.call('HSET', KEYS[1], ARGV[i], ARGV[2]) " +
+            "redis.call('ZADD', KEYS[3], ARGV[2], ARGV[1] .. ':' .. ARGV[i]) " +
+            "end " +
+            "return redis.call('SADD', KEYS[2], ARGV[1])", Long.class);
+
+    // ARGV: user id, session id. Returns 1 when it was the user's last session
+    private static final RedisScript<Long> REMOVE_SESSION = new DefaultRedisScript<>(
+            "redis.call('HDEL', KEYS[1], ARGV[2]) " +
+            "redis.call('ZREM', KEYS[3], ARGV[1] .. ':' .. ARGV[2]) " +
+            "if redis.call('HLEN', KEYS[1]) == 0 then return redis.call('SREM', KEYS[2], ARGV[1]) end " +
+            "return 0", Long.class);
+
+    // KEYS: expiry zset, online set. ARGV: cutoff, batch size, sessions key prefix.
+    // Returns the users left without a session, followed by the number of sessions removed
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> EXPIRE_SESSIONS = new DefaultRedisScript<>(
+            "local stale = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1], 'LIMIT', 0, tonumber(ARGV[2])) " +
+            "local offline = {} " +
+            "for _, member in ipairs(stale) do " +
+            "local userId, sessionId = string.match(member, '^(%d+):(.*)$') " +
+            "redis.call('ZREM', KEYS[1], member) " +
+            "if userId then " +
+            "local sessions = ARGV[3] .. userId " +
+            "redis.call('HDEL', sessions, sessionId) " +
+            "if redis.call('HLEN', sessions) == 0 and redis.call('SREM', KEYS[2], userId) == 1 then " +
+            "table.insert(offline, userId) " +
+            "end " +
+            "end " +
+            "end " +
+            "table.insert(offline, tostring(#stale)) " +
+            "return offline", List.class);
+
+    // KEYS: channel version counters. Returns the incremented versions in the same order
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INCREMENT_VERSIONS = new DefaultRedisScript<>(
+            "local versions = {} " +
+            "for i, key in ipairs(KEYS) do versions[i] = redis.call('INCR', key) end " +
+            "return versions", List.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Override
+    public boolean addSession(Long userId, String sessionId) {
+        return touch(userId, List.of(sessionId), System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean removeSession(Long userId, String sessionId) {
+        return isOne(redisTemplate.execute(REMOVE_SESSION, keys(userId), userId.toString(), sessionId));
+    }
+
+    @Override
+    public Set<Long> refreshSessions(Map<String, Long> localSessions) {
+        long now = System.currentTimeMillis();
+        Map<Long, List<String>> sessionsByUser = new HashMap<>();
+        localSessions.forEach((sessionId, userId) ->
+                sessionsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(sessionId));
+
+        Set<Long> cameOnline = new HashSet<>();
+        sessionsByUser.forEach((userId, sessionIds) -> {
+            if (touch(userId, sessionIds, now)) {
+                cameOnline.add(userId);
+            }
+        });
+        return cameOnline;
+    }
+
+    @Override
+    public Set<Long> expireSessions(long cutoffMillis) {
+        Set<Long> wentOffline = new HashSet<>();
+        List<String> keys = List.of(SESSION_EXPIRY_KEY, ONLINE_USERS_KEY);
+        int removed;
+        do {
+            List<?> result = redisTemplate.execute(EXPIRE_SESSIONS, keys,
+                    Long.toString(cutoffMillis), Integer.toString(EXPIRE_BATCH_SIZE), SESSIONS_KEY_PREFIX);
+            if (result == null || result.isEmpty()) {
+                break;
+            }
+            removed = Integer.parseInt(result.get(result.size() - 1).toString());
+            for (Object userId : result.subList(0, result.size() - 1)) {
+                wentOffline.add(Long.valueOf(userId.toString()));
+            }
+        } while (removed == EXPIRE_BATCH_SIZE);
+        return wentOffline;
+    }
+
+    @Override
+    public boolean isOnline(Long userId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(ONLINE_USERS_KEY, userId.toString()));
+    }
+
+    @Override
+    public Set<Long> getOnlineUserIds() {
+        Set<String> members = redisTemplate.opsForSet().members(ONLINE_USERS_KEY);
+        if (members == null) {
+            return new HashSet<>();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<Long> getOnlineUserIds(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        Set<Long> online = new HashSet<>();
+        for (int i = 0; i < ids.size(); i += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + LOOKUP_BATCH_SIZE, ids.size()));
+            Map<Object, Boolean> members = redisTemplate.opsForSet()
+                    .isMember(ONLINE_USERS_KEY, batch.stream().map(String::valueOf).toArray());
+            if (members == null) {
+                continue;
+            }
+            for (Long userId : batch) {
+                if (Boolean.TRUE.equals(members.get(userId.toString()))) {
+                    online.add(userId);
+                }
+            }
+        }
+        return online;
+    }
+
+    @Override
+    public Map<Long, Long> nextChannelVersions(Collection<Long> channelIds) {
+        List<Long> ids = new ArrayList<>(channelIds);
+        Map<Long, Long> versions = new HashMap<>();
+        if (ids.isEmpty()) {
+            return versions;
+        }
+        List<String> keys = ids.stream().map(id -> CHANNEL_VERSION_KEY_PREFIX + id).toList();
+        List<?> result = redisTemplate.execute(INCREMENT_VERSIONS, keys);
+        for (int i = 0; i < ids.size(); i++) {
+            versions.put(ids.get(i), ((Number) result.get(i)).longValue());
+        }
+        return versions;
+    }
+
+    @Override
+    public long getChannelVersion(Long channelId) {
+        String version = redisTemplate.opsForValue().get(CHANNEL_VERSION_KEY_PREFIX + channelId);
+        return version != null ? Long.parseLong(version) : 0;
+    }
+
+    private boolean touch(Long userId, Collection<String> sessionIds, long now) {
+        List<String> args = new ArrayList<>(sessionIds.size() + 2);
+        args.add(userId.toString());
+        args.add(Long.toString(now));
+        args.addAll(sessionIds);
+        return isOne(redisTemplate.execute(TOUCH_SESSIONS, keys(userId), args.toArray()));
+    }
+
+    private List<String> keys(Long userId) {
+        return List.of(SESSIONS_KEY_PREFIX + userId, ONLINE_USERS_KEY, SESSION_EXPIRY_KEY);
+    }
+
+    private boolean isOne(Long result) {
+        return result != null && result == 1L;
+    }
+}
\ No newline at end of file
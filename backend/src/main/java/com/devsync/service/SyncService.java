@@ -0,0 +1,152 @@
+package com.devsync.service;
+
+import com.devsync.dto.ChatMessageDto;
+import com.devsync.dto.ConversationCursorDto;
+import com.devsync.dto.ConversationSummaryDto;
+import com.devsync.dto.ConversationSyncDto;
+import com.devsync.dto.SyncRequestDto;
+import com.devsync.entity.Message;
+import com.devsync.repository.ConversationSummaryRepository;
+import com.devsync.repository.MessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+// Delta sync for reconnecting clients: the conversation summaries tell which
+// conversations moved past the client's cursors, and only those touch messages
+@Service
+@Transactional(readOnly = true)
+public class SyncService {
+
+    private static final int MAX_CONVERSATIONS = 1000;
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    // Returns only the conversations with new messages or a moved read marker;
+    // conversations the client does not know yet come back with their latest page
+    public List<ConversationSyncDto> sync(Long userId, SyncRequestDto request) {
+        int limit = request.getLimit() == null ? DEFAULT_LIMIT : Math.max(1, Math.min(request.getLimit(), MAX_LIMIT));
+        Map<String, ConversationCursorDto> cursors = new HashMap<>();
+        if (request.getConversations() != null) {
+            request.getConversations().forEach(cursor -> cursors.put(key(cursor.getType(), cursor.getConversationId()), cursor));
+        }
+
+        List<ConversationSyncDto> changed = new ArrayList<>();
+        for (ConversationSummaryDto summary : conversationSummaryRepository.findInbox(userId, MAX_CONVERSATIONS)) {
+            ConversationCursorDto cursor = cursors.get(key(summary.getType(), summary.getConversationId()));
+            Long lastSeenId = cursor != null ? cursor.getLastMessageId() : null;
+            Long lastSeq = cursor != null ? cursor.getLastSeq() : null;
+            boolean hasNewMessages = lastSeq != null
+                    ? summary.getLastMessageSeq() != null && summary.getLastMessageSeq() > lastSeq
+                    : summary.getLastMessageId() != null && !summary.getLastMessageId().equals(lastSeenId);
+            boolean readMarkerMoved = cursor == null || !Objects.equals(cursor.getLastReadMessageId(), summary.getLastReadMessageId());
+            if (!hasNewMessages && !readMarkerMoved) {
+                continue;
+            }
+
+            ConversationSyncDto result = ConversationSyncDto.fromSummary(summary);
+            if (hasNewMessages) {
+                loadMissingMessages(userId, summary, lastSeenId, lastSeq, limit, result);
+            }
+            changed.add(result);
+        }
+        return changed;
+    }
+
+    private void loadMissingMessages(Long userId, ConversationSummaryDto summary, Long lastSeenId, Long lastSeq,
+                                     int limit, ConversationSyncDto result) {
+        boolean isChannel = "CHANNEL".equals(summary.getType());
+        if (isChannel && loadFromCache(summary, lastSeenId, lastSeq, limit, result)) {
+            return;
+        }
+
+        Long conversationId = summary.getConversationId();
+        Long lowId = Math.min(userId, conversationId);
+        Long highId = Math.max(userId, conversationId);
+        PageRequest page = PageRequest.of(0, limit);
+
+        Slice<Message> after = null;
+        if (lastSeq != null) {
+            after = isChannel
+                    ? messageRepository.findChannelMessagesAfterSeq(conversationId, lastSeq, page)
+                    : messageRepository.findDirectMessagesAfterSeq(lowId, highId, lastSeq, page);
+        } else if (lastSeenId != null) {
+            Optional<LocalDateTime> cursorAt = messageRepository.findCreatedAtById(lastSeenId);
+            if (cursorAt.isPresent()) {
+                after = isChannel
+                        ? messageRepository.findChannelMessagesAfter(conversationId, cursorAt.get(), lastSeenId, page)
+                        : messageRepository.findDirectMessagesAfter(lowId, highId, cursorAt.get(), lastSeenId, page);
+            }
+        }
+        if (after != null && !after.hasNext()) {
+            result.setMessages(after.map(ChatMessageDto::fromEntity).getContent());
+            return;
+        }
+
+        // Unknown cursor, or the client is too far behind to catch up message by message
+        Slice<Message> latest = isChannel
+                ? messageRepository.findLatestChannelMessages(conversationId, page)
+                : messageRepository.findLatestDirectMessages(lowId, highId, page);
+        List<ChatMessageDto> messages = new ArrayList<>(latest.map(ChatMessageDto::fromEntity).getContent());
+        Collections.reverse(messages);
+        result.setMessages(messages);
+        result.setReset(true);
+    }
+
+    // The recent-message cache answers most channel syncs after a short blip. It is
+    // only trusted once it has caught up with the summary's latest message
+    private boolean loadFromCache(ConversationSummaryDto summary, Long lastSeenId, Long lastSeq, int limit, ConversationSyncDto result) {
+        Slice<ChatMessageDto> cached = recentMessageCache.getLatest(summary.getConversationId(), recentMessageCache.getCapacity());
+        if (cached == null || !cached.hasContent() || !summary.getLastMessageId().equals(cached.getContent().get(0).getId())) {
+            return false;
+        }
+
+        List<ChatMessageDto> newestFirst = cached.getContent();
+        int missing = -1;
+        for (int i = 0; i < newestFirst.size(); i++) {
+            ChatMessageDto message = newestFirst.get(i);
+            boolean held = lastSeq != null ? message.getSeq() != null && message.getSeq() <= lastSeq : message.getId().equals(lastSeenId);
+            if (held) {
+                missing = i;
+                break;
+            }
+        }
+
+        List<ChatMessageDto> messages;
+        if (missing >= 0 && missing <= limit) {
+            messages = new ArrayList<>(newestFirst.subList(0, missing));
+        } else if (missing >= 0 || newestFirst.size() >= limit || !cached.hasNext()) {
+            messages = new ArrayList<>(newestFirst.subList(0, Math.min(limit, newestFirst.size())));
+            result.setReset(true);
+        } else {
+            return false; // the cached window is shorter than the page the client needs
+        }
+        Collections.reverse(messages);
+        result.setMessages(messages);
+        return true;
+    }
+
+    private String key(String type, Long conversationId) {
+        return type + ":" + conversationId;
+    }
+}
\ No newline at end of file
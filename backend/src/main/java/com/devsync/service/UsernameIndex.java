@@ -0,0 +1,67 @@
+package com.devsync.service;
+
+import com.devsync.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// username -> user id for mention resolution. Usernames never change once assigned,
+// so entries need no invalidation; all misses of a message are resolved in one query
+@Service
+public class UsernameIndex {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${chat.mentions.username-cache-size:50000}")
+    private int maxEntries;
+
+    // Access-ordered, so the eldest entry is the least recently mentioned user
+    private Map<String, Long> ids;
+
+    @PostConstruct
+    public void init() {
+        ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // Unknown usernames are left out of the result
+    public Map<String, Long> resolve(Collection<String> usernames) {
+        Map<String, Long> resolved = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (this) {
+            for (String username : usernames) {
+                Long id = ids.get(username);
+                if (id != null) {
+                    resolved.put(username, id);
+                } else {
+                    missing.add(username);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return resolved;
+        }
+
+        List<Object[]> rows = userRepository.findIdsByUsernames(missing);
+        synchronized (this) {
+            for (Object[] row : rows) {
+                ids.put((String) row[0], (Long) row[1]);
+                resolved.put((String) row[0], (Long) row[1]);
+            }
+        }
+        return resolved;
+    }
+}
\ No newline at end of file
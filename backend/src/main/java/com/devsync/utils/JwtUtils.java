@@ -4,49 +4,122 @@ import com.devsync.security.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String EMAIL_CLAIM = "email";
+    public static final String ROLES_CLAIM = "roles";
+    // iat only has second precision, too coarse to order a token against a revocation
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
+    // Every authenticated request goes through the cache, so it is split by token hash
+    // to keep concurrent requests off a single lock
+    private static final int CACHE_SEGMENTS = 16;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxCachedTokens;
+
+    // Built once: decoding the secret and creating the HMAC key per call was measurable on every request
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Tokens whose signature has already been verified. Each segment is access-ordered and
+    // evicts its least recently used token when full; an entry is also dropped at the token's exp
+    private Map<String, Claims>[] verifiedTokens;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+        int segmentCapacity = Math.max(1, maxCachedTokens / CACHE_SEGMENTS);
+        verifiedTokens = new Map[CACHE_SEGMENTS];
+        for (int i = 0; i < CACHE_SEGMENTS; i++) {
+            verifiedTokens[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                    return size() > segmentCapacity;
+                }
+            };
+        }
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .claim(EMAIL_CLAIM, userPrincipal.getEmail())
+                .claim(ROLES_CLAIM, roles)
+                .claim(ISSUED_AT_MS_CLAIM, now)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    // Issue time in millis; tokens from before the iat_ms claim only have the second of iat
+    public static Long issuedAtMillis(Claims claims) {
+        Long millis = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+        if (millis != null) {
+            return millis;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : null;
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
+    // Verifies the token once and returns its claims, or null when it is not valid
+    public Claims parseClaims(String token) {
+        Map<String, Claims> segment = segmentFor(token);
+        synchronized (segment) {
+            Claims cached = segment.get(token);
+            if (cached != null) {
+                if (cached.getExpiration().getTime() > System.currentTimeMillis()) {
+                    return cached;
+                }
+                segment.remove(token);
+            }
+        }
 
-    public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            // Verified outside the segment lock, so a miss never holds up other tokens
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() != null) {
+                synchronized (segment) {
+                    segment.put(token, claims);
+                }
+            }
+            return claims;
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -55,8 +128,14 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    private Map<String, Claims> segmentFor(String token) {
+        return verifiedTokens[(token.hashCode() & Integer.MAX_VALUE) % CACHE_SEGMENTS];
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.devsync.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Finds @username, @channel and @here in message content in a single pass. Messages
+// without an '@' (most of them) cost one indexOf and allocate nothing
+public final class MentionParser {
+
+    public static final Mentions NONE = new Mentions(Collections.emptySet(), false, false);
+
+    // Bounds the lookups and pushes a single message can cause
+    private static final int MAX_USER_MENTIONS = 50;
+
+    private static final int MAX_USERNAME_LENGTH = 50;
+
+    private MentionParser() {}
+
+    public static Mentions parse(String content) {
+        if (content == null) {
+            return NONE;
+        }
+        int at = content.indexOf('@');
+        if (at < 0) {
+            return NONE;
+        }
+
+        Set<String> usernames = null;
+        boolean channel = false;
+        boolean here = false;
+        int length = content.length();
+        while (at >= 0) {
+            int start = at + 1;
+            // "bob@example.com" is an address, not a mention
+            if (at > 0 && isNameChar(content.charAt(at - 1))) {
+                at = content.indexOf('@', start);
+                continue;
+            }
+            int end = start;
+            while (end < length && end - start < MAX_USERNAME_LENGTH && isNameChar(content.charAt(end))) {
+                end++;
+            }
+            // Sentence punctuation after a name: "thanks @bob."
+            while (end > start && isTrailingPunctuation(content.charAt(end - 1))) {
+                end--;
+            }
+
+            if (end > start) {
+                if (end - start == 7 && content.startsWith("channel", start)) {
+                    channel = true;
+                } else if (end - start == 4 && content.startsWith("here", start)) {
+                    here = true;
+                } else {
+                    if (usernames == null) {
+                        usernames = new LinkedHashSet<>();
+                    }
+                    if (usernames.size() < MAX_USER_MENTIONS) {
+                        usernames.add(content.substring(start, end));
+                    }
+                }
+            }
+            at = content.indexOf('@', end);
+        }
+
+        if (usernames == null && !channel && !here) {
+            return NONE;
+        }
+        return new Mentions(usernames != null ? usernames : Collections.emptySet(), channel, here);
+    }
+
+    // Usernames are chosen at signup or derived from an email's local part
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-' || c == '+';
+    }
+
+    private static boolean isTrailingPunctuation(char c) {
+        return c == '.' || c == '-' || c == '+';
+    }
+
+    public record Mentions(Set<String> usernames, boolean channel, boolean here) {
+        public boolean isEmpty() {
+            return usernames.isEmpty() && !channel && !here;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.devsync;
+
+import com.devsync.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+class ApplicationContextTest extends IntegrationTest {
+
+    @Test
+    void contextLoads() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,224 @@
+package com.devsync;
+
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import com.devsync.support.TestDatabase;
+import com.devsync.support.TestRedis;
+import com.devsync.utils.JwtUtils;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application instances in relay mode behind one embedded STOMP broker (Artemis),
+// sharing the embedded database and a Redis presence registry, as in a scaled-out deployment
+class MultiNodeRelayTest {
+
+    @TempDir
+    static Path brokerData;
+
+    private static EmbeddedActiveMQ broker;
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+    private static WebSocketStompClient stompClient;
+
+    @BeforeAll
+    static void start() throws Exception {
+        int brokerPort = freePort();
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJournalDirectory(brokerData.resolve("journal").toString())
+                .setBindingsDirectory(brokerData.resolve("bindings").toString())
+                .setPagingDirectory(brokerData.resolve("paging").toString())
+                .setLargeMessagesDirectory(brokerData.resolve("large-messages").toString())
+                // Same destination semantics as RabbitMQ's STOMP plugin: /topic is broadcast, /queue is point to point
+                .addAcceptorConfiguration("stomp",
+                        "tcp://localhost:" + brokerPort + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+
+        node1 = startNode(brokerPort);
+        node2 = startNode(brokerPort);
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (node2 != null) {
+            node2.close();
+        }
+        if (node1 != null) {
+            node1.close();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    void channelMessagesAndPresenceReachSessionsOnOtherInstances() throws Exception {
+        TestData testData = node1.getBean(TestData.class);
+        long senderId = testData.createUser();
+        long memberId = testData.createUser();
+        long channelId = testData.createChannel(senderId, memberId);
+
+        BlockingQueue<Map<String, Object>> senderPresence = new LinkedBlockingQueue<>();
+        StompSession sender = connect(node1, senderId);
+        sender.subscribe("/topic/presence." + channelId, collectInto(senderPresence));
+
+        BlockingQueue<Map<String, Object>> received = new LinkedBlockingQueue<>();
+        StompSession member = connect(node2, memberId);
+        member.subscribe("/topic/channel." + channelId, collectInto(received));
+
+        // The member came online on node 2; the frame reaches the sender's session on node 1
+        Map<String, Object> presence = poll(senderPresence, frame -> containsUser(frame, memberId));
+        assertThat(presence).as("presence frame from node 2").isNotNull();
+        assertThat(((Number) presence.get("version")).longValue()).isPositive();
+
+        // Give the relay a moment to register the member's subscription with the broker
+        Thread.sleep(500);
+        sender.send("/app/chat.send", Map.of(
+                "type", "CHANNEL",
+                "channelId", channelId,
+                "content", "hello from node 1",
+                "messageType", "TEXT"));
+
+        Map<String, Object> message = poll(received, frame -> true);
+        assertThat(message).as("channel message from node 1").isNotNull();
+        assertThat(message.get("content")).isEqualTo("hello from node 1");
+        assertThat(((Number) message.get("senderId")).longValue()).isEqualTo(senderId);
+
+        sender.disconnect();
+        member.disconnect();
+    }
+
+    @Test
+    void userRegistryIncludesSessionsOfOtherInstances() throws Exception {
+        TestData testData = node2.getBean(TestData.class);
+        long userId = testData.createUser();
+        String username = node2.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT username FROM users WHERE id = ?", String.class, userId);
+
+        StompSession session = connect(node2, userId);
+
+        // Registries are broadcast between instances periodically (every 10s by default)
+        SimpUserRegistry node1Users = node1.getBean(SimpUserRegistry.class);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (node1Users.getUser(username) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+        assertThat(node1Users.getUser(username)).as("user connected to node 2, seen from node 1").isNotNull();
+
+        session.disconnect();
+    }
+
+    private static ConfigurableApplicationContext startNode(int brokerPort) {
+        return new SpringApplicationBuilder(DevSyncApplication.class).run(
+                "--server.port=0",
+                "--websocket.broker.mode=relay",
+                "--websocket.broker.relay.host=localhost",
+                "--websocket.broker.relay.port=" + brokerPort,
+                "--presence.registry=redis",
+                "--spring.data.redis.host=localhost",
+                "--spring.data.redis.port=" + TestRedis.port(),
+                "--spring.datasource.url=" + TestDatabase.jdbcUrl(),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--push.gateway=log",
+                "--jwt.secret=" + IntegrationTest.JWT_SECRET,
+                "--logging.level.com.devsync=INFO",
+                "--logging.level.org.springframework.security=INFO");
+    }
+
+    private StompSession connect(ConfigurableApplicationContext node, long userId) throws Exception {
+        Map<String, Object> user = node.getBean(JdbcTemplate.class)
+                .queryForMap("SELECT username, email FROM users WHERE id = ?", userId);
+        UserDetailsImpl principal = new UserDetailsImpl(userId, (String) user.get("username"), (String) user.get("email"),
+                null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        String token = node.getBean(JwtUtils.class).generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        String url = "ws://localhost:" + node.getEnvironment().getProperty("local.server.port") + "/ws-native";
+        return stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private static StompFrameHandler collectInto(BlockingQueue<Map<String, Object>> frames) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                frames.add((Map<String, Object>) payload);
+            }
+        };
+    }
+
+    private static Map<String, Object> poll(BlockingQueue<Map<String, Object>> frames,
+                                            java.util.function.Predicate<Map<String, Object>> matches) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            Map<String, Object> frame = frames.poll(remaining, TimeUnit.MILLISECONDS);
+            if (frame != null && matches.test(frame)) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean containsUser(Map<String, Object> frame, long userId) {
+        List<Map<String, Object>> users = (List<Map<String, Object>>) frame.get("users");
+        return users != null && users.stream().anyMatch(user -> ((Number) user.get("userId")).longValue() == userId);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.devsync.benchmark;
+
+import com.devsync.config.CompactPayloadInterceptor;
+import com.devsync.dto.ChatMessageDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Per-subscriber cost of delivering a chat broadcast to a cbor + elide session, from 4
+// threads: the previous tree transcoding (what every relay delivery paid, since each
+// subscription has its own payload copy), the streaming transcoder on cache misses, and
+// relay copies of a cached broadcast. Payload sizes per format are printed at setup.
+// mvn -P benchmarks test-compile exec:exec -Dbenchmark=CompactPayloadBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CompactPayloadBenchmark {
+
+    // More distinct broadcasts than the cache holds, so cycling through them always misses
+    private static final int DISTINCT_PAYLOADS = 4096;
+    private static final int SESSIONS = 64;
+    private static final Set<String> ELIDED_FIELDS = Set.of("senderUsername", "senderAvatar", "channelName", "recipientUsername");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CBORMapper cborMapper = new CBORMapper();
+    private CompactPayloadInterceptor interceptor;
+    private byte[][] payloads;
+
+    @Setup
+    public void setUp() throws Exception {
+        interceptor = new CompactPayloadInterceptor();
+        ReflectionTestUtils.setField(interceptor, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(interceptor, "maxCachedPayloads", 256);
+        for (int i = 0; i < SESSIONS; i++) {
+            connect("s" + i, "cbor", "true");
+        }
+        connect("elide-json", "json", "true");
+        connect("cbor-only", "cbor", "false");
+
+        payloads = new byte[DISTINCT_PAYLOADS][];
+        for (int i = 0; i < DISTINCT_PAYLOADS; i++) {
+            payloads[i] = objectMapper.writeValueAsBytes(dto(i));
+        }
+
+        System.out.printf("payload bytes: json=%d, json+elide=%d, cbor=%d, cbor+elide=%d%n",
+                payloads[0].length,
+                ((byte[]) interceptor.preSend(message("elide-json", payloads[0]), null).getPayload()).length,
+                ((byte[]) interceptor.preSend(message("cbor-only", payloads[0]), null).getPayload()).length,
+                ((byte[]) interceptor.preSend(message("s0", payloads[0]), null).getPayload()).length);
+    }
+
+    // The previous encode path: a tree per delivery, then the same frame rewrite as now
+    @Benchmark
+    public Object treeTranscode() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Message<byte[]> message = message("s" + random.nextInt(SESSIONS), payloads[random.nextInt(DISTINCT_PAYLOADS)]);
+        JsonNode tree = objectMapper.readTree(message.getPayload());
+        compact(tree);
+        byte[] encoded = cborMapper.writeValueAsBytes(tree);
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader("payload-format", "cbor");
+        return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders()).getPayload();
+    }
+
+    @Benchmark
+    public Object streamingMiss() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return interceptor.preSend(message("s" + random.nextInt(SESSIONS), payloads[random.nextInt(DISTINCT_PAYLOADS)]), null).getPayload();
+    }
+
+    @Benchmark
+    public Object relayHit() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return interceptor.preSend(message("s" + random.nextInt(SESSIONS), payloads[0].clone()), null).getPayload();
+    }
+
+    private void compact(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isNull() || ELIDED_FIELDS.contains(field.getKey())) {
+                    fields.remove();
+                }
+            }
+        }
+        node.forEach(this::compact);
+    }
+
+    private void connect(String sessionId, String format, String elide) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("nativeWebSocket", true);
+        accessor.setSessionAttributes(attributes);
+        accessor.setNativeHeader("payload-format", format);
+        accessor.setNativeHeader("payload-elide", elide);
+        accessor.setLeaveMutable(true);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private static Message<byte[]> message(String sessionId, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static ChatMessageDto dto(long id) {
+        ChatMessageDto dto = new ChatMessageDto();
+        dto.setId(id);
+        dto.setContent("Deploy " + id + " is green, merging the sequence fix now");
+        dto.setType("CHANNEL");
+        dto.setMessageType("TEXT");
+        dto.setSenderId(7L);
+        dto.setSenderUsername("alice");
+        dto.setSenderAvatar("https://cdn.example.com/avatars/alice.png");
+        dto.setChannelId(3L);
+        dto.setChannelName("backend");
+        dto.setSeq(id);
+        dto.setReactions(Map.of("+1", 3));
+        dto.setTimestamp(LocalDateTime.of(2026, 10, 18, 9, 30));
+        return dto;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.devsync.benchmark;
+
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.support.IntegrationTest;
+import com.devsync.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Token checks/sec on the request path, from 4 threads: full signature verification,
+// cache hits for a working set that fits the cache, and a working set twice the cache
+// size cycled in order, where every lookup misses and evicts (the LRU worst case).
+// mvn -P benchmarks test-compile exec:exec -Dbenchmark=JwtAuthBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtAuthBenchmark {
+
+    private static final int CACHE_SIZE = 10_000;
+
+    private JwtUtils jwtUtils;
+    private JwtParser parser;
+    private String[] hotTokens;
+    private String[] churnTokens;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", IntegrationTest.JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "maxCachedTokens", CACHE_SIZE);
+        jwtUtils.init();
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(IntegrationTest.JWT_SECRET)))
+                .build();
+
+        hotTokens = tokens(0, CACHE_SIZE / 10);
+        churnTokens = tokens(CACHE_SIZE, CACHE_SIZE * 2);
+        for (String token : hotTokens) {
+            jwtUtils.parseClaims(token);
+        }
+    }
+
+    @Benchmark
+    public Claims verifyOnly() {
+        return parser.parseClaimsJws(hotTokens[ThreadLocalRandom.current().nextInt(hotTokens.length)]).getBody();
+    }
+
+    @Benchmark
+    public Claims cachedHit() {
+        return jwtUtils.parseClaims(hotTokens[ThreadLocalRandom.current().nextInt(hotTokens.length)]);
+    }
+
+    @Benchmark
+    public Claims cacheChurn(Cursor cursor) {
+        return jwtUtils.parseClaims(churnTokens[cursor.next(churnTokens.length)]);
+    }
+
+    private String[] tokens(long firstUserId, int count) {
+        String[] tokens = new String[count];
+        for (int i = 0; i < count; i++) {
+            long userId = firstUserId + i;
+            UserDetailsImpl user = new UserDetailsImpl(userId, "user" + userId, "user" + userId + "@example.com", null,
+                    List.of(new SimpleGrantedAuthority("ROLE_USER")));
+            tokens[i] = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        }
+        return tokens;
+    }
+
+    // Each thread walks the tokens in order from its own starting point
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(1 << 20);
+
+        int next(int length) {
+            return position++ % length;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.devsync.benchmark;
+
+import com.devsync.entity.Channel;
+import com.devsync.entity.Message;
+import com.devsync.entity.MessageType;
+import com.devsync.entity.User;
+import com.devsync.repository.MessageJdbcRepository;
+import com.devsync.support.TestDatabase;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Messages/sec of the old IDENTITY write path (one INSERT ... RETURNING id round trip per
+// message) against pooled ids with batched inserts, for a bulk import of 500 messages
+// and for bursts of single messages from concurrent senders.
+// mvn -P benchmarks test-compile exec:exec -Dbenchmark=MessageInsertBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageInsertBenchmark {
+
+    private static final int BULK_SIZE = 500;
+
+    private static final String IDENTITY_INSERT_SQL =
+            "INSERT INTO messages (content, sender_id, channel_id, type, is_edited, created_at, updated_at, seq) " +
+            "VALUES (?, ?, ?, 'TEXT', false, ?, ?, ?) RETURNING id";
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private MessageJdbcRepository messageJdbcRepository;
+    private User sender;
+    private Channel channel;
+
+    // Unique (channel_id, seq) per row
+    private final AtomicLong seq = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        // Pooled like the application, so connection setup does not dominate
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(TestDatabase.jdbcUrl());
+        dataSource.setUsername("postgres");
+        dataSource.setPassword("postgres");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        messageJdbcRepository = new MessageJdbcRepository();
+        ReflectionTestUtils.setField(messageJdbcRepository, "jdbcTemplate", jdbcTemplate);
+
+        long suffix = System.nanoTime() % 1_000_000_000_000L;
+        sender = new User();
+        sender.setId(jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, email, password) VALUES (?, ?, 'x') RETURNING id", Long.class,
+                "b" + suffix, "b" + suffix + "@example.com"));
+        channel = new Channel();
+        channel.setId(jdbcTemplate.queryForObject(
+                "INSERT INTO channels (name, created_by) VALUES (?, ?) RETURNING id", Long.class,
+                "bench" + suffix, sender.getId()));
+        seq.set(jdbcTemplate.queryForObject("SELECT coalesce(max(seq), 0) FROM messages", Long.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void bulkImportIdentity() {
+        for (int i = 0; i < BULK_SIZE; i++) {
+            insertIdentity();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void bulkImportPooledBatch(IdBlock ids) {
+        List<Message> messages = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            messages.add(message(ids.next(messageJdbcRepository)));
+        }
+        messageJdbcRepository.insertBatch(messages);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void burstIdentity() {
+        insertIdentity();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void burstPooled(IdBlock ids) {
+        messageJdbcRepository.insertBatch(List.of(message(ids.next(messageJdbcRepository))));
+    }
+
+    private void insertIdentity() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.queryForObject(IDENTITY_INSERT_SQL, Long.class,
+                "benchmark message", sender.getId(), channel.getId(), now, now, seq.incrementAndGet());
+    }
+
+    private Message message(long id) {
+        Message message = new Message();
+        message.setId(id);
+        message.setContent("benchmark message");
+        message.setSender(sender);
+        message.setChannel(channel);
+        message.setType(MessageType.TEXT);
+        message.setCreatedAt(LocalDateTime.now());
+        message.setSeq(seq.incrementAndGet());
+        return message;
+    }
+
+    // Pooled-lo ids per benchmark thread, one nextval per Message.ID_ALLOCATION_SIZE messages
+    @State(Scope.Thread)
+    public static class IdBlock {
+        private long next;
+        private long end;
+
+        long next(MessageJdbcRepository repository) {
+            if (next >= end) {
+                next = repository.reserveIdBlock();
+                end = next + Message.ID_ALLOCATION_SIZE;
+            }
+            return next++;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.devsync.benchmark;
+
+import com.devsync.dto.MessageSearchResultDto;
+import com.devsync.repository.MessageJdbcRepository;
+import com.devsync.support.TestDatabase;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Latency of one search page (21 rows, as ChatService asks for a page of 20) over
+// 100k messages in 50 channels, half of them private; the searcher belongs to 10.
+// A rare word matches ~100 messages, a common one ~19% of them, so the common word
+// ranks tens of thousands of rows before the LIMIT. deepPage is the last page
+// chat.search.max-results lets anyone reach.
+// mvn -P benchmarks test-compile exec:exec -Dbenchmark=SearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int MESSAGES = 100_000;
+    private static final int CHANNELS = 50;
+    private static final int MEMBER_CHANNELS = 10;
+    private static final int PAGE = 20;
+    private static final int MAX_RESULTS = 1000;
+
+    // Two words per message from ten, and one message in a thousand mentions kubernetes
+    private static final String SEED_SQL =
+            "INSERT INTO messages (content, sender_id, channel_id, type, created_at, updated_at, seq) " +
+            "SELECT 'note ' || i || ' ' || w[1 + i % 10] || ' ' || w[1 + (i / 10) % 10] || " +
+            "CASE WHEN i % 1000 = 0 THEN ' kubernetes' ELSE '' END, " +
+            "?, c[1 + i % array_length(c, 1)], 'TEXT', now() - i * interval '1 second', now() - i * interval '1 second', " +
+            "i / array_length(c, 1) + 1 " +
+            "FROM generate_series(0, ? - 1) i, " +
+            "(SELECT ?::bigint[] AS c, ARRAY['deploy', 'build', 'review', 'merge', 'release', " +
+            "'rollback', 'staging', 'incident', 'standup', 'lunch'] AS w) v";
+
+    private HikariDataSource dataSource;
+    private MessageJdbcRepository messageJdbcRepository;
+    private long searcherId;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(TestDatabase.jdbcUrl());
+        dataSource.setUsername("postgres");
+        dataSource.setPassword("postgres");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        messageJdbcRepository = new MessageJdbcRepository();
+        ReflectionTestUtils.setField(messageJdbcRepository, "jdbcTemplate", jdbcTemplate);
+
+        long suffix = System.nanoTime() % 1_000_000_000_000L;
+        long senderId = createUser(jdbcTemplate, "s" + suffix);
+        searcherId = createUser(jdbcTemplate, "q" + suffix);
+        List<Long> channelIds = jdbcTemplate.queryForList(
+                "INSERT INTO channels (name, created_by, is_private) " +
+                "SELECT ? || '-' || g, ?, g % 2 = 0 FROM generate_series(1, ?) g RETURNING id",
+                Long.class, "search" + suffix, senderId, CHANNELS);
+        for (long channelId : channelIds.subList(0, MEMBER_CHANNELS)) {
+            jdbcTemplate.update("INSERT INTO channel_members (channel_id, user_id) VALUES (?, ?)", channelId, searcherId);
+        }
+        String channelArray = channelIds.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.update(SEED_SQL, senderId, MESSAGES, channelArray);
+        jdbcTemplate.execute("ANALYZE messages");
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<MessageSearchResultDto> rareWord() {
+        return messageJdbcRepository.search(searcherId, "kubernetes", PAGE + 1, 0);
+    }
+
+    @Benchmark
+    public List<MessageSearchResultDto> commonWord() {
+        return messageJdbcRepository.search(searcherId, "release", PAGE + 1, 0);
+    }
+
+    @Benchmark
+    public List<MessageSearchResultDto> phrase() {
+        return messageJdbcRepository.search(searcherId, "\"deploy release\"", PAGE + 1, 0);
+    }
+
+    @Benchmark
+    public List<MessageSearchResultDto> deepPage() {
+        return messageJdbcRepository.search(searcherId, "release", PAGE + 1, MAX_RESULTS - PAGE);
+    }
+
+    private static long createUser(JdbcTemplate jdbcTemplate, String name) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, email, password) VALUES (?, ?, 'x') RETURNING id",
+                Long.class, name, name + "@example.com");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.devsync.benchmark;
+
+import com.devsync.DevSyncApplication;
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import com.devsync.support.TestDatabase;
+import com.devsync.utils.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Channel messages/sec through the whole STOMP path (inbound channel, @MessageMapping
+// handler with its insert, broker broadcast, outbound channel) for each
+// websocket.executor.profile. Every invocation sends a burst round robin from 16
+// sessions and waits until a subscriber has received all of it, so the inbound
+// executor has concurrent sessions to spread. The virtual profile needs a Java 21
+// runtime; on an older one its setup fails and JMH moves on to the other profiles.
+// mvn -P benchmarks test-compile exec:exec -Dbenchmark=StompExecutorBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StompExecutorBenchmark {
+
+    private static final int SENDERS = 16;
+    private static final int BURST = 200;
+
+    @Param({"default", "tuned", "virtual"})
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private WebSocketStompClient stompClient;
+    private StompSession[] senders;
+    private StompSession receiver;
+    private final Semaphore received = new Semaphore(0);
+    private long channelId;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(DevSyncApplication.class).run(
+                "--server.port=0",
+                "--websocket.executor.profile=" + profile,
+                "--spring.datasource.url=" + TestDatabase.jdbcUrl(),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--push.gateway=log",
+                "--jwt.secret=" + IntegrationTest.JWT_SECRET,
+                "--logging.level.com.devsync=WARN",
+                "--logging.level.org.springframework.security=WARN");
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        TestData testData = context.getBean(TestData.class);
+        long[] senderIds = new long[SENDERS];
+        for (int i = 0; i < SENDERS; i++) {
+            senderIds[i] = testData.createUser();
+        }
+        long receiverId = testData.createUser();
+        channelId = testData.createChannel(receiverId, senderIds);
+
+        receiver = connect(receiverId);
+        receiver.subscribe("/topic/channel." + channelId, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.release();
+            }
+        });
+        senders = new StompSession[SENDERS];
+        for (int i = 0; i < SENDERS; i++) {
+            senders[i] = connect(senderIds[i]);
+        }
+
+        // The subscription is live once a message makes it through
+        do {
+            send(senders[0]);
+        } while (!received.tryAcquire(1, TimeUnit.SECONDS));
+        received.drainPermits();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        // Sessions close before the context, whose executors reject their disconnect frames once stopped
+        if (senders != null) {
+            for (StompSession sender : senders) {
+                if (sender != null) {
+                    sender.disconnect();
+                }
+            }
+        }
+        if (receiver != null) {
+            receiver.disconnect();
+        }
+        Thread.sleep(500);
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void channelBurst() throws InterruptedException {
+        for (int i = 0; i < BURST; i++) {
+            send(senders[i % SENDERS]);
+        }
+        if (!received.tryAcquire(BURST, 60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Burst was not delivered within 60s");
+        }
+    }
+
+    private void send(StompSession session) {
+        session.send("/app/chat.send", Map.of(
+                "type", "CHANNEL",
+                "channelId", channelId,
+                "content", "benchmark message",
+                "messageType", "TEXT"));
+    }
+
+    private StompSession connect(long userId) throws Exception {
+        Map<String, Object> user = context.getBean(JdbcTemplate.class)
+                .queryForMap("SELECT username, email FROM users WHERE id = ?", userId);
+        UserDetailsImpl principal = new UserDetailsImpl(userId, (String) user.get("username"), (String) user.get("email"),
+                null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        String token = context.getBean(JwtUtils.class).generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        String url = "ws://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/ws-native";
+        return stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.devsync.config;
+
+import com.devsync.dto.ChatMessageDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactPayloadInterceptorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CompactPayloadInterceptor interceptor = new CompactPayloadInterceptor();
+
+    CompactPayloadInterceptorTest() {
+        ReflectionTestUtils.setField(interceptor, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(interceptor, "maxCachedPayloads", 16);
+    }
+
+    @Test
+    void cborSessionsGetElidedCborWithoutNulls() throws Exception {
+        connect("cbor-session", "cbor", "true");
+
+        Message<?> sent = interceptor.preSend(message("cbor-session", json(dto(42L))), null);
+
+        assertThat(StompHeaderAccessor.wrap(sent).getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        JsonNode decoded = new CBORMapper().readTree((byte[]) sent.getPayload());
+        assertThat(decoded.get("id").asLong()).isEqualTo(42L);
+        assertThat(decoded.get("seq").asLong()).isEqualTo(7L);
+        assertThat(decoded.get("reactions").get("+1").asInt()).isEqualTo(3);
+        assertThat(decoded.has("senderUsername")).isFalse();
+        assertThat(decoded.has("recipientId")).isFalse();
+    }
+
+    @Test
+    void elidedJsonSessionsMatchTheDtoWithoutNullsAndDisplayFields() throws Exception {
+        connect("json-session", null, "true");
+        ChatMessageDto dto = dto(43L);
+
+        Message<?> sent = interceptor.preSend(message("json-session", json(dto)), null);
+
+        ObjectNode expected = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL).valueToTree(dto);
+        expected.remove(List.of("senderUsername", "senderAvatar", "channelName"));
+        assertThat(StompHeaderAccessor.wrap(sent).getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        // Re-read, so numbers compare as parsed nodes rather than the Long nodes of valueToTree
+        assertThat(objectMapper.readTree((byte[]) sent.getPayload())).isEqualTo(objectMapper.readTree(expected.toString()));
+    }
+
+    @Test
+    void relayCopiesOfOneBroadcastAreTranscodedOnce() throws Exception {
+        connect("first", "cbor", "true");
+        connect("second", "cbor", "true");
+        byte[] payload = json(dto(44L));
+
+        // The relay delivers a separate copy of the frame for every subscription
+        Object first = interceptor.preSend(message("first", payload.clone()), null).getPayload();
+        Object second = interceptor.preSend(message("second", payload.clone()), null).getPayload();
+
+        assertThat(second).isSameAs(first);
+    }
+
+    private void connect(String sessionId, String format, String elide) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("nativeWebSocket", true);
+        accessor.setSessionAttributes(attributes);
+        if (format != null) {
+            accessor.setNativeHeader("payload-format", format);
+        }
+        accessor.setNativeHeader("payload-elide", elide);
+        accessor.setLeaveMutable(true);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private static Message<byte[]> message(String sessionId, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private byte[] json(ChatMessageDto dto) throws Exception {
+        return objectMapper.writeValueAsBytes(dto);
+    }
+
+    static ChatMessageDto dto(Long id) {
+        ChatMessageDto dto = new ChatMessageDto();
+        dto.setId(id);
+        dto.setContent("Deploy is green, merging the sequence fix now");
+        dto.setType("CHANNEL");
+        dto.setMessageType("TEXT");
+        dto.setSenderId(7L);
+        dto.setSenderUsername("alice");
+        dto.setSenderAvatar("https://cdn.example.com/avatars/alice.png");
+        dto.setChannelId(3L);
+        dto.setChannelName("backend");
+        dto.setSeq(7L);
+        dto.setReactions(Map.of("+1", 3));
+        dto.setTimestamp(LocalDateTime.of(2026, 10, 18, 9, 30));
+        return dto;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.devsync.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// One writer thread and a client whose first write blocks until the test releases it,
+// so every later frame waits in the session's queue
+class OutboundFanoutTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketSession client = mock(WebSocketSession.class);
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OutboundFanout fanout;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(client.getId()).thenReturn("session-1");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            delivered.add(((TextMessage) message).getPayload());
+            return null;
+        }).when(client).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        fanout.shutdown();
+    }
+
+    @Test
+    void dropDiscardsNewMessagesWhileTheQueueIsFull() throws Exception {
+        WebSocketSession session = connect("drop", 3, 1_000_000);
+        blockOn(session, message("/topic/a", "1"));
+        session.sendMessage(message("/topic/a", "2"));
+        session.sendMessage(message("/topic/b", "3"));
+        session.sendMessage(message("/topic/a", "4"));
+
+        session.sendMessage(message("/topic/a", "5"));
+
+        release.countDown();
+        awaitDelivered(4);
+        assertThat(bodies()).containsExactly("1", "2", "3", "4");
+        assertThat(frames("dropped")).isEqualTo(1);
+        verify(client, never()).close(any());
+    }
+
+    @Test
+    void coalesceKeepsTheNewestMessagePerDestination() throws Exception {
+        WebSocketSession session = connect("coalesce", 3, 1_000_000);
+        blockOn(session, message("/topic/a", "1"));
+        session.sendMessage(message("/topic/a", "2"));
+        session.sendMessage(message("/topic/b", "3"));
+        session.sendMessage(message("/topic/a", "4"));
+
+        session.sendMessage(message("/topic/a", "5"));
+
+        release.countDown();
+        awaitDelivered(3);
+        assertThat(bodies()).containsExactly("1", "3", "5");
+        assertThat(frames("coalesced")).isEqualTo(2);
+        assertThat(frames("dropped")).isZero();
+    }
+
+    @Test
+    void coalesceDropsWhenNothingQueuedSharesTheDestination() throws Exception {
+        WebSocketSession session = connect("coalesce", 2, 1_000_000);
+        blockOn(session, message("/topic/a", "1"));
+        session.sendMessage(message("/topic/a", "2"));
+        session.sendMessage(message("/topic/b", "3"));
+
+        session.sendMessage(message("/topic/c", "4"));
+
+        release.countDown();
+        awaitDelivered(3);
+        assertThat(bodies()).containsExactly("1", "2", "3");
+        assertThat(frames("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void disconnectClosesTheSessionAsNotReliable() throws Exception {
+        WebSocketSession session = connect("disconnect", 2, 1_000_000);
+        blockOn(session, message("/topic/a", "1"));
+        session.sendMessage(message("/topic/a", "2"));
+        session.sendMessage(message("/topic/a", "3"));
+
+        session.sendMessage(message("/topic/a", "4"));
+        session.sendMessage(message("/topic/a", "5"));
+
+        verify(client, times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(disconnects("overflow")).isEqualTo(1);
+        release.countDown();
+        awaitDelivered(1);
+        // The queued frames went with the session
+        Thread.sleep(100);
+        assertThat(bodies()).containsExactly("1");
+        assertThat(meterRegistry.get("websocket.fanout.queued.frames").gauge().value()).isZero();
+    }
+
+    @Test
+    void theByteLimitAppliesBeforeTheFrameLimit() throws Exception {
+        int frameSize = message("/topic/a", "1").getPayloadLength();
+        WebSocketSession session = connect("drop", 100, 2L * frameSize);
+        blockOn(session, message("/topic/a", "1"));
+        session.sendMessage(message("/topic/a", "2"));
+        session.sendMessage(message("/topic/a", "3"));
+
+        session.sendMessage(message("/topic/a", "4"));
+
+        release.countDown();
+        awaitDelivered(3);
+        assertThat(bodies()).containsExactly("1", "2", "3");
+        assertThat(frames("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void framesOtherThanMessagesAreNeverDiscarded() throws Exception {
+        WebSocketSession session = connect("drop", 1, 1_000_000);
+        blockOn(session, message("/topic/a", "1"));
+        session.sendMessage(message("/topic/a", "2"));
+
+        session.sendMessage(new TextMessage("RECEIPT\nreceipt-id:7\n\n\0"));
+        session.sendMessage(new TextMessage("\n"));
+        session.sendMessage(message("/topic/a", "3"));
+
+        release.countDown();
+        awaitDelivered(4);
+        assertThat(delivered.get(2)).startsWith("RECEIPT\n");
+        assertThat(delivered.get(3)).isEqualTo("\n");
+        assertThat(frames("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void aWriteBlockedPastTheSendTimeLimitClosesTheSession() throws Exception {
+        WebSocketSession session = connect("drop", 3, 1_000_000);
+        ReflectionTestUtils.setField(fanout, "sendTimeLimitMs", 50L);
+        blockOn(session, message("/topic/a", "1"));
+
+        fanout.closeStalledSessions();
+        verify(client, never()).close(any());
+        Thread.sleep(100);
+        fanout.closeStalledSessions();
+
+        verify(client).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(disconnects("send_timeout")).isEqualTo(1);
+    }
+
+    private WebSocketSession connect(String policy, int queueCapacity, long maxQueuedBytes) throws Exception {
+        fanout = new OutboundFanout();
+        ReflectionTestUtils.setField(fanout, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(fanout, "enabled", true);
+        ReflectionTestUtils.setField(fanout, "policyName", policy);
+        ReflectionTestUtils.setField(fanout, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(fanout, "maxQueuedBytes", maxQueuedBytes);
+        ReflectionTestUtils.setField(fanout, "writerThreads", 1);
+        ReflectionTestUtils.setField(fanout, "sendTimeLimitMs", 10_000L);
+        fanout.init();
+
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        fanout.decorate(handler).afterConnectionEstablished(client);
+        ArgumentCaptor<WebSocketSession> queued = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(queued.capture());
+        return queued.getValue();
+    }
+
+    // Sends the first frame and waits until the writer is stuck writing it
+    private void blockOn(WebSocketSession session, TextMessage first) throws Exception {
+        session.sendMessage(first);
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(delivered).hasSize(count);
+    }
+
+    private List<String> bodies() {
+        synchronized (delivered) {
+            return delivered.stream().map(frame -> frame.substring(frame.indexOf("\n\n") + 2, frame.length() - 1)).toList();
+        }
+    }
+
+    private double frames(String outcome) {
+        return meterRegistry.get("websocket.fanout.frames").tag("outcome", outcome).counter().count();
+    }
+
+    private double disconnects(String reason) {
+        return meterRegistry.get("websocket.fanout.disconnects").tag("reason", reason).counter().count();
+    }
+
+    private static TextMessage message(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\nmessage-id:" + body
+                + "\ncontent-length:" + body.length() + "\n\n" + body + "\0");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.devsync.config;
+
+import com.devsync.support.IntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@TestPropertySource(properties = "websocket.executor.profile=tuned")
+class WebSocketExecutorProfileTest extends IntegrationTest {
+
+    @Autowired
+    @Qualifier("clientInboundChannelExecutor")
+    private TaskExecutor inboundExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void tunedProfilePoolsInboundWorkAndPublishesItsMetrics() {
+        assertThat(inboundExecutor).isInstanceOf(ThreadPoolTaskExecutor.class);
+        assertThat(((ThreadPoolTaskExecutor) inboundExecutor).getMaxPoolSize()).isEqualTo(32);
+        // Tagged with the bean name as is, what dashboards have to filter on
+        assertThat(meterRegistry.find("executor.active").tag("name", "clientInboundChannelExecutor").gauge()).isNotNull();
+    }
+
+    @Test
+    void virtualProfileRefusesToStartBeforeJava21() {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        assertThatThrownBy(() -> WebSocketBrokerConfig.virtualThreadExecutor("stomp-inbound-", 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+    }
+
+    @Test
+    void virtualProfileStartsOneVirtualThreadPerMessage() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+
+        try (SimpleAsyncTaskExecutor executor = WebSocketBrokerConfig.virtualThreadExecutor("stomp-inbound-", 10)) {
+            assertThat(executor.getConcurrencyLimit()).isEqualTo(10);
+            assertThat(executor.submit(() -> Thread.currentThread().toString()).get()).contains("VirtualThread");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,255 @@
+package com.devsync.repository;
+
+import com.devsync.dto.ConversationSummaryDto;
+import com.devsync.dto.ReadMarkerDto;
+import com.devsync.entity.Channel;
+import com.devsync.entity.Message;
+import com.devsync.entity.User;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationSummaryRepositoryTest extends IntegrationTest {
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long alice;
+    private long bob;
+    private long carol;
+    private long channelId;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void seed() {
+        alice = testData.createUser();
+        bob = testData.createUser();
+        carol = testData.createUser();
+        channelId = testData.createChannel(alice, bob, carol);
+        start = LocalDateTime.of(2026, 1, 1, 12, 0);
+    }
+
+    @Test
+    void channelMessagesReachEveryMemberAndCountFromTheReadMarker() {
+        Message first = channelMessage(alice, 1);
+        conversationSummaryRepository.recordMessages(List.of(first));
+
+        ConversationSummaryDto bobsRow = channelRow(bob);
+        assertThat(bobsRow.getLastMessageId()).isEqualTo(first.getId());
+        assertThat(bobsRow.getLastSenderId()).isEqualTo(alice);
+        assertThat(bobsRow.getLastMessagePreview()).isEqualTo(first.getContent());
+        assertThat(bobsRow.getUnreadCount()).isEqualTo(1);
+        // The sender has read their own message
+        assertThat(channelRow(alice).getUnreadCount()).isZero();
+        assertThat(channelRow(alice).getLastReadMessageId()).isEqualTo(first.getId());
+
+        Message second = channelMessage(bob, 2);
+        conversationSummaryRepository.recordMessages(List.of(second));
+
+        assertThat(channelRow(alice).getUnreadCount()).isEqualTo(1);
+        assertThat(channelRow(bob).getUnreadCount()).isZero();
+        assertThat(channelRow(bob).getLastReadSeq()).isEqualTo(2L);
+        assertThat(channelRow(carol).getUnreadCount()).isEqualTo(2);
+        assertThat(channelRow(carol).getLastMessageId()).isEqualTo(second.getId());
+    }
+
+    @Test
+    void aMessageRecordedLateDoesNotReplaceANewerOne() {
+        Message older = channelMessage(bob, 1);
+        Message newer = channelMessage(carol, 2);
+
+        // Another instance's flush got the newer message in first
+        conversationSummaryRepository.recordMessages(List.of(newer));
+        conversationSummaryRepository.recordMessages(List.of(older));
+
+        ConversationSummaryDto alicesRow = channelRow(alice);
+        assertThat(alicesRow.getLastMessageId()).isEqualTo(newer.getId());
+        assertThat(alicesRow.getLastSenderId()).isEqualTo(carol);
+        assertThat(alicesRow.getLastMessageSeq()).isEqualTo(2L);
+        assertThat(alicesRow.getUnreadCount()).isEqualTo(2);
+        // The late message still counts as read by its sender, without moving the marker back
+        assertThat(channelRow(bob).getLastReadSeq()).isEqualTo(1L);
+        assertThat(channelRow(bob).getUnreadCount()).isEqualTo(1);
+        assertThat(channelRow(carol).getLastReadSeq()).isEqualTo(2L);
+    }
+
+    @Test
+    void directMessagesUpdateBothSides() {
+        Message hello = directMessage(alice, bob, 1);
+        Message toSelf = directMessage(carol, carol, 2);
+
+        conversationSummaryRepository.recordMessages(List.of(hello, toSelf));
+
+        ConversationSummaryDto alicesRow = directRow(alice, bob);
+        assertThat(alicesRow.getName()).isEqualTo(username(bob));
+        assertThat(alicesRow.getUnreadCount()).isZero();
+        ConversationSummaryDto bobsRow = directRow(bob, alice);
+        assertThat(bobsRow.getName()).isEqualTo(username(alice));
+        assertThat(bobsRow.getLastMessageId()).isEqualTo(hello.getId());
+        assertThat(bobsRow.getUnreadCount()).isEqualTo(1);
+        // A note to oneself is one conversation, already read
+        assertThat(conversationSummaryRepository.findInbox(carol, 10))
+                .filteredOn(summary -> "DIRECT".equals(summary.getType()))
+                .singleElement()
+                .satisfies(summary -> assertThat(summary.getUnreadCount()).isZero());
+    }
+
+    @Test
+    void readMarkersOnlyMoveForwardWithinTheirConversation() {
+        Message first = channelMessage(alice, 1);
+        Message second = channelMessage(alice, 2);
+        Message third = channelMessage(alice, 3);
+        long elsewhere = testData.insertChannelMessage(testData.createChannel(bob), bob, 1, start);
+        conversationSummaryRepository.recordMessages(List.of(first, second, third));
+
+        List<ReadMarkerDto> applied = conversationSummaryRepository.markRead(List.of(
+                marker(bob, second.getId()),
+                marker(carol, elsewhere)));
+
+        assertThat(applied).extracting(ReadMarkerDto::getUserId).containsExactly(bob);
+        assertThat(channelRow(bob).getUnreadCount()).isEqualTo(1);
+        assertThat(channelRow(carol).getUnreadCount()).isEqualTo(3);
+
+        assertThat(conversationSummaryRepository.markRead(List.of(marker(bob, first.getId())))).isEmpty();
+        assertThat(channelRow(bob).getLastReadMessageId()).isEqualTo(second.getId());
+
+        conversationSummaryRepository.markRead(List.of(marker(bob, third.getId())));
+        assertThat(channelRow(bob).getUnreadCount()).isZero();
+    }
+
+    @Test
+    void directReadMarkersMustPointIntoTheConversation() {
+        Message toBob = directMessage(alice, bob, 1);
+        Message toCarol = directMessage(alice, carol, 2);
+        conversationSummaryRepository.recordMessages(List.of(toBob, toCarol));
+
+        List<ReadMarkerDto> applied = conversationSummaryRepository.markRead(List.of(
+                new ReadMarkerDto(bob, null, "DIRECT", alice, toCarol.getId()),
+                new ReadMarkerDto(carol, null, "DIRECT", alice, toCarol.getId())));
+
+        assertThat(applied).extracting(ReadMarkerDto::getUserId).containsExactly(carol);
+        assertThat(directRow(bob, alice).getUnreadCount()).isEqualTo(1);
+        assertThat(directRow(carol, alice).getUnreadCount()).isZero();
+    }
+
+    @Test
+    void newMembersStartAtTheLatestMessageWithNothingUnread() {
+        Message latest = channelMessage(alice, 1);
+        conversationSummaryRepository.recordMessages(List.of(latest));
+        long dave = testData.createUser();
+        long emptyChannel = testData.createChannel(alice);
+
+        conversationSummaryRepository.addChannelMember(dave, channelId);
+        conversationSummaryRepository.addChannelMember(dave, emptyChannel);
+        // Joining twice keeps the existing row
+        conversationSummaryRepository.addChannelMember(dave, channelId);
+
+        ConversationSummaryDto joined = row(dave, "CHANNEL", channelId);
+        assertThat(joined.getLastMessageId()).isEqualTo(latest.getId());
+        assertThat(joined.getLastSenderUsername()).isEqualTo(username(alice));
+        assertThat(joined.getUnreadCount()).isZero();
+        ConversationSummaryDto empty = row(dave, "CHANNEL", emptyChannel);
+        assertThat(empty.getLastMessageId()).isNull();
+        assertThat(empty.getUnreadCount()).isZero();
+    }
+
+    @Test
+    void inboxListsTheMostRecentConversationsFirst() {
+        long quiet = testData.createChannel(alice, bob);
+        long busy = testData.createChannel(alice, bob);
+        conversationSummaryRepository.recordMessages(List.of(
+                message(quiet, alice, 1, start.plusMinutes(1)),
+                directMessage(bob, alice, 1),
+                message(busy, bob, 1, start.plusMinutes(5))));
+        conversationSummaryRepository.addChannelMember(alice, testData.createChannel(carol));
+
+        List<ConversationSummaryDto> inbox = conversationSummaryRepository.findInbox(alice, 3);
+
+        assertThat(inbox).extracting(ConversationSummaryDto::getConversationId).containsExactly(busy, quiet, bob);
+        assertThat(inbox.get(0).getName()).isNotBlank();
+        assertThat(inbox.get(0).getAvatar()).isNull();
+    }
+
+    @Test
+    void previewsAreCutTo200Characters() {
+        Message longMessage = channelMessage(alice, 1);
+        longMessage.setContent("x".repeat(500));
+
+        conversationSummaryRepository.recordMessages(List.of(longMessage));
+
+        assertThat(channelRow(bob).getLastMessagePreview()).hasSize(200);
+    }
+
+    private Message channelMessage(long senderId, long seq) {
+        return message(channelId, senderId, seq, start.plusSeconds(seq));
+    }
+
+    private Message message(long channel, long senderId, long seq, LocalDateTime createdAt) {
+        Message message = new Message();
+        message.setId(testData.insertChannelMessage(channel, senderId, seq, createdAt));
+        message.setSender(user(senderId));
+        Channel target = new Channel();
+        target.setId(channel);
+        message.setChannel(target);
+        message.setContent("message " + seq);
+        message.setSeq(seq);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+
+    private Message directMessage(long senderId, long recipientId, long seq) {
+        LocalDateTime createdAt = start.plusSeconds(seq);
+        Message message = new Message();
+        message.setId(testData.insertDirectMessage(senderId, recipientId, seq, createdAt));
+        message.setSender(user(senderId));
+        message.setRecipient(user(recipientId));
+        message.setContent("message " + seq);
+        message.setSeq(seq);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+
+    private User user(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username(userId));
+        return user;
+    }
+
+    private String username(long userId) {
+        return jdbcTemplate.queryForObject("SELECT username FROM users WHERE id = ?", String.class, userId);
+    }
+
+    private ReadMarkerDto marker(long userId, long messageId) {
+        return new ReadMarkerDto(userId, null, "CHANNEL", channelId, messageId);
+    }
+
+    private ConversationSummaryDto channelRow(long userId) {
+        return row(userId, "CHANNEL", channelId);
+    }
+
+    private ConversationSummaryDto directRow(long userId, long peerId) {
+        return row(userId, "DIRECT", peerId);
+    }
+
+    private ConversationSummaryDto row(long userId, String type, long conversationId) {
+        return conversationSummaryRepository.findInbox(userId, 100).stream()
+                .filter(summary -> type.equals(summary.getType()) && summary.getConversationId() == conversationId)
+                .findFirst()
+                .orElseThrow();
+    }
+}
\ No newline at end of file
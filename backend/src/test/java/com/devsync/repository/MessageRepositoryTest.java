@@ -0,0 +1,88 @@
+package com.devsync.repository;
+
+import com.devsync.entity.Message;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.SqlCapture;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageRepositoryTest extends IntegrationTest {
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long channelId;
+    private long[] ids;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void seed() {
+        long sender = testData.createUser();
+        channelId = testData.createChannel(sender);
+        start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        ids = new long[10];
+        // Pairs share a timestamp, so the id tiebreak matters
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = testData.insertChannelMessage(channelId, sender, i + 1, start.plusSeconds(i / 2));
+        }
+    }
+
+    @Test
+    void pagesBackwardsAcrossEqualTimestamps() {
+        Slice<Message> page = messageRepository.findChannelMessagesBefore(
+                channelId, start.plusSeconds(3), ids[6], PageRequest.of(0, 3));
+
+        assertThat(page.getContent()).extracting(Message::getId).containsExactly(ids[5], ids[4], ids[3]);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void pagesForwardsAcrossEqualTimestamps() {
+        Slice<Message> page = messageRepository.findChannelMessagesAfter(
+                channelId, start.plusSeconds(1), ids[2], PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).extracting(Message::getId)
+                .containsExactly(ids[3], ids[4], ids[5], ids[6], ids[7], ids[8], ids[9]);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void cursorIsAnIndexRangeSeek() {
+        SqlCapture.clear();
+        messageRepository.findChannelMessagesBefore(channelId, start.plusSeconds(3), ids[6], PageRequest.of(0, 3));
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements).hasSize(1);
+        String sql = statements.get(0);
+        assertThat(sql).containsPattern("row\\(\\w+\\.created_at,\\s*\\w+\\.id\\)\\s*<\\s*row\\(\\?,\\s*\\?\\)");
+
+        // The row comparison has to be part of the index condition, not a filter on the prefix match
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class,
+                    channelId, start.plusSeconds(3), ids[6], 0, 4));
+        });
+        assertThat(plan).contains("idx_messages_channel_keyset");
+        assertThat(plan).containsPattern("Index Cond: .*ROW\\(created_at, id\\) <");
+        assertThat(plan).doesNotContainPattern("(?m)^\\s*Filter:");
+    }
+}
\ No newline at end of file
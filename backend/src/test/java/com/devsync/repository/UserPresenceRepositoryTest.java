@@ -0,0 +1,64 @@
+package com.devsync.repository;
+
+import com.devsync.repository.UserPresenceRepository.PresenceChange;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserPresenceRepositoryTest extends IntegrationTest {
+
+    @Autowired
+    private UserPresenceRepository userPresenceRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void staleOfflineFromAnotherInstanceDoesNotOverrideOnline() {
+        long userId = testData.createUser();
+        Instant wentOffline = Instant.parse("2026-01-01T12:00:00Z");
+        Instant cameBack = wentOffline.plusSeconds(2);
+
+        // The instance that saw the reconnect flushes first
+        userPresenceRepository.updatePresence(List.of(new PresenceChange(userId, true, cameBack)), 100);
+        userPresenceRepository.updatePresence(List.of(new PresenceChange(userId, false, wentOffline)), 100);
+
+        assertThat(isOnline(userId)).isTrue();
+    }
+
+    @Test
+    void newerChangesApplyAndOnlineResetsTheStatus() {
+        long userId = testData.createUser();
+        long otherId = testData.createUser();
+        jdbcTemplate.update("UPDATE users SET status = 'AWAY' WHERE id IN (?, ?)", userId, otherId);
+        Instant at = Instant.parse("2026-01-01T12:00:00Z");
+
+        userPresenceRepository.updatePresence(List.of(
+                new PresenceChange(userId, true, at),
+                new PresenceChange(otherId, false, at)), 100);
+        assertThat(isOnline(userId)).isTrue();
+        assertThat(status(userId)).isEqualTo("ACTIVE");
+        assertThat(status(otherId)).isEqualTo("AWAY");
+
+        userPresenceRepository.updatePresence(List.of(new PresenceChange(userId, false, at.plusSeconds(1))), 100);
+        assertThat(isOnline(userId)).isFalse();
+    }
+
+    private boolean isOnline(long userId) {
+        return jdbcTemplate.queryForObject("SELECT is_online FROM users WHERE id = ?", Boolean.class, userId);
+    }
+
+    private String status(long userId) {
+        return jdbcTemplate.queryForObject("SELECT status::text FROM users WHERE id = ?", String.class, userId);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.devsync.security;
+
+import com.devsync.repository.TokenRevocationRepository;
+import com.devsync.support.TestRedis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RedisRevocationRelayTest {
+
+    private final List<RedisRevocationRelay> relays = new ArrayList<>();
+
+    @AfterEach
+    void stopRelays() throws Exception {
+        for (RedisRevocationRelay relay : relays) {
+            relay.stop();
+        }
+    }
+
+    @Test
+    void revocationReachesTheOtherInstances() throws Exception {
+        UserAuthCache first = cache();
+        UserAuthCache second = cache();
+        long issuedAt = System.currentTimeMillis() - 5_000;
+
+        first.invalidate(41L);
+
+        assertThat(first.isRevoked(41L, issuedAt)).isTrue();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!second.isRevoked(41L, issuedAt) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(second.isRevoked(41L, issuedAt)).isTrue();
+        assertThat(second.isRevoked(42L, issuedAt)).isFalse();
+    }
+
+    @Test
+    void laterInstancesLoadTheStoredMarks() {
+        long issuedAt = System.currentTimeMillis() - 5_000;
+        cache().invalidate(43L);
+
+        UserAuthCache started = cache();
+
+        assertThat(started.isRevoked(43L, issuedAt)).isTrue();
+        assertThat(started.isRevoked(43L, System.currentTimeMillis() + 1_000)).isFalse();
+    }
+
+    private UserAuthCache cache() {
+        StringRedisTemplate template = TestRedis.template();
+        RedisRevocationRelay relay = new RedisRevocationRelay();
+        ReflectionTestUtils.setField(relay, "redisTemplate", template);
+        ReflectionTestUtils.setField(relay, "connectionFactory", template.getConnectionFactory());
+        ReflectionTestUtils.setField(relay, "jwtExpirationMs", 60_000L);
+        relays.add(relay);
+
+        // No stored marks, so whatever a cache knows came through the relay
+        TokenRevocationRepository repository = mock(TokenRevocationRepository.class);
+        UserAuthCache cache = new UserAuthCache();
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "reloadMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxMarks", 1000);
+        ReflectionTestUtils.setField(cache, "revocationRepository", repository);
+        ReflectionTestUtils.setField(cache, "revocationRelay", relay);
+        cache.init();
+        return cache;
+    }
+}
\ No newline at end of file
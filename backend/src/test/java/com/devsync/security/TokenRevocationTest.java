@@ -0,0 +1,198 @@
+package com.devsync.security;
+
+import com.devsync.repository.TokenRevocationRepository;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import com.devsync.utils.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class TokenRevocationTest extends IntegrationTest {
+
+    private static final String PASSWORD = "secret-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private UserAuthCache userAuthCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenRevocationRepository revocationRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Test
+    void passwordChangeRevokesEarlierTokens() throws Exception {
+        String username = createUser();
+        String token = signIn(username, PASSWORD);
+        nextMillisecond();
+
+        mockMvc.perform(put("/api/users/password").header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("currentPassword", PASSWORD, "newPassword", "secret-2"))))
+                .andExpect(status().isOk());
+
+        expectProfile(token, 401);
+        nextMillisecond();
+        expectProfile(signIn(username, "secret-2"), 200);
+    }
+
+    @Test
+    void tokensIssuedLaterInTheSameSecondStillWork() throws Exception {
+        String username = createUser();
+        String before = signIn(username, PASSWORD);
+        // Right after a second starts, so the revocation and the new token share it
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+        nextMillisecond();
+
+        userAuthCache.invalidate(idOf(username));
+        nextMillisecond();
+        String after = signIn(username, PASSWORD);
+
+        expectProfile(before, 401);
+        expectProfile(after, 200);
+    }
+
+    @Test
+    void revocationsAreReadBackFromTheDatabase() throws Exception {
+        String username = createUser();
+        long userId = idOf(username);
+        String token = signIn(username, PASSWORD);
+        expectProfile(token, 200);
+        nextMillisecond();
+
+        // Another instance revoking, with no relay between them
+        otherInstance().invalidate(userId);
+
+        assertThat(revocationRepository.findCutoff(userId)).isNotNull();
+        // This instance trusts its cached copy until it is reloaded
+        expectProfile(token, 200);
+        UserAuthCache restarted = otherInstance();
+        assertThat(restarted.isRevoked(userId, JwtUtils.issuedAtMillis(jwtUtils.parseClaims(token)))).isTrue();
+        assertThat(restarted.isRevoked(userId, System.currentTimeMillis() + 1)).isFalse();
+        assertThat(restarted.isRevoked(testData.createUser(), null)).isFalse();
+    }
+
+    @Test
+    void signOutRevokesTheToken() throws Exception {
+        String token = signIn(createUser(), PASSWORD);
+        nextMillisecond();
+
+        mockMvc.perform(post("/api/auth/signout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        expectProfile(token, 401);
+    }
+
+    @Test
+    void roleChangeRevokesTheTargetsTokens() throws Exception {
+        String username = createUser();
+        long userId = idOf(username);
+        String token = signIn(username, PASSWORD);
+        String admin = createUser();
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'ROLE_ADMIN'", idOf(admin));
+        String adminToken = signIn(admin, PASSWORD);
+        nextMillisecond();
+
+        mockMvc.perform(put("/api/users/" + userId + "/roles").header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new String[]{"mod"})))
+                .andExpect(status().isOk());
+
+        expectProfile(token, 401);
+        expectProfile(adminToken, 200);
+    }
+
+    @Test
+    void tokensWithoutUserIdAreCheckedAfterTheDatabaseLookup() throws Exception {
+        String username = createUser();
+        String token = Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+        expectProfile(token, 200);
+        nextMillisecond();
+
+        userAuthCache.invalidate(idOf(username));
+
+        expectProfile(token, 401);
+    }
+
+    private UserAuthCache otherInstance() {
+        UserAuthCache cache = new UserAuthCache();
+        ReflectionTestUtils.setField(cache, "reloadMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxMarks", 10);
+        ReflectionTestUtils.setField(cache, "revocationRepository", revocationRepository);
+        return cache;
+    }
+
+    private String createUser() {
+        long id = testData.createUser();
+        jdbcTemplate.update("UPDATE users SET password = ? WHERE id = ?", encoder.encode(PASSWORD), id);
+        return jdbcTemplate.queryForObject("SELECT username FROM users WHERE id = ?", String.class, id);
+    }
+
+    private long idOf(String username) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private String signIn(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("username", username, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("accessToken").asText();
+    }
+
+    private void expectProfile(String token, int expectedStatus) throws Exception {
+        mockMvc.perform(get("/api/users/profile").header("Authorization", "Bearer " + token))
+                .andExpect(status().is(expectedStatus));
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    // A revocation also rejects tokens issued in its own millisecond
+    private static void nextMillisecond() throws InterruptedException {
+        Thread.sleep(2);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.devsync.service;
+
+import com.devsync.dto.AttachmentDto;
+import com.devsync.payload.request.AttachmentUploadRequest;
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import com.devsync.utils.JwtUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Uploads go through the local blob store under target/test-attachments. File contents
+// are random, so content-addressed blobs from other tests or runs never collide
+@AutoConfigureMockMvc
+class AttachmentServiceTest extends IntegrationTest {
+
+    private static final int FILE_SIZE = 300_000;
+    private static final int CHUNK_SIZE = 100_000;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long alice;
+    private long bob;
+    private long messageId;
+
+    @BeforeEach
+    void seed() {
+        alice = testData.createUser();
+        bob = testData.createUser();
+        long channelId = testData.createChannel(alice, bob);
+        messageId = testData.insertChannelMessage(channelId, alice, 1, LocalDateTime.of(2026, 1, 1, 12, 0));
+    }
+
+    @Test
+    void uploadsResumeAfterADroppedChunk() throws Exception {
+        byte[] content = randomBytes(FILE_SIZE);
+        long id = createUpload(content.length);
+
+        putChunk(id, content, 0, CHUNK_SIZE).andExpect(status().isOk())
+                .andExpect(jsonPath("$.receivedBytes").value(CHUNK_SIZE));
+
+        // The connection drops halfway through the second chunk
+        AttachmentDto dropped = attachmentService.appendChunk(alice, id, CHUNK_SIZE, 2L * CHUNK_SIZE - 1, content.length,
+                droppingAfter(content, CHUNK_SIZE, CHUNK_SIZE / 2));
+        assertThat(dropped.getStatus()).isEqualTo("UPLOADING");
+        assertThat(dropped.getReceivedBytes()).isEqualTo(CHUNK_SIZE + CHUNK_SIZE / 2);
+
+        // Sending the whole chunk again is refused with the offset to resume from
+        putChunk(id, content, CHUNK_SIZE, CHUNK_SIZE).andExpect(status().isConflict())
+                .andExpect(jsonPath("$.receivedBytes").value(CHUNK_SIZE + CHUNK_SIZE / 2));
+        putChunk(id, content, CHUNK_SIZE + CHUNK_SIZE / 2, content.length - CHUNK_SIZE - CHUNK_SIZE / 2)
+                .andExpect(status().isOk());
+
+        AttachmentDto ready = awaitReady(id);
+        assertThat(ready.getReceivedBytes()).isEqualTo(content.length);
+        assertThat(download(id, null).getResponse().getContentAsByteArray()).isEqualTo(content);
+        // Only the uploader sees the upload, everyone in the channel sees the attachment
+        assertThat(attachmentService.getAttachment(bob, id).getStatus()).isEqualTo("READY");
+        putChunk(id, content, 0, CHUNK_SIZE).andExpect(status().isConflict());
+    }
+
+    @Test
+    void identicalFilesShareOneBlob() throws Exception {
+        byte[] content = randomBytes(FILE_SIZE / 3);
+        double deduplicated = processed("deduplicated");
+
+        long first = upload(content);
+        awaitReady(first);
+        long second = upload(content);
+        AttachmentDto ready = awaitReady(second);
+
+        assertThat(ready.getContentHash()).isEqualTo(attachmentService.getAttachment(alice, first).getContentHash());
+        String firstKey = storageKey(first);
+        assertThat(storageKey(second)).isEqualTo(firstKey).startsWith("blobs/");
+        assertThat(blobStore.exists(firstKey)).isTrue();
+        // The second staging copy was dropped rather than kept next to the shared blob
+        assertThat(blobStore.exists("uploads/" + second)).isFalse();
+        assertThat(processed("deduplicated")).isEqualTo(deduplicated + 1);
+        assertThat(download(second, null).getResponse().getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void downloadsHonourASingleByteRange() throws Exception {
+        byte[] content = randomBytes(FILE_SIZE / 3);
+        long id = upload(content);
+        String etag = "\"" + awaitReady(id).getContentHash() + "\"";
+
+        MvcResult middle = download(id, "bytes=100-199");
+        assertThat(middle.getResponse().getStatus()).isEqualTo(206);
+        assertThat(middle.getResponse().getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/" + content.length);
+        assertThat(middle.getResponse().getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+
+        MvcResult tail = download(id, "bytes=-10");
+        assertThat(tail.getResponse().getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, content.length - 10, content.length));
+
+        MvcResult whole = download(id, null);
+        assertThat(whole.getResponse().getStatus()).isEqualTo(200);
+        assertThat(whole.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(whole.getResponse().getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+
+        assertThat(download(id, "bytes=" + content.length + "-").getResponse().getStatus()).isEqualTo(416);
+        mockMvc.perform(get("/api/attachments/" + id + "/content").header("Authorization", bearer(bob))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void unfinishedDownloadsAreRefused() throws Exception {
+        long id = createUpload(FILE_SIZE);
+
+        assertThat(download(id, null).getResponse().getStatus()).isEqualTo(409);
+        long outsider = testData.createUser();
+        mockMvc.perform(get("/api/attachments/" + id + "/content").header("Authorization", bearer(outsider)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void theSweepRemovesAbandonedUploadsAndRestartsStuckProcessing() throws Exception {
+        byte[] content = randomBytes(FILE_SIZE / 3);
+        long abandoned = createUpload(content.length);
+        attachmentService.appendChunk(alice, abandoned, 0, CHUNK_SIZE / 2 - 1, content.length, new ByteArrayInputStream(content));
+        long active = createUpload(content.length);
+        attachmentService.appendChunk(alice, active, 0, CHUNK_SIZE / 2 - 1, content.length, new ByteArrayInputStream(content));
+        // Complete, but the processing was lost with a restart
+        long stuck = createUpload(content.length);
+        blobStore.append("uploads/" + stuck, 0, new ByteArrayInputStream(content), content.length);
+        jdbcTemplate.update("UPDATE message_attachments SET status = 'PROCESSING' WHERE id = ?", stuck);
+        jdbcTemplate.update("UPDATE message_attachments SET updated_at = now() - interval '2 days' WHERE id IN (?, ?)", abandoned, stuck);
+
+        attachmentService.sweep();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM message_attachments WHERE id = ?", Integer.class, abandoned)).isZero();
+        assertThat(blobStore.exists("uploads/" + abandoned)).isFalse();
+        assertThat(attachmentService.getUpload(alice, active).getReceivedBytes()).isEqualTo(CHUNK_SIZE / 2);
+        assertThat(awaitReady(stuck).getContentHash()).isNotNull();
+    }
+
+    private long upload(byte[] content) throws Exception {
+        long id = createUpload(content.length);
+        putChunk(id, content, 0, content.length).andExpect(status().isOk());
+        return id;
+    }
+
+    private long createUpload(long size) {
+        AttachmentUploadRequest request = new AttachmentUploadRequest();
+        request.setMessageId(messageId);
+        request.setFileName("notes/report.bin");
+        request.setMimeType("application/octet-stream");
+        request.setSize(size);
+        return attachmentService.createUpload(alice, request).getId();
+    }
+
+    private ResultActions putChunk(long id, byte[] content, int start, int length) throws Exception {
+        return mockMvc.perform(put("/api/attachments/uploads/" + id)
+                .header("Authorization", bearer(alice))
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + content.length)
+                .content(Arrays.copyOfRange(content, start, start + length)));
+    }
+
+    private MvcResult download(long id, String range) throws Exception {
+        var request = get("/api/attachments/" + id + "/content").header("Authorization", bearer(bob));
+        if (range != null) {
+            request.header(HttpHeaders.RANGE, range);
+        }
+        return mockMvc.perform(request).andReturn();
+    }
+
+    private AttachmentDto awaitReady(long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        AttachmentDto upload = attachmentService.getUpload(alice, id);
+        while (!"READY".equals(upload.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            upload = attachmentService.getUpload(alice, id);
+        }
+        assertThat(upload.getStatus()).isEqualTo("READY");
+        return upload;
+    }
+
+    private String storageKey(long id) {
+        return jdbcTemplate.queryForObject("SELECT storage_key FROM message_attachments WHERE id = ?", String.class, id);
+    }
+
+    private double processed(String outcome) {
+        return meterRegistry.counter("attachments.processed", "outcome", outcome).count();
+    }
+
+    private String bearer(long userId) {
+        Map<String, Object> user = jdbcTemplate.queryForMap("SELECT username, email FROM users WHERE id = ?", userId);
+        UserDetailsImpl principal = new UserDetailsImpl(userId, (String) user.get("username"), (String) user.get("email"),
+                null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return "Bearer " + jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    // Delivers count bytes from offset, then fails like a dropped connection
+    private static InputStream droppingAfter(byte[] content, int offset, int count) {
+        InputStream delivered = new ByteArrayInputStream(content, offset, count);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return check(delivered.read());
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                return check(delivered.read(buffer, off, len));
+            }
+
+            private int check(int read) throws IOException {
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.devsync.service;
+
+import com.devsync.repository.ChannelRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChannelMembershipServiceTest {
+
+    private final ChannelRepository repository = mock(ChannelRepository.class);
+    private SimpleMeterRegistry meterRegistry;
+    private ChannelMembershipService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service(60_000, 60_000, 100);
+        when(repository.findMemberIds(anyLong())).thenReturn(List.of(30L, 10L, 20L));
+    }
+
+    @Test
+    void membersAreLoadedOnceAndKeptSorted() {
+        assertThat(service.isMember(1L, 10L)).isTrue();
+        assertThat(service.isMember(1L, 30L)).isTrue();
+        assertThat(service.getMemberIds(1L)).containsExactly(10L, 20L, 30L);
+
+        verify(repository, times(1)).findMemberIds(1L);
+        verify(repository, never()).isMember(anyLong(), anyLong());
+        assertThat(lookups("load")).isEqualTo(1);
+        assertThat(lookups("hit")).isEqualTo(2);
+        assertThat(meterRegistry.get("chat.membership.channels").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void setsAreReloadedAfterTheTtl() throws Exception {
+        service = service(500, 60_000, 100);
+        assertThat(service.isMember(1L, 10L)).isTrue();
+        // Removed on another instance
+        when(repository.findMemberIds(1L)).thenReturn(List.of(20L, 30L));
+
+        assertThat(service.isMember(1L, 10L)).isTrue();
+        Thread.sleep(600);
+
+        assertThat(service.isMember(1L, 10L)).isFalse();
+        verify(repository, times(2)).findMemberIds(1L);
+    }
+
+    @Test
+    void joinsHereUpdateTheCachedSet() {
+        service.getMemberIds(1L);
+        assertThat(service.isMember(1L, 15L)).isFalse();
+
+        service.memberAdded(1L, 15L);
+
+        assertThat(service.isMember(1L, 15L)).isTrue();
+        assertThat(service.getMemberIds(1L)).containsExactly(10L, 15L, 20L, 30L);
+        verify(repository, times(1)).findMemberIds(1L);
+        verify(repository, times(1)).isMember(1L, 15L);
+    }
+
+    @Test
+    void aMissIsRecheckedSoJoinsElsewhereAreSeen() {
+        service.getMemberIds(1L);
+        when(repository.isMember(1L, 40L)).thenReturn(true);
+
+        assertThat(service.isMember(1L, 40L)).isTrue();
+        assertThat(service.isMember(1L, 40L)).isTrue();
+
+        // Added to the cached set rather than reloading it
+        verify(repository, times(1)).isMember(1L, 40L);
+        verify(repository, times(1)).findMemberIds(1L);
+        assertThat(service.getMemberIds(1L)).contains(40L);
+    }
+
+    @Test
+    void confirmedNonMembersSkipTheRecheckUntilTheirTtl() throws Exception {
+        service = service(60_000, 500, 100);
+
+        assertThat(service.isMember(1L, 40L)).isFalse();
+        assertThat(service.isMember(1L, 40L)).isFalse();
+        assertThat(service.isMember(1L, 40L)).isFalse();
+        verify(repository, times(1)).isMember(1L, 40L);
+        assertThat(lookups("non-member")).isEqualTo(2);
+
+        // Joined on another instance, seen once the negative entry expires
+        when(repository.isMember(1L, 40L)).thenReturn(true);
+        Thread.sleep(600);
+        assertThat(service.isMember(1L, 40L)).isTrue();
+        verify(repository, times(2)).isMember(1L, 40L);
+    }
+
+    @Test
+    void leastRecentlyUsedChannelsAreEvicted() throws Exception {
+        service = service(60_000, 60_000, 10);
+        service.getMemberIds(1L);
+        for (long channelId = 2; channelId <= 10; channelId++) {
+            Thread.sleep(2);
+            service.getMemberIds(channelId);
+        }
+        Thread.sleep(2);
+        // Channel 1 is the oldest load but was just used
+        service.getMemberIds(1L);
+
+        service.getMemberIds(11L);
+
+        assertThat(meterRegistry.get("chat.membership.channels").gauge().value()).isLessThanOrEqualTo(10);
+        service.getMemberIds(1L);
+        verify(repository, times(1)).findMemberIds(1L);
+        service.getMemberIds(2L);
+        verify(repository, times(2)).findMemberIds(2L);
+    }
+
+    @Test
+    void concurrentJoinsAreNotLost() {
+        service.getMemberIds(1L);
+
+        List<CompletableFuture<Void>> joins = new ArrayList<>();
+        LongStream.range(100, 200).forEach(userId ->
+                joins.add(CompletableFuture.runAsync(() -> service.memberAdded(1L, userId))));
+        joins.forEach(CompletableFuture::join);
+
+        assertThat(service.getMemberIds(1L)).hasSize(103);
+    }
+
+    private ChannelMembershipService service(long ttlMs, long negativeTtlMs, int maxChannels) {
+        // A registry per service, since a gauge registered again keeps pointing at the first one
+        meterRegistry = new SimpleMeterRegistry();
+        ChannelMembershipService service = new ChannelMembershipService();
+        ReflectionTestUtils.setField(service, "channelRepository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "ttlMs", ttlMs);
+        ReflectionTestUtils.setField(service, "negativeTtlMs", negativeTtlMs);
+        ReflectionTestUtils.setField(service, "maxChannels", maxChannels);
+        service.init();
+        return service;
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("chat.membership.lookups").tag("result", result).counter().count();
+    }
+}
\ No newline at end of file
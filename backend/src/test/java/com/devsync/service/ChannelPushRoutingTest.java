@@ -0,0 +1,77 @@
+package com.devsync.service;
+
+import com.devsync.entity.Channel;
+import com.devsync.entity.Message;
+import com.devsync.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChannelPushRoutingTest {
+
+    private final PresenceService presenceService = mock(PresenceService.class);
+    private final MentionService mentionService = mock(MentionService.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ChatService chatService = new ChatService();
+
+    private final User sender = user(1L);
+    private final User alice = user(2L);
+    private final User bob = user(3L);
+    private final Channel channel = new Channel();
+
+    ChannelPushRoutingTest() {
+        ReflectionTestUtils.setField(chatService, "presenceService", presenceService);
+        ReflectionTestUtils.setField(chatService, "mentionService", mentionService);
+        ReflectionTestUtils.setField(chatService, "notificationService", notificationService);
+        channel.setId(10L);
+        when(presenceService.getOfflineChannelMembers(10L)).thenReturn(List.of(alice, bob));
+    }
+
+    @Test
+    void directMentionsGetTheirOwnPush() {
+        Message message = message("hi @u2");
+        when(mentionService.resolve(message)).thenReturn(new MentionService.ResolvedMentions(Set.of(2L), false, false));
+
+        chatService.sendChannelPushNotifications(message);
+
+        verify(notificationService).sendMentionNotification(List.of(alice), sender, channel, "hi @u2");
+        verify(notificationService).sendChannelNotification(channel, sender, "hi @u2", List.of(bob));
+    }
+
+    @Test
+    void channelMentionsStayOnTheCoalescedPath() {
+        Message message = message("@channel deploy at 5");
+        when(mentionService.resolve(message)).thenReturn(new MentionService.ResolvedMentions(Set.of(), true, false));
+
+        chatService.sendChannelPushNotifications(message);
+
+        verify(notificationService, never()).sendMentionNotification(anyCollection(), any(), any(), anyString());
+        verify(notificationService).sendChannelNotification(eq(channel), eq(sender), anyString(), eq(List.of(alice, bob)));
+    }
+
+    private Message message(String content) {
+        Message message = new Message();
+        message.setSender(sender);
+        message.setChannel(channel);
+        message.setContent(content);
+        return message;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("u" + id);
+        return user;
+    }
+}
\ No newline at end of file
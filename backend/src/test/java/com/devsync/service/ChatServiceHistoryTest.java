@@ -0,0 +1,97 @@
+package com.devsync.service;
+
+import com.devsync.dto.ChatMessageDto;
+import com.devsync.entity.Message;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.SqlCapture;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// History reads map a whole page to DTOs with a fixed number of statements, however many
+// senders the page has. Each read runs in one transaction, like a request with open-in-view
+class ChatServiceHistoryTest extends IntegrationTest {
+
+    private static final int SENDERS = 5;
+    private static final int MESSAGES = 20;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long[] users;
+    private long channelId;
+    private long parentId;
+    private long[] channelIds;
+    private long[] directIds;
+
+    @BeforeEach
+    void seed() {
+        users = new long[SENDERS];
+        for (int i = 0; i < SENDERS; i++) {
+            users[i] = testData.createUser();
+        }
+        channelId = testData.createChannel(users[0], users[1], users[2], users[3], users[4]);
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        channelIds = new long[MESSAGES];
+        directIds = new long[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            channelIds[i] = testData.insertChannelMessage(channelId, users[i % SENDERS], i + 1, start.plusSeconds(i));
+            directIds[i] = testData.insertDirectMessage(users[i % 2], users[1 - i % 2], i + 1, start.plusSeconds(i));
+        }
+        parentId = channelIds[0];
+        for (int i = 0; i < MESSAGES; i++) {
+            testData.insertReply(channelId, users[i % SENDERS], parentId, MESSAGES + i + 1, start.plusMinutes(1).plusSeconds(i));
+        }
+    }
+
+    @Test
+    void channelPagesTakeOneQueryPerLookup() {
+        // existsById and the page
+        assertStatements(2, MESSAGES, () -> chatService.getChannelMessages(channelId, null, null, MESSAGES).getContent());
+        // existsById, the cursor timestamp and the page
+        assertStatements(3, 10, () -> chatService.getChannelMessages(channelId, channelIds[10], null, MESSAGES).getContent());
+        // Thread replies are channel messages too, so the newer page is full
+        assertStatements(3, MESSAGES, () -> chatService.getChannelMessages(channelId, null, channelIds[10], MESSAGES).getContent());
+    }
+
+    @Test
+    void directPagesTakeOneQueryPerLookup() {
+        // existsById for both users and the page
+        assertStatements(3, MESSAGES, () -> chatService.getDirectMessages(users[0], users[1], null, null, MESSAGES).getContent());
+        assertStatements(4, 10, () -> chatService.getDirectMessages(users[0], users[1], directIds[10], null, MESSAGES).getContent());
+        assertStatements(4, 9, () -> chatService.getDirectMessages(users[1], users[0], null, directIds[10], MESSAGES).getContent());
+    }
+
+    @Test
+    void threadRepliesTakeOneQuery() {
+        assertStatements(1, MESSAGES, () -> chatService.getThreadReplies(parentId));
+    }
+
+    private void assertStatements(int expected, int size, Supplier<List<Message>> read) {
+        List<ChatMessageDto> page = transactionTemplate.execute(status -> {
+            SqlCapture.clear();
+            List<ChatMessageDto> dtos = read.get().stream().map(ChatMessageDto::fromEntity).toList();
+            assertThat(SqlCapture.statements()).hasSize(expected);
+            return dtos;
+        });
+        assertThat(page).hasSize(size);
+        assertThat(page).allSatisfy(dto -> {
+            assertThat(dto.getSenderUsername()).isNotNull();
+            assertThat(dto.getChannelName() != null || dto.getRecipientUsername() != null).isTrue();
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.devsync.service;
+
+import com.devsync.dto.MessageSearchResultDto;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Runs the search SQL against Postgres. Every test searches for words made up for it,
+// so messages left behind by other tests never match
+class MessageSearchTest extends IntegrationTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long alice;
+    private long bob;
+    private long carol;
+    private long memberChannel;
+    private long publicChannel;
+    private long otherPrivateChannel;
+    private String word;
+    private String otherWord;
+    private LocalDateTime start;
+    private long seq;
+
+    @BeforeEach
+    void seed() {
+        alice = testData.createUser();
+        bob = testData.createUser();
+        carol = testData.createUser();
+        memberChannel = privateChannel(carol, alice);
+        otherPrivateChannel = privateChannel(carol, bob);
+        publicChannel = testData.createChannel(carol);
+        word = randomWord();
+        otherWord = randomWord();
+        start = LocalDateTime.of(2026, 1, 1, 12, 0);
+    }
+
+    @Test
+    void ranksMessagesWithMoreMatchesFirst() {
+        long once = channelMessage(memberChannel, carol, "the " + word + " was mentioned once in a longer sentence about other things");
+        long often = channelMessage(memberChannel, carol, word + " " + word + " " + word);
+
+        assertThat(ids(search(alice, word))).containsExactly(often, once);
+    }
+
+    @Test
+    void onlyReturnsMessagesTheUserCanRead() {
+        long inMemberChannel = channelMessage(memberChannel, carol, word + " in a private channel alice belongs to");
+        long inPublicChannel = channelMessage(publicChannel, carol, word + " in a public channel alice never joined");
+        channelMessage(otherPrivateChannel, carol, word + " in a private channel alice is not in");
+        long toAlice = directMessage(carol, alice, word + " sent to alice");
+        long fromAlice = directMessage(alice, bob, word + " sent by alice");
+        long toBob = directMessage(carol, bob, word + " between two other users");
+
+        assertThat(ids(search(alice, word))).containsExactlyInAnyOrder(inMemberChannel, inPublicChannel, toAlice, fromAlice);
+        assertThat(ids(search(bob, word))).doesNotContain(inMemberChannel).contains(inPublicChannel, fromAlice, toBob);
+    }
+
+    @Test
+    void understandsWebSearchSyntax() {
+        long phrase = channelMessage(memberChannel, carol, word + " " + otherWord + " together");
+        long apart = channelMessage(memberChannel, carol, otherWord + " comes before " + word + " here");
+        long alone = channelMessage(memberChannel, carol, "only " + word);
+
+        assertThat(ids(search(alice, "\"" + word + " " + otherWord + "\""))).containsExactly(phrase);
+        assertThat(ids(search(alice, word + " -" + otherWord))).containsExactly(alone);
+        assertThat(ids(search(alice, word + " " + otherWord))).containsExactlyInAnyOrder(phrase, apart);
+        assertThat(ids(search(alice, otherWord + " or " + word))).containsExactlyInAnyOrder(phrase, apart, alone);
+        // Unbalanced quotes and stray operators are read leniently instead of failing
+        assertThat(ids(search(alice, "\"" + word + " ( -"))).containsExactlyInAnyOrder(phrase, apart, alone);
+    }
+
+    @Test
+    void highlightsTheMatchedWords() {
+        channelMessage(memberChannel, carol, "Deploying " + word + " to staging at five");
+
+        MessageSearchResultDto result = search(alice, word).getContent().get(0);
+
+        assertThat(result.getHighlight()).contains("<mark>" + word + "</mark>").contains("staging");
+        assertThat(result.getType()).isEqualTo("CHANNEL");
+        assertThat(result.getChannelId()).isEqualTo(memberChannel);
+        assertThat(result.getRank()).isPositive();
+    }
+
+    @Test
+    void pagesStopAtTheResultCap() {
+        for (int i = 0; i < 7; i++) {
+            channelMessage(memberChannel, carol, word + " number " + i);
+        }
+        ChatService target = AopTestUtils.getTargetObject(chatService);
+        int cap = (int) ReflectionTestUtils.getField(target, "maxSearchResults");
+        ReflectionTestUtils.setField(target, "maxSearchResults", 5);
+        try {
+            Slice<MessageSearchResultDto> first = chatService.searchMessages(alice, word, 0, 3);
+            Slice<MessageSearchResultDto> last = chatService.searchMessages(alice, word, 1, 3);
+
+            assertThat(first.getContent()).hasSize(3);
+            assertThat(first.hasNext()).isTrue();
+            assertThat(last.getContent()).hasSize(2);
+            assertThat(last.hasNext()).isFalse();
+            assertThrows(RuntimeException.class, () -> chatService.searchMessages(alice, word, 2, 3));
+        } finally {
+            ReflectionTestUtils.setField(target, "maxSearchResults", cap);
+        }
+    }
+
+    private Slice<MessageSearchResultDto> search(long userId, String query) {
+        return chatService.searchMessages(userId, query, 0, 20);
+    }
+
+    private static List<Long> ids(Slice<MessageSearchResultDto> results) {
+        return results.getContent().stream().map(MessageSearchResultDto::getId).toList();
+    }
+
+    private long privateChannel(long ownerId, long... memberIds) {
+        long channelId = testData.createChannel(ownerId, memberIds);
+        jdbcTemplate.update("UPDATE channels SET is_private = true WHERE id = ?", channelId);
+        return channelId;
+    }
+
+    private long channelMessage(long channelId, long senderId, String content) {
+        return withContent(testData.insertChannelMessage(channelId, senderId, ++seq, start.plusSeconds(seq)), content);
+    }
+
+    private long directMessage(long senderId, long recipientId, String content) {
+        return withContent(testData.insertDirectMessage(senderId, recipientId, ++seq, start.plusSeconds(seq)), content);
+    }
+
+    private long withContent(long messageId, String content) {
+        jdbcTemplate.update("UPDATE messages SET content = ? WHERE id = ?", content, messageId);
+        return messageId;
+    }
+
+    // Letters only, so the english parser keeps it as one word
+    private static String randomWord() {
+        StringBuilder word = new StringBuilder("zq");
+        for (int i = 0; i < 10; i++) {
+            word.append((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+        }
+        return word.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.devsync.service;
+
+import com.devsync.entity.Channel;
+import com.devsync.entity.Message;
+import com.devsync.repository.MessageJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageSequenceServiceTest {
+
+    @Test
+    void handsOutConsecutiveNumbersFromBlocksInOrder() throws Exception {
+        MessageJdbcRepository repository = counterRepository();
+        MessageSequenceService service = service(repository, 100, false);
+        List<Long> assigned = new ArrayList<>();
+
+        ExecutorService senders = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(senders.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    Message message = channelMessage(1L);
+                    // Runs under the stripe, so the list needs no lock of its own
+                    service.assign(message, () -> assigned.add(message.getSeq()));
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        senders.shutdown();
+
+        assertThat(assigned).containsExactlyElementsOf(LongStream.rangeClosed(1, 8000).boxed().toList());
+        // 80 blocks in use plus at most the one prefetched after the last
+        verify(repository, atLeast(80)).reserveSequenceBlock("c:1", 100);
+        verify(repository, atMost(81)).reserveSequenceBlock("c:1", 100);
+        service.shutdown();
+    }
+
+    @Test
+    void slowReservationDoesNotBlockTheStripe() throws Exception {
+        MessageJdbcRepository repository = mock(MessageJdbcRepository.class);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong lastSeq = new AtomicLong();
+        when(repository.reserveSequenceBlock(anyString(), anyInt())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("c:1")) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return lastSeq.addAndGet(invocation.<Integer>getArgument(1));
+        });
+        MessageSequenceService service = service(repository, 10, false);
+        // A conversation that hashes to the same stripe as the stalled one
+        String blocked = "c:1";
+        long sameStripe = 2;
+        while (Math.floorMod(("c:" + sameStripe).hashCode(), 64) != Math.floorMod(blocked.hashCode(), 64)) {
+            sameStripe++;
+        }
+
+        ExecutorService waiting = Executors.newSingleThreadExecutor();
+        Future<?> stalled = waiting.submit(() -> service.assign(channelMessage(1L)));
+        Message other = channelMessage(sameStripe);
+        Future<?> unrelated = Executors.newSingleThreadExecutor().submit(() -> service.assign(other));
+
+        unrelated.get(5, TimeUnit.SECONDS);
+        assertThat(other.getSeq()).isNotNull();
+        assertThat(stalled.isDone()).isFalse();
+        release.countDown();
+        stalled.get(5, TimeUnit.SECONDS);
+        waiting.shutdown();
+        service.shutdown();
+    }
+
+    @Test
+    void countersAreBounded() {
+        MessageSequenceService service = service(counterRepository(), 10, false);
+
+        for (long channelId = 1; channelId <= 5000; channelId++) {
+            service.assign(channelMessage(channelId));
+        }
+
+        Map<?, ?>[] stripes = (Map<?, ?>[]) ReflectionTestUtils.getField(service, "stripes");
+        assertThat(Arrays.stream(stripes).mapToInt(Map::size).sum()).isLessThanOrEqualTo(64 * 4);
+        service.shutdown();
+    }
+
+    @Test
+    void transactionalModeReservesEveryNumber() {
+        MessageJdbcRepository repository = counterRepository();
+        MessageSequenceService service = service(repository, 100, true);
+
+        for (int i = 0; i < 3; i++) {
+            service.assign(channelMessage(2L));
+        }
+
+        verify(repository, times(3)).reserveSequenceBlock("c:2", 1);
+    }
+
+    private static MessageJdbcRepository counterRepository() {
+        MessageJdbcRepository repository = mock(MessageJdbcRepository.class);
+        AtomicLong lastSeq = new AtomicLong();
+        when(repository.reserveSequenceBlock(anyString(), anyInt()))
+                .thenAnswer(invocation -> lastSeq.addAndGet(invocation.<Integer>getArgument(1)));
+        return repository;
+    }
+
+    private static MessageSequenceService service(MessageJdbcRepository repository, int blockSize, boolean transactional) {
+        MessageSequenceService service = new MessageSequenceService();
+        ReflectionTestUtils.setField(service, "messageJdbcRepository", repository);
+        ReflectionTestUtils.setField(service, "blockSize", blockSize);
+        ReflectionTestUtils.setField(service, "transactional", transactional);
+        ReflectionTestUtils.setField(service, "maxConversations", 64 * 4);
+        ReflectionTestUtils.setField(service, "reserverThreads", 2);
+        service.init();
+        return service;
+    }
+
+    private static Message channelMessage(Long channelId) {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        Message message = new Message();
+        message.setChannel(channel);
+        return message;
+    }
+}
\ No newline at end of file
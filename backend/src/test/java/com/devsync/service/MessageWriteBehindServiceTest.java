@@ -0,0 +1,237 @@
+package com.devsync.service;
+
+import com.devsync.entity.Channel;
+import com.devsync.entity.Message;
+import com.devsync.entity.User;
+import com.devsync.repository.ConversationSummaryRepository;
+import com.devsync.repository.MessageJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageWriteBehindServiceTest {
+
+    private final MessageJdbcRepository repository = mock(MessageJdbcRepository.class);
+    private final ConversationSummaryRepository summaries = mock(ConversationSummaryRepository.class);
+    private final RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+    private final MessageSequenceService sequences = mock(MessageSequenceService.class);
+    private final MentionService mentionService = mock(MentionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageWriteBehindService service = new MessageWriteBehindService();
+
+    // Copies of every list handed to insertBatch; the writer reuses its batch list
+    private final List<List<Long>> inserts = new CopyOnWriteArrayList<>();
+
+    private final User sender = user(1L);
+    private final Channel channel = new Channel();
+
+    MessageWriteBehindServiceTest() {
+        ReflectionTestUtils.setField(service, "messageJdbcRepository", repository);
+        ReflectionTestUtils.setField(service, "conversationSummaryRepository", summaries);
+        ReflectionTestUtils.setField(service, "recentMessageCache", recentMessageCache);
+        ReflectionTestUtils.setField(service, "messageSequenceService", sequences);
+        ReflectionTestUtils.setField(service, "mentionService", mentionService);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "maxDelayMs", 5L);
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 100L);
+        ReflectionTestUtils.setField(service, "retryInitialMs", 1L);
+        ReflectionTestUtils.setField(service, "retryMaxMs", 10L);
+        ReflectionTestUtils.setField(service, "shutdownTimeoutMs", 1000L);
+        channel.setId(10L);
+
+        when(repository.reserveIdBlock()).thenReturn(1000L);
+        AtomicInteger seq = new AtomicInteger();
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Message.class).setSeq((long) seq.incrementAndGet());
+            invocation.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(sequences).assign(any(Message.class), any(Runnable.class));
+        doAnswer(invocation -> {
+            List<Message> batch = invocation.getArgument(0);
+            inserts.add(batch.stream().map(Message::getId).toList());
+            return null;
+        }).when(repository).insertBatch(anyList());
+    }
+
+    @AfterEach
+    void stop() {
+        service.shutdown();
+    }
+
+    @Test
+    void sequenceWaitHappensOutsideThePipelineLock() {
+        ReentrantReadWriteLock pipelineLock = (ReentrantReadWriteLock) ReflectionTestUtils.getField(service, "pipelineLock");
+        List<Integer> readLocksWhileAssigning = new ArrayList<>();
+        doAnswer(invocation -> {
+            // A sender waiting here for a sequence block must not keep shutdown out
+            readLocksWhileAssigning.add(pipelineLock.getReadLockCount());
+            invocation.getArgument(0, Message.class).setSeq(1L);
+            invocation.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(sequences).assign(any(Message.class), any(Runnable.class));
+        service.start();
+
+        Message message = service.enqueue(message("hello"));
+
+        assertThat(readLocksWhileAssigning).containsExactly(0);
+        awaitUntil(() -> inserts.contains(List.of(message.getId())));
+    }
+
+    @Test
+    void rejectsMessagesTheWriterCouldNotStore() {
+        service.start();
+        Message message = message("no type");
+        message.setType(null);
+
+        assertThrows(RuntimeException.class, () -> service.enqueue(message));
+        assertThat(availablePermits()).isEqualTo(100);
+    }
+
+    @Test
+    void unbindableRowIsDeadLetteredAndTheRestStored() {
+        doAnswer(invocation -> {
+            List<Message> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(m -> "bad".equals(m.getContent()))) {
+                throw new IllegalStateException("cannot bind");
+            }
+            inserts.add(batch.stream().map(Message::getId).toList());
+            return null;
+        }).when(repository).insertBatch(anyList());
+        ReflectionTestUtils.setField(service, "maxDelayMs", 200L);
+        service.start();
+
+        Message good = service.enqueue(message("good"));
+        Message bad = service.enqueue(message("bad"));
+        Message alsoGood = service.enqueue(message("also good"));
+
+        verify(repository, timeout(2000)).insertDeadLetter(eq(bad), argThat(error -> error.contains("cannot bind")));
+        awaitPermits(100);
+        assertThat(inserts.stream().flatMap(List::stream).toList()).contains(good.getId(), alsoGood.getId()).doesNotContain(bad.getId());
+        assertThat(meterRegistry.counter("chat.write-behind.dead-letters").count()).isEqualTo(1);
+    }
+
+    @Test
+    void transientFailureRetriesTheSameBatch() {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<Message> batch = invocation.getArgument(0);
+            inserts.add(batch.stream().map(Message::getId).toList());
+            if (calls.incrementAndGet() <= 2) {
+                throw new TransientDataAccessResourceException("connection refused");
+            }
+            return null;
+        }).when(repository).insertBatch(anyList());
+        service.start();
+
+        Message message = service.enqueue(message("hello"));
+
+        awaitPermits(100);
+        assertThat(inserts).containsExactly(List.of(message.getId()), List.of(message.getId()), List.of(message.getId()));
+        assertThat(meterRegistry.counter("chat.write-behind.retries").count()).isEqualTo(2);
+        verify(summaries).recordMessages(anyList());
+    }
+
+    @Test
+    void failedSideEffectsDoNotResendTheBatch() {
+        doThrow(new IllegalStateException("summary bug")).when(summaries).recordMessages(anyList());
+        doThrow(new IllegalStateException("mention bug")).when(mentionService).recordMentions(anyList());
+        doThrow(new IllegalStateException("cache bug")).when(recentMessageCache).append(any());
+        service.start();
+
+        Message first = service.enqueue(message("first"));
+        verify(recentMessageCache, timeout(2000)).evict(10L);
+        Message second = service.enqueue(message("second"));
+
+        awaitUntil(() -> inserts.size() == 2 && availablePermits() == 100);
+        assertThat(inserts).containsExactly(List.of(first.getId()), List.of(second.getId()));
+        verify(repository, never()).insertDeadLetter(any(), anyString());
+    }
+
+    @Test
+    void deadLetterTheDatabaseRefusesIsCountedAsLost() {
+        doThrow(new DataIntegrityViolationException("bad row")).when(repository).insertBatch(anyList());
+        doThrow(new DataIntegrityViolationException("bad dead letter")).when(repository).insertDeadLetter(any(), any());
+        service.start();
+
+        service.enqueue(message("hello"));
+
+        awaitUntil(() -> meterRegistry.counter("chat.write-behind.lost").count() == 1);
+        awaitPermits(100);
+    }
+
+    @Test
+    void shutdownStoresWhatIsStillQueued() {
+        service.start();
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            sent.add(service.enqueue(message("m" + i)));
+        }
+
+        service.shutdown();
+
+        assertThat(inserts.stream().flatMap(List::stream).toList())
+                .containsExactlyElementsOf(sent.stream().map(Message::getId).toList());
+        assertThrows(RuntimeException.class, () -> service.enqueue(message("late")));
+    }
+
+    private int availablePermits() {
+        return ((Semaphore) ReflectionTestUtils.getField(service, "capacity")).availablePermits();
+    }
+
+    private void awaitPermits(int permits) {
+        awaitUntil(() -> availablePermits() == permits);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private Message message(String content) {
+        return new Message(content, sender, channel);
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("u" + id);
+        return user;
+    }
+}
\ No newline at end of file
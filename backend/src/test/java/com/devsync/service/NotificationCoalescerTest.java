@@ -0,0 +1,117 @@
+package com.devsync.service;
+
+import com.devsync.entity.Channel;
+import com.devsync.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class NotificationCoalescerTest {
+
+    private final PushNotificationDispatcher dispatcher = mock(PushNotificationDispatcher.class);
+
+    @Test
+    void foldsPushesOnceTheBucketIsEmpty() {
+        NotificationCoalescer coalescer = coalescer(2, 0);
+        User user = user(1L);
+
+        assertThat(coalescer.admit(channel(1L), List.of(user))).containsExactly(user);
+        assertThat(coalescer.admit(channel(2L), List.of(user))).containsExactly(user);
+        assertThat(coalescer.admit(channel(3L), List.of(user))).isEmpty();
+        assertThat(coalescer.admit(channel(1L), List.of(user))).isEmpty();
+    }
+
+    @Test
+    void evictionKeepsBucketsThatAreInUse() {
+        NotificationCoalescer coalescer = coalescer(1, 0);
+        User user = user(1L);
+        coalescer.admit(channel(1L), List.of(user));
+        coalescer.admit(channel(1L), List.of(user));
+
+        // The window has expired but the bucket is still empty: no summary, and the
+        // bucket survives eviction instead of coming back full
+        coalescer.flushExpiredWindows();
+
+        verify(dispatcher, never()).dispatch(any(), anyList());
+        assertThat(coalescer.admit(channel(2L), List.of(user))).isEmpty();
+    }
+
+    @Test
+    void concurrentEvictionNeverGrantsExtraPushes() throws Exception {
+        NotificationCoalescer coalescer = coalescer(1, 0);
+        int users = 20_000;
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            Future<?> flusher = pool.submit(() -> {
+                while (!done.get()) {
+                    coalescer.flushExpiredWindows();
+                }
+            });
+            List<Future<Integer>> senders = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                senders.add(pool.submit(() -> {
+                    int overLimit = 0;
+                    for (long id = offset; id < users; id += 4) {
+                        User user = user(id);
+                        // With a burst of one and no refill, only the first channel may push
+                        coalescer.admit(channel(1L), List.of(user));
+                        overLimit += coalescer.admit(channel(2L), List.of(user)).size();
+                    }
+                    return overLimit;
+                }));
+            }
+            int overLimit = 0;
+            for (Future<Integer> sender : senders) {
+                overLimit += sender.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            flusher.get(10, TimeUnit.SECONDS);
+            assertThat(overLimit).isZero();
+        } finally {
+            done.set(true);
+            pool.shutdownNow();
+        }
+    }
+
+    private NotificationCoalescer coalescer(int burst, long windowMs) {
+        NotificationCoalescer coalescer = new NotificationCoalescer();
+        ReflectionTestUtils.setField(coalescer, "pushNotificationDispatcher", dispatcher);
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coalescer, "windowMs", windowMs);
+        ReflectionTestUtils.setField(coalescer, "burst", burst);
+        ReflectionTestUtils.setField(coalescer, "perMinute", 0.0);
+        coalescer.init();
+        return coalescer;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setFirebaseToken("token-" + id);
+        return user;
+    }
+
+    private static Channel channel(Long id) {
+        Channel channel = new Channel();
+        channel.setId(id);
+        channel.setName("channel-" + id);
+        return channel;
+    }
+}
\ No newline at end of file
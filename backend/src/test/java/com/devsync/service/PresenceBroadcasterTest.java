@@ -0,0 +1,77 @@
+package com.devsync.service;
+
+import com.devsync.dto.PresenceFrameDto;
+import com.devsync.dto.PresenceUpdateDto;
+import com.devsync.repository.ChannelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresenceBroadcasterTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final ChannelRepository channelRepository = mock(ChannelRepository.class);
+    private final PresenceRegistry presenceRegistry = new InMemoryPresenceRegistry();
+    private final PresenceBroadcaster broadcaster = new PresenceBroadcaster();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(broadcaster, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(broadcaster, "channelRepository", channelRepository);
+        ReflectionTestUtils.setField(broadcaster, "presenceRegistry", presenceRegistry);
+        ReflectionTestUtils.setField(broadcaster, "offlineGraceMs", 0L);
+        // Every user is a member of channel 1
+        when(channelRepository.findChannelIdsByMemberIds(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long userId : invocation.<Collection<Long>>getArgument(0)) {
+                rows.add(new Object[] {userId, 1L});
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void looksUpChannelsInBoundedChunks() {
+        for (long userId = 1; userId <= 2500; userId++) {
+            broadcaster.publish(new PresenceUpdateDto(userId, "u" + userId, true, "ACTIVE"));
+        }
+
+        broadcaster.flush();
+
+        ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.forClass(Collection.class);
+        verify(channelRepository, times(3)).findChannelIdsByMemberIds(chunks.capture());
+        assertThat(chunks.getAllValues()).allSatisfy(chunk -> assertThat(chunk.size()).isLessThanOrEqualTo(1000));
+        ArgumentCaptor<PresenceFrameDto> frame = ArgumentCaptor.forClass(PresenceFrameDto.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/presence.1"), frame.capture());
+        assertThat(frame.getValue().getUsers()).hasSize(2500);
+    }
+
+    @Test
+    void versionsComeFromTheRegistry() {
+        presenceRegistry.nextChannelVersions(List.of(1L));
+
+        broadcaster.publish(new PresenceUpdateDto(1L, "u1", true, "ACTIVE"));
+        broadcaster.flush();
+
+        ArgumentCaptor<PresenceFrameDto> frame = ArgumentCaptor.forClass(PresenceFrameDto.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/presence.1"), frame.capture());
+        assertThat(frame.getValue().getVersion()).isEqualTo(2L);
+        assertThat(broadcaster.currentVersion(1L)).isEqualTo(2L);
+        verify(messagingTemplate, times(1)).convertAndSend(any(String.class), any(Object.class));
+    }
+}
\ No newline at end of file
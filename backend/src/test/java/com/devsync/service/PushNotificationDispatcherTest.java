@@ -0,0 +1,103 @@
+package com.devsync.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PushNotificationDispatcherTest {
+
+    private static final PushNotification NOTIFICATION = new PushNotification("title", "body", null, Map.of());
+
+    private final StubGateway gateway = new StubGateway();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PushNotificationDispatcher dispatcher;
+
+    @AfterEach
+    void stop() {
+        gateway.release.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void splitsTokensIntoMulticastBatches() throws Exception {
+        start(2, 10);
+        gateway.release.countDown();
+
+        dispatcher.dispatch(NOTIFICATION, tokens(1201));
+
+        assertThat(gateway.sent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(gateway.batchSizes).containsExactlyInAnyOrder(500, 500, 201);
+    }
+
+    @Test
+    void countsBatchesDroppedOnAFullQueue() throws Exception {
+        start(1, 1);
+
+        // One batch blocks the only thread, one waits in the queue, the third is dropped
+        dispatcher.dispatch(NOTIFICATION, tokens(1));
+        assertThat(gateway.started.await(5, TimeUnit.SECONDS)).isTrue();
+        dispatcher.dispatch(NOTIFICATION, tokens(1));
+        dispatcher.dispatch(NOTIFICATION, tokens(1));
+
+        assertThat(dropped("queue-full")).isEqualTo(1);
+        assertThat(dropped("shutdown")).isZero();
+    }
+
+    @Test
+    void countsBatchesRejectedAfterShutdownSeparately() {
+        start(1, 1);
+        gateway.release.countDown();
+        dispatcher.shutdown();
+
+        dispatcher.dispatch(NOTIFICATION, tokens(1));
+
+        assertThat(dropped("shutdown")).isEqualTo(1);
+        assertThat(dropped("queue-full")).isZero();
+        assertThat(gateway.batchSizes).isEmpty();
+    }
+
+    private void start(int threads, int queueCapacity) {
+        dispatcher = new PushNotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "pushGateway", gateway);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(dispatcher, "threads", threads);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", queueCapacity);
+        dispatcher.start();
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.counter("push.dispatcher.dropped", "reason", reason).count();
+    }
+
+    private static List<String> tokens(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "token-" + i).toList();
+    }
+
+    // Blocks every send until released, so the test controls how full the queue is
+    private static class StubGateway implements PushGateway {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch sent = new CountDownLatch(3);
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public int sendMulticast(PushNotification notification, List<String> tokens) throws Exception {
+            started.countDown();
+            release.await();
+            batchSizes.add(tokens.size());
+            sent.countDown();
+            return tokens.size();
+        }
+    }
+}
\ No newline at end of file
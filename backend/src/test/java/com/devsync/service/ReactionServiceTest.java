@@ -0,0 +1,201 @@
+package com.devsync.service;
+
+import com.devsync.dto.ReactionDto;
+import com.devsync.repository.ReactionRepository;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// A service of its own per test, not the scheduled bean, so flushes only happen when
+// a test calls them. The repository is real, spied on to hold or fail a flush
+class ReactionServiceTest extends IntegrationTest {
+
+    private static final String THUMBS_UP = "\uD83D\uDC4D";
+    private static final String PARTY = "\uD83C\uDF89";
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private ReactionRepository reactionRepository;
+    private ReactionService reactionService;
+    private long alice;
+    private long bob;
+    private long carol;
+    private long channelId;
+    private long messageId;
+
+    @BeforeEach
+    void setUp() {
+        reactionRepository = new ReactionRepository();
+        ReflectionTestUtils.setField(reactionRepository, "jdbcTemplate", jdbcTemplate);
+        reactionRepository = spy(reactionRepository);
+        reactionService = service(60_000);
+
+        alice = testData.createUser();
+        bob = testData.createUser();
+        carol = testData.createUser();
+        channelId = testData.createChannel(alice, bob, carol);
+        messageId = testData.insertChannelMessage(channelId, alice, 1, LocalDateTime.of(2026, 1, 1, 12, 0));
+    }
+
+    @Test
+    void togglesAreAnsweredInMemoryAndStoredOnFlush() {
+        react(alice, THUMBS_UP, true);
+        ReactionDto delta = react(bob, THUMBS_UP, true);
+
+        assertThat(delta.getCount()).isEqualTo(2);
+        assertThat(storedRows()).isZero();
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/reactions." + channelId), any(Object.class));
+
+        reactionService.flush();
+        assertThat(storedRows()).isEqualTo(2);
+        assertThat(storedCounts()).isEqualTo("{\"" + THUMBS_UP + "\": 2}");
+
+        assertThat(react(bob, THUMBS_UP, false).getCount()).isEqualTo(1);
+        reactionService.flush();
+        assertThat(storedRows()).isEqualTo(1);
+        assertThat(storedCounts()).isEqualTo("{\"" + THUMBS_UP + "\": 1}");
+    }
+
+    @Test
+    void repeatedTogglesStoreOnlyTheLatestState() {
+        react(alice, THUMBS_UP, true);
+        react(alice, THUMBS_UP, false);
+        react(alice, THUMBS_UP, true);
+        // Adding again changes nothing, so it is neither stored nor broadcast
+        react(alice, THUMBS_UP, true);
+
+        reactionService.flush();
+
+        verify(reactionRepository).insertReactions(List.of(new ReactionRepository.ReactionRow(messageId, alice, THUMBS_UP)));
+        verify(messagingTemplate, times(3)).convertAndSend(eq("/topic/reactions." + channelId), any(Object.class));
+        assertThat(storedRows()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadsPickUpOtherInstancesAndKeepUnstoredChanges() throws Exception {
+        reactionService = service(100);
+        react(alice, THUMBS_UP, true);
+        // Another instance stored carol's reaction
+        jdbcTemplate.update("INSERT INTO message_reactions (message_id, user_id, emoji) VALUES (?, ?, ?)", messageId, carol, THUMBS_UP);
+
+        assertThat(react(bob, PARTY, true).getCount()).isEqualTo(1);
+        assertThat(react(bob, THUMBS_UP, true).getCount()).isEqualTo(2);
+
+        Thread.sleep(150);
+        // Reloaded from the database, with alice's and bob's unstored reactions on top
+        assertThat(react(carol, PARTY, true).getCount()).isEqualTo(2);
+        assertThat(react(alice, THUMBS_UP, false).getCount()).isEqualTo(2);
+
+        reactionService.flush();
+        assertThat(storedRows()).isEqualTo(4);
+    }
+
+    @Test
+    void togglesDuringAFlushAreStoredByTheNextOne() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(reactionRepository).insertReactions(anyList());
+        react(alice, THUMBS_UP, true);
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(reactionService::flush);
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        // Alice takes back the reaction being written, bob adds one
+        assertThat(react(alice, THUMBS_UP, false).getCount()).isZero();
+        react(bob, PARTY, true);
+        release.countDown();
+        flush.get(10, TimeUnit.SECONDS);
+
+        assertThat(storedRows()).isEqualTo(1);
+        reactionService.flush();
+        assertThat(jdbcTemplate.queryForList("SELECT emoji FROM message_reactions WHERE message_id = ?", String.class, messageId))
+                .containsExactly(PARTY);
+        assertThat(storedCounts()).isEqualTo("{\"" + PARTY + "\": 1}");
+    }
+
+    @Test
+    void failedFlushesAreRetriedAFewTimes() {
+        doThrow(new QueryTimeoutException("timeout")).when(reactionRepository).insertReactions(anyList());
+        react(alice, THUMBS_UP, true);
+
+        for (int i = 0; i < 5; i++) {
+            reactionService.flush();
+        }
+
+        verify(reactionRepository, times(3)).insertReactions(anyList());
+        assertThat(storedRows()).isZero();
+    }
+
+    @Test
+    void onlyMembersCanReactWithAValidEmoji() {
+        long outsider = testData.createUser();
+
+        assertThatThrownBy(() -> react(outsider, THUMBS_UP, true)).hasMessage("Message not found");
+        assertThatThrownBy(() -> react(alice, "not an emoji", true)).hasMessage("Invalid emoji");
+        assertThatThrownBy(() -> react(alice, "x".repeat(11), true)).hasMessage("Invalid emoji");
+    }
+
+    private ReactionService service(long ttlMs) {
+        ReactionService service = new ReactionService();
+        ReflectionTestUtils.setField(service, "reactionRepository", reactionRepository);
+        ReflectionTestUtils.setField(service, "channelMembershipService", channelMembershipService);
+        ReflectionTestUtils.setField(service, "recentMessageCache", mock(RecentMessageCache.class));
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "maxMessages", 100);
+        ReflectionTestUtils.setField(service, "ttlMs", ttlMs);
+        service.init();
+        return service;
+    }
+
+    private ReactionDto react(long userId, String emoji, boolean added) {
+        return reactionService.react(userId, new ReactionDto(messageId, emoji, null, added, 0));
+    }
+
+    private int storedRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM message_reactions WHERE message_id = ?", Integer.class, messageId);
+    }
+
+    private String storedCounts() {
+        return jdbcTemplate.queryForObject("SELECT reaction_counts::text FROM messages WHERE id = ?", String.class, messageId);
+    }
+}
\ No newline at end of file
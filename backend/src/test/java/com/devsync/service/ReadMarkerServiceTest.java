@@ -0,0 +1,164 @@
+package com.devsync.service;
+
+import com.devsync.dto.ReadMarkerDto;
+import com.devsync.repository.ConversationSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadMarkerServiceTest {
+
+    private static final long RECEIPT_INTERVAL_MS = 300;
+
+    private final ConversationSummaryRepository repository = mock(ConversationSummaryRepository.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final List<List<ReadMarkerDto>> stored = new ArrayList<>();
+    private ReadMarkerService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReadMarkerService();
+        ReflectionTestUtils.setField(service, "conversationSummaryRepository", repository);
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "receiptIntervalMs", RECEIPT_INTERVAL_MS);
+        // Every marker moves its read position unless a test says otherwise
+        when(repository.markRead(anyList())).thenAnswer(invocation -> {
+            List<ReadMarkerDto> markers = invocation.getArgument(0);
+            stored.add(new ArrayList<>(markers));
+            return markers;
+        });
+    }
+
+    @Test
+    void onlyTheLatestMarkerPerConversationIsStored() {
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 100L));
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 101L));
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 102L));
+        service.markRead(1L, "alice", request("DIRECT", 2L, 200L));
+        service.markRead(3L, "carol", request("CHANNEL", 10L, 101L));
+
+        service.flush();
+
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0)).extracting(ReadMarkerDto::getUserId, ReadMarkerDto::getType, ReadMarkerDto::getMessageId)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, "CHANNEL", 102L),
+                        tuple(1L, "DIRECT", 200L),
+                        tuple(3L, "CHANNEL", 101L));
+
+        service.flush();
+        assertThat(stored).hasSize(1);
+    }
+
+    @Test
+    void receiptsAreSentAtMostOncePerIntervalWithTheLatestMarker() throws Exception {
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 100L));
+        service.flush();
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 101L));
+        service.flush();
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 102L));
+        service.flush();
+
+        ArgumentCaptor<ReadMarkerDto> receipts = ArgumentCaptor.forClass(ReadMarkerDto.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/receipts.10"), receipts.capture());
+        assertThat(receipts.getValue().getMessageId()).isEqualTo(100L);
+        // Stored right away, only the receipt waits
+        assertThat(stored).hasSize(3);
+
+        Thread.sleep(RECEIPT_INTERVAL_MS + 50);
+        service.flush();
+
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/receipts.10"), receipts.capture());
+        assertThat(receipts.getValue().getMessageId()).isEqualTo(102L);
+        service.flush();
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/receipts.10"), any(Object.class));
+    }
+
+    @Test
+    void receiptsAreLimitedPerReaderAndConversation() {
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 100L));
+        service.markRead(3L, "carol", request("CHANNEL", 10L, 100L));
+        service.markRead(1L, "alice", request("DIRECT", 2L, 200L));
+        service.flush();
+
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/receipts.10"), any(Object.class));
+        // A direct receipt goes to the other side of the conversation
+        verify(messagingTemplate).convertAndSendToUser(eq("2"), eq("/queue/receipts"), any(Object.class));
+    }
+
+    @Test
+    void markersThatMoveNothingAreRetriedAFewTimesWithoutReceipts() {
+        doAnswer(invocation -> {
+            stored.add(new ArrayList<>(invocation.getArgument(0)));
+            return List.of();
+        }).when(repository).markRead(anyList());
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 100L));
+
+        for (int i = 0; i < 5; i++) {
+            service.flush();
+        }
+
+        // Until the write-behind pipeline has stored the message, or for good
+        assertThat(stored).hasSize(3);
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void failedBatchesComeBackUnlessANewerMarkerArrived() {
+        doAnswer(invocation -> {
+            // A newer marker comes in while the batch is being written
+            service.markRead(1L, "alice", request("CHANNEL", 10L, 105L));
+            throw new QueryTimeoutException("timeout");
+        }).doAnswer(invocation -> {
+            List<ReadMarkerDto> markers = invocation.getArgument(0);
+            stored.add(new ArrayList<>(markers));
+            return markers;
+        }).when(repository).markRead(anyList());
+        service.markRead(1L, "alice", request("CHANNEL", 10L, 100L));
+        service.markRead(3L, "carol", request("CHANNEL", 10L, 100L));
+
+        service.flush();
+        service.flush();
+
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0)).extracting(ReadMarkerDto::getUserId, ReadMarkerDto::getMessageId)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, 105L),
+                        tuple(3L, 100L));
+    }
+
+    @Test
+    void rejectsIncompleteMarkers() {
+        assertThatThrownBy(() -> service.markRead(1L, "alice", request("THREAD", 10L, 100L)))
+                .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> service.markRead(1L, "alice", request("CHANNEL", 10L, null)))
+                .isInstanceOf(RuntimeException.class);
+
+        service.flush();
+        verify(repository, never()).markRead(anyList());
+    }
+
+    private static ReadMarkerDto request(String type, Long conversationId, Long messageId) {
+        return new ReadMarkerDto(null, null, type, conversationId, messageId);
+    }
+}
\ No newline at end of file
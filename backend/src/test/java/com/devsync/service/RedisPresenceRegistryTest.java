@@ -0,0 +1,144 @@
+package com.devsync.service;
+
+import com.devsync.support.TestRedis;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisPresenceRegistryTest {
+
+    private final StringRedisTemplate redisTemplate = TestRedis.template();
+    private final RedisPresenceRegistry registry = new RedisPresenceRegistry();
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisConnection connection) -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        ReflectionTestUtils.setField(registry, "redisTemplate", redisTemplate);
+    }
+
+    @Test
+    void reportsOnlineAndOfflineEdgesOnce() {
+        assertThat(registry.addSession(1L, "a")).isTrue();
+        assertThat(registry.addSession(1L, "b")).isFalse();
+        assertThat(registry.isOnline(1L)).isTrue();
+
+        assertThat(registry.removeSession(1L, "a")).isFalse();
+        assertThat(registry.removeSession(1L, "b")).isTrue();
+        assertThat(registry.isOnline(1L)).isFalse();
+        assertThat(redisTemplate.opsForZSet().size("{presence}:expiry")).isZero();
+    }
+
+    @Test
+    void expiresOnlyStaleSessions() throws Exception {
+        registry.addSession(1L, "stale");
+        registry.addSession(2L, "stale");
+        registry.addSession(2L, "live");
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        registry.refreshSessions(Map.of("live", 2L));
+
+        assertThat(registry.expireSessions(cutoff)).containsExactly(1L);
+        assertThat(registry.getOnlineUserIds()).containsExactly(2L);
+        assertThat(redisTemplate.opsForHash().keys("{presence}:sessions:2")).containsExactly("live");
+        assertThat(registry.expireSessions(cutoff)).isEmpty();
+    }
+
+    @Test
+    void looksUpOnlyTheUsersAskedAbout() {
+        List<Long> members = new ArrayList<>();
+        for (long userId = 1; userId <= 2500; userId++) {
+            members.add(userId);
+            if (userId % 3 == 0) {
+                registry.addSession(userId, "s" + userId);
+            }
+        }
+        registry.addSession(9000L, "not a member");
+
+        resetStats();
+        Set<Long> online = registry.getOnlineUserIds(members);
+
+        assertThat(online).hasSize(833).allMatch(userId -> userId % 3 == 0).doesNotContain(9000L);
+        // Batched SMISMEMBER calls, never a full SMEMBERS
+        assertThat(commandCalls("smismember")).isEqualTo(3);
+        assertThat(commandCalls("smembers")).isZero();
+        assertThat(registry.getOnlineUserIds(List.of())).isEmpty();
+    }
+
+    @Test
+    void sweepsManyUsersInOneScriptCall() throws Exception {
+        Map<String, Long> sessions = new HashMap<>();
+        for (long userId = 1; userId <= 500; userId++) {
+            sessions.put("s" + userId, userId);
+        }
+        assertThat(registry.refreshSessions(sessions)).hasSize(500);
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        Thread.sleep(5);
+        // A user with a stale session but a live one elsewhere does not go offline
+        registry.addSession(7L, "other");
+
+        resetStats();
+        Set<Long> offline = registry.expireSessions(cutoff);
+
+        // The sweep is one EVALSHA (or EVAL when the script is not cached yet), not one per user
+        assertThat(commandCalls("evalsha") + commandCalls("eval")).isBetween(1L, 2L);
+        assertThat(offline).hasSize(499).doesNotContain(7L);
+        assertThat(registry.getOnlineUserIds()).containsExactly(7L);
+    }
+
+    @Test
+    void sweepsInBatches() {
+        Map<String, Long> sessions = new HashMap<>();
+        for (long userId = 1; userId <= 2500; userId++) {
+            sessions.put("s" + userId, userId);
+        }
+        registry.refreshSessions(sessions);
+
+        assertThat(registry.expireSessions(System.currentTimeMillis() + 1)).hasSize(2500);
+        assertThat(redisTemplate.opsForZSet().size("{presence}:expiry")).isZero();
+    }
+
+    @Test
+    void instancesShareChannelVersions() {
+        RedisPresenceRegistry otherInstance = new RedisPresenceRegistry();
+        ReflectionTestUtils.setField(otherInstance, "redisTemplate", TestRedis.template());
+
+        assertThat(registry.getChannelVersion(1L)).isZero();
+        assertThat(registry.nextChannelVersions(List.of(1L, 2L))).isEqualTo(Map.of(1L, 1L, 2L, 1L));
+        assertThat(otherInstance.nextChannelVersions(List.of(1L))).isEqualTo(Map.of(1L, 2L));
+        assertThat(registry.getChannelVersion(1L)).isEqualTo(2L);
+        assertThat(otherInstance.getChannelVersion(2L)).isEqualTo(1L);
+    }
+
+    private void resetStats() {
+        redisTemplate.execute((RedisConnection connection) -> {
+            connection.serverCommands().resetConfigStats();
+            return null;
+        });
+    }
+
+    private long commandCalls(String command) {
+        Properties stats = redisTemplate.execute((RedisConnection connection) ->
+                connection.serverCommands().info("commandstats"));
+        String value = stats.getProperty("cmdstat_" + command);
+        if (value == null) {
+            return 0;
+        }
+        // calls=N,usec=...
+        return Long.parseLong(value.substring("calls=".length(), value.indexOf(',')));
+    }
+}
\ No newline at end of file
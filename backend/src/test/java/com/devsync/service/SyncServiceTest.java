@@ -0,0 +1,209 @@
+package com.devsync.service;
+
+import com.devsync.dto.ChatMessageDto;
+import com.devsync.dto.ConversationCursorDto;
+import com.devsync.dto.ConversationSyncDto;
+import com.devsync.dto.SyncRequestDto;
+import com.devsync.entity.Channel;
+import com.devsync.entity.Message;
+import com.devsync.entity.User;
+import com.devsync.repository.ConversationSummaryRepository;
+import com.devsync.support.IntegrationTest;
+import com.devsync.support.SqlCapture;
+import com.devsync.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every test user is new, so their inbox only holds the conversations seeded here
+class SyncServiceTest extends IntegrationTest {
+
+    private static final int CHANNEL_MESSAGES = 6;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private long alice;
+    private long bob;
+    private long channelId;
+    private long[] channelIds;
+    private long[] directIds;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void seed() {
+        alice = testData.createUser();
+        bob = testData.createUser();
+        channelId = testData.createChannel(alice, bob);
+        start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        channelIds = new long[CHANNEL_MESSAGES];
+        for (int i = 0; i < CHANNEL_MESSAGES; i++) {
+            channelIds[i] = record(channelId, null, bob, i + 1);
+        }
+        directIds = new long[]{record(null, bob, alice, 1), record(null, alice, bob, 2)};
+    }
+
+    @Test
+    void conversationsTheClientHasCaughtUpWithAreLeftOut() {
+        List<ConversationSyncDto> changed = sync(null,
+                cursor("CHANNEL", channelId, channelIds[5], 6L, null),
+                cursor("DIRECT", bob, directIds[1], 2L, directIds[0]));
+
+        assertThat(changed).isEmpty();
+    }
+
+    @Test
+    void seqCursorsGetTheMessagesAfterThem() {
+        List<ConversationSyncDto> changed = sync(null, cursor("CHANNEL", channelId, channelIds[2], 3L, null));
+
+        ConversationSyncDto channel = only(changed, "CHANNEL");
+        assertThat(channel.isReset()).isFalse();
+        assertThat(ids(channel)).containsExactly(channelIds[3], channelIds[4], channelIds[5]);
+        assertThat(channel.getUnreadCount()).isEqualTo(CHANNEL_MESSAGES);
+    }
+
+    @Test
+    void theSeqWinsOverAStaleMessageId() {
+        List<ConversationSyncDto> changed = sync(null, cursor("CHANNEL", channelId, channelIds[0], 5L, null));
+
+        assertThat(ids(only(changed, "CHANNEL"))).containsExactly(channelIds[5]);
+    }
+
+    @Test
+    void messageIdCursorsFromOlderClientsStillWork() {
+        List<ConversationSyncDto> changed = sync(null, cursor("CHANNEL", channelId, channelIds[3], null, null));
+
+        ConversationSyncDto channel = only(changed, "CHANNEL");
+        assertThat(channel.isReset()).isFalse();
+        assertThat(ids(channel)).containsExactly(channelIds[4], channelIds[5]);
+    }
+
+    @Test
+    void clientsTooFarBehindGetTheLatestPageAsAReset() {
+        List<ConversationSyncDto> changed = sync(2, cursor("CHANNEL", channelId, channelIds[0], 1L, null));
+
+        ConversationSyncDto channel = only(changed, "CHANNEL");
+        assertThat(channel.isReset()).isTrue();
+        assertThat(ids(channel)).containsExactly(channelIds[4], channelIds[5]);
+    }
+
+    @Test
+    void unknownCursorsAndNewConversationsGetTheLatestPage() {
+        List<ConversationSyncDto> changed = sync(null, cursor("CHANNEL", channelId, Long.MAX_VALUE, null, null));
+
+        ConversationSyncDto channel = only(changed, "CHANNEL");
+        assertThat(channel.isReset()).isTrue();
+        assertThat(ids(channel)).hasSize(CHANNEL_MESSAGES).endsWith(channelIds[5]);
+        // The direct conversation was not in the request at all
+        ConversationSyncDto direct = only(changed, "DIRECT");
+        assertThat(direct.isReset()).isTrue();
+        assertThat(ids(direct)).containsExactly(directIds[0], directIds[1]);
+    }
+
+    @Test
+    void aMovedReadMarkerAloneComesBackWithoutMessages() {
+        List<ConversationSyncDto> changed = sync(null,
+                cursor("CHANNEL", channelId, channelIds[5], 6L, null),
+                cursor("DIRECT", bob, directIds[1], 2L, null));
+
+        ConversationSyncDto direct = only(changed, "DIRECT");
+        // Alice sent the first direct message, so her marker points at it
+        assertThat(direct.getLastReadMessageId()).isEqualTo(directIds[0]);
+        assertThat(direct.getUnreadCount()).isEqualTo(1);
+        assertThat(direct.getMessages()).isEmpty();
+        assertThat(changed).hasSize(1);
+    }
+
+    @Test
+    void directSeqCursorsGetTheMessagesAfterThem() {
+        List<ConversationSyncDto> changed = sync(null,
+                cursor("CHANNEL", channelId, channelIds[5], 6L, null),
+                cursor("DIRECT", bob, directIds[0], 1L, directIds[0]));
+
+        ConversationSyncDto direct = only(changed, "DIRECT");
+        assertThat(direct.isReset()).isFalse();
+        assertThat(ids(direct)).containsExactly(directIds[1]);
+    }
+
+    @Test
+    void aWarmRecentMessageCacheAnswersChannelSyncs() {
+        chatService.loadLatestChannelMessages(channelId, CHANNEL_MESSAGES);
+
+        SqlCapture.clear();
+        List<ConversationSyncDto> changed = sync(null,
+                cursor("CHANNEL", channelId, channelIds[2], 3L, null),
+                cursor("DIRECT", bob, directIds[1], 2L, directIds[0]));
+
+        assertThat(ids(only(changed, "CHANNEL"))).containsExactly(channelIds[3], channelIds[4], channelIds[5]);
+        // Only the inbox query, which goes through JDBC rather than Hibernate
+        assertThat(SqlCapture.statements()).isEmpty();
+    }
+
+    private List<ConversationSyncDto> sync(Integer limit, ConversationCursorDto... cursors) {
+        SyncRequestDto request = new SyncRequestDto();
+        request.setConversations(new ArrayList<>(List.of(cursors)));
+        request.setLimit(limit);
+        return syncService.sync(alice, request);
+    }
+
+    private static ConversationCursorDto cursor(String type, long conversationId, Long lastMessageId, Long lastSeq, Long lastReadMessageId) {
+        ConversationCursorDto cursor = new ConversationCursorDto();
+        cursor.setType(type);
+        cursor.setConversationId(conversationId);
+        cursor.setLastMessageId(lastMessageId);
+        cursor.setLastSeq(lastSeq);
+        cursor.setLastReadMessageId(lastReadMessageId);
+        return cursor;
+    }
+
+    private static ConversationSyncDto only(List<ConversationSyncDto> changed, String type) {
+        return changed.stream().filter(conversation -> type.equals(conversation.getType())).findFirst().orElseThrow();
+    }
+
+    private static List<Long> ids(ConversationSyncDto conversation) {
+        return conversation.getMessages().stream().map(ChatMessageDto::getId).toList();
+    }
+
+    // Inserts the message and records it in the summaries, as the write-behind flush does
+    private long record(Long channel, Long recipientId, long senderId, long seq) {
+        LocalDateTime createdAt = start.plusSeconds(seq);
+        Message message = new Message();
+        if (channel != null) {
+            message.setId(testData.insertChannelMessage(channel, senderId, seq, createdAt));
+            Channel target = new Channel();
+            target.setId(channel);
+            message.setChannel(target);
+        } else {
+            message.setId(testData.insertDirectMessage(senderId, recipientId, seq, createdAt));
+            message.setRecipient(user(recipientId));
+        }
+        message.setSender(user(senderId));
+        message.setContent("message " + seq);
+        message.setSeq(seq);
+        message.setCreatedAt(createdAt);
+        conversationSummaryRepository.recordMessages(List.of(message));
+        return message.getId();
+    }
+
+    private static User user(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("u" + userId);
+        return user;
+    }
+}
\ No newline at end of file
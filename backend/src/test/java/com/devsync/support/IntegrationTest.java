@@ -0,0 +1,29 @@
+package com.devsync.support;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+// Full application context on the embedded database, with pushes only logged
+@SpringBootTest(properties = {
+        "push.gateway=log",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.devsync.support.SqlCapture",
+        "jwt.secret=" + IntegrationTest.JWT_SECRET,
+        "logging.level.com.devsync=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+public abstract class IntegrationTest {
+
+    // Base64 of 32 bytes, the HMAC-SHA256 minimum
+    public static final String JWT_SECRET = "ZGV2c3luYy10ZXN0LXNlY3JldC1rZXktMzItYnl0ZXMhIQ==";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", TestDatabase::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        // The database is new for every run and so are its attachment ids, so the files are too
+        registry.add("attachments.local.root", () -> "target/test-attachments/" + ProcessHandle.current().pid());
+    }
+}
\ No newline at end of file
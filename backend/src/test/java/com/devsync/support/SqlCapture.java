@@ -0,0 +1,26 @@
+package com.devsync.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records the SQL Hibernate sends from the current thread, for statement-count and plan assertions
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        statements.get().add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        statements.get().clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(statements.get());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.devsync.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Inserts fixtures straight through JDBC; names are unique, so tests can share the database
+@Component
+public class TestData {
+
+    private static final AtomicLong counter = new AtomicLong(System.nanoTime() % 1_000_000_000L);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public long createUser() {
+        String name = "u" + counter.incrementAndGet();
+        long id = jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, email, password) VALUES (?, ?, 'x') RETURNING id",
+                Long.class, name, name + "@example.com");
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'ROLE_USER'", id);
+        return id;
+    }
+
+    public long createChannel(long ownerId, long... memberIds) {
+        long id = jdbcTemplate.queryForObject(
+                "INSERT INTO channels (name, created_by) VALUES (?, ?) RETURNING id",
+                Long.class, "c" + counter.incrementAndGet(), ownerId);
+        jdbcTemplate.update("INSERT INTO channel_members (channel_id, user_id) VALUES (?, ?)", id, ownerId);
+        for (long memberId : memberIds) {
+            jdbcTemplate.update("INSERT INTO channel_members (channel_id, user_id) VALUES (?, ?)", id, memberId);
+        }
+        return id;
+    }
+
+    public long insertChannelMessage(long channelId, long senderId, long seq, LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO messages (content, sender_id, channel_id, type, created_at, updated_at, seq) " +
+                "VALUES (?, ?, ?, 'TEXT', ?, ?, ?) RETURNING id",
+                Long.class, "message " + seq, senderId, channelId,
+                Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt), seq);
+    }
+
+    public long insertDirectMessage(long senderId, long recipientId, long seq, LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO messages (content, sender_id, recipient_id, type, created_at, updated_at, seq) " +
+                "VALUES (?, ?, ?, 'TEXT', ?, ?, ?) RETURNING id",
+                Long.class, "message " + seq, senderId, recipientId,
+                Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt), seq);
+    }
+
+    public long insertReply(long channelId, long senderId, long parentId, long seq, LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO messages (content, sender_id, channel_id, parent_message_id, type, created_at, updated_at, seq) " +
+                "VALUES (?, ?, ?, ?, 'TEXT', ?, ?, ?) RETURNING id",
+                Long.class, "reply " + seq, senderId, channelId, parentId,
+                Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt), seq);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.devsync.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// One embedded PostgreSQL per test JVM, created from database/schema.sql
+public final class TestDatabase {
+
+    private static EmbeddedPostgres postgres;
+
+    private TestDatabase() {}
+
+    public static synchronized DataSource dataSource() {
+        return server().getPostgresDatabase();
+    }
+
+    // Same driver options as application.yml
+    public static synchronized String jdbcUrl() {
+        return server().getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true&stringtype=unspecified";
+    }
+
+    private static EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+                try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                     Statement statement = connection.createStatement()) {
+                    // The driver runs a multi-statement script as one simple query, $$ bodies included
+                    statement.execute(Files.readString(schemaPath()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to create the test schema", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // the process is exiting anyway
+                }
+            }));
+        }
+        return postgres;
+    }
+
+    private static Path schemaPath() {
+        Path path = Path.of("../database/schema.sql");
+        return Files.exists(path) ? path : Path.of("database/schema.sql");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.devsync.support;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+// One embedded Redis per test JVM, for the components behind presence.registry=redis
+public final class TestRedis {
+
+    private static RedisServer redis;
+    private static int port;
+
+    private TestRedis() {}
+
+    public static synchronized int port() {
+        if (redis == null) {
+            try {
+                try (ServerSocket socket = new ServerSocket(0)) {
+                    port = socket.getLocalPort();
+                }
+                redis = new RedisServer(port);
+                redis.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    redis.stop();
+                } catch (IOException ignored) {
+                    // the process is exiting anyway
+                }
+            }));
+        }
+        return port;
+    }
+
+    // A template on its own connection factory, for tests that run without an application context
+    public static StringRedisTemplate template() {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port()));
+        connectionFactory.afterPropertiesSet();
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        template.afterPropertiesSet();
+        return template;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.devsync.utils;
+
+import com.devsync.security.UserDetailsImpl;
+import com.devsync.support.IntegrationTest;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    @Test
+    void servesRepeatedTokensFromTheCache() {
+        JwtUtils jwtUtils = jwtUtils(100, 60_000);
+        String token = token(jwtUtils, 1L);
+
+        Claims first = jwtUtils.parseClaims(token);
+        assertThat(first.get(JwtUtils.USER_ID_CLAIM, Long.class)).isEqualTo(1L);
+        assertThat(jwtUtils.parseClaims(token)).isSameAs(first);
+    }
+
+    @Test
+    void staysBoundedAndEvictsTheLeastRecentlyUsed() {
+        JwtUtils jwtUtils = jwtUtils(32, 60_000);
+        String hot = token(jwtUtils, 0L);
+        Claims hotClaims = jwtUtils.parseClaims(hot);
+
+        for (long userId = 1; userId <= 1000; userId++) {
+            jwtUtils.parseClaims(token(jwtUtils, userId));
+            // Keeps the hot token at the recently used end of its segment
+            jwtUtils.parseClaims(hot);
+        }
+
+        assertThat(cachedTokens(jwtUtils)).isLessThanOrEqualTo(32);
+        assertThat(jwtUtils.parseClaims(hot)).isSameAs(hotClaims);
+    }
+
+    @Test
+    void rejectsExpiredTokensEvenWhenCached() throws Exception {
+        JwtUtils jwtUtils = jwtUtils(100, 1_000);
+        String token = token(jwtUtils, 1L);
+        assertThat(jwtUtils.parseClaims(token)).isNotNull();
+
+        Thread.sleep(1_100);
+
+        assertThat(jwtUtils.parseClaims(token)).isNull();
+        assertThat(cachedTokens(jwtUtils)).isZero();
+    }
+
+    private static JwtUtils jwtUtils(int maxCachedTokens, int expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", IntegrationTest.JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(jwtUtils, "maxCachedTokens", maxCachedTokens);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    static String token(JwtUtils jwtUtils, long userId) {
+        UserDetailsImpl user = new UserDetailsImpl(userId, "user" + userId, "user" + userId + "@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static int cachedTokens(JwtUtils jwtUtils) {
+        Map<?, ?>[] segments = (Map<?, ?>[]) ReflectionTestUtils.getField(jwtUtils, "verifiedTokens");
+        return Arrays.stream(segments).mapToInt(Map::size).sum();
+    }
+}
\ No newline at end of file
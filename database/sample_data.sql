@@ -1,6 +1,11 @@
 -- Sample data for DevSync application
 -- Run this after creating the main schema
 
+-- Sample rows reference each other by id, so insert them with unit increments
+ALTER SEQUENCE users_id_seq INCREMENT BY 1;
+ALTER SEQUENCE channels_id_seq INCREMENT BY 1;
+ALTER SEQUENCE messages_id_seq INCREMENT BY 1;
+
 -- Insert sample users (passwords are 'password123' hashed with BCrypt)
 INSERT INTO users (username, email, password, first_name, last_name, status, is_online) VALUES 
     ('admin', 'admin@devsync.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', 'Admin', 'User', 'ACTIVE', TRUE),
@@ -70,49 +75,63 @@ INSERT INTO channel_members (channel_id, user_id) VALUES
     (9, 1), (9, 5)
 ON CONFLICT DO NOTHING;
 
--- Insert sample messages
-INSERT INTO messages (content, sender_id, channel_id, type) VALUES 
-    ('Welcome to DevSync! 🎉', 1, 1, 'TEXT'),
-    ('Thanks for setting this up!', 2, 1, 'TEXT'),
-    ('Looking forward to collaborating here', 3, 1, 'TEXT'),
-    ('Great to have everyone on board', 4, 1, 'TEXT'),
-    ('Let''s build something amazing together! 🚀', 5, 1, 'TEXT'),
+-- Insert sample messages; seq numbers each channel's messages 1, 2, 3, ...
+INSERT INTO messages (content, sender_id, channel_id, type, seq) VALUES 
+    ('Welcome to DevSync! 🎉', 1, 1, 'TEXT', 1),
+    ('Thanks for setting this up!', 2, 1, 'TEXT', 2),
+    ('Looking forward to collaborating here', 3, 1, 'TEXT', 3),
+    ('Great to have everyone on board', 4, 1, 'TEXT', 4),
+    ('Let''s build something amazing together! 🚀', 5, 1, 'TEXT', 5),
     
     -- Random channel messages
-    ('Anyone up for a coffee break? ☕', 2, 2, 'TEXT'),
-    ('Just finished the new feature implementation', 3, 2, 'TEXT'),
-    ('The weather is great today! 🌞', 6, 2, 'TEXT'),
+    ('Anyone up for a coffee break? ☕', 2, 2, 'TEXT', 1),
+    ('Just finished the new feature implementation', 3, 2, 'TEXT', 2),
+    ('The weather is great today! 🌞', 6, 2, 'TEXT', 3),
     
     -- Backend channel messages
-    ('Working on the authentication system', 3, 4, 'TEXT'),
-    ('Database schema is ready for review', 6, 4, 'TEXT'),
-    ('API endpoints are documented', 8, 4, 'TEXT'),
+    ('Working on the authentication system', 3, 4, 'TEXT', 1),
+    ('Database schema is ready for review', 6, 4, 'TEXT', 2),
+    ('API endpoints are documented', 8, 4, 'TEXT', 3),
     
     -- Frontend channel messages
-    ('New UI components are ready', 2, 5, 'TEXT'),
-    ('Mobile responsiveness looks good', 4, 5, 'TEXT'),
-    ('Testing the new chat interface', 7, 5, 'TEXT'),
+    ('New UI components are ready', 2, 5, 'TEXT', 1),
+    ('Mobile responsiveness looks good', 4, 5, 'TEXT', 2),
+    ('Testing the new chat interface', 7, 5, 'TEXT', 3),
     
     -- Announcements
-    ('Sprint planning meeting tomorrow at 10 AM', 1, 3, 'TEXT'),
-    ('Please update your profiles with your contact info', 1, 3, 'TEXT')
+    ('Sprint planning meeting tomorrow at 10 AM', 1, 3, 'TEXT', 1),
+    ('Please update your profiles with your contact info', 1, 3, 'TEXT', 2)
 ON CONFLICT DO NOTHING;
 
--- Insert sample direct messages
-INSERT INTO messages (content, sender_id, recipient_id, type) VALUES 
-    ('Hey, can you review the PR when you get a chance?', 2, 3, 'TEXT'),
-    ('Sure! I''ll take a look this afternoon', 3, 2, 'TEXT'),
-    ('Thanks! No rush though', 2, 3, 'TEXT'),
+-- Insert sample direct messages; seq is numbered per pair of users
+INSERT INTO messages (content, sender_id, recipient_id, type, seq) VALUES 
+    ('Hey, can you review the PR when you get a chance?', 2, 3, 'TEXT', 1),
+    ('Sure! I''ll take a look this afternoon', 3, 2, 'TEXT', 2),
+    ('Thanks! No rush though', 2, 3, 'TEXT', 3),
     
-    ('Great work on the backend API!', 4, 3, 'TEXT'),
-    ('Thanks! The authentication system is working well now', 3, 4, 'TEXT'),
+    ('Great work on the backend API!', 4, 3, 'TEXT', 1),
+    ('Thanks! The authentication system is working well now', 3, 4, 'TEXT', 2),
     
-    ('Can you help me with the frontend styling?', 2, 4, 'TEXT'),
-    ('Of course! What specific issue are you facing?', 4, 2, 'TEXT'),
+    ('Can you help me with the frontend styling?', 2, 4, 'TEXT', 1),
+    ('Of course! What specific issue are you facing?', 4, 2, 'TEXT', 2),
     
-    ('Meeting reminder: Code review at 2 PM', 1, 5, 'TEXT'),
-    ('Got it! I''ll be there', 5, 1, 'TEXT'),
+    ('Meeting reminder: Code review at 2 PM', 1, 5, 'TEXT', 1),
+    ('Got it! I''ll be there', 5, 1, 'TEXT', 2),
     
-    ('The new feature is deployed to staging', 8, 1, 'TEXT'),
-    ('Perfect! Let''s test it thoroughly', 1, 8, 'TEXT')
-ON CONFLICT DO NOTHING; 
\ No newline at end of file
+    ('The new feature is deployed to staging', 8, 1, 'TEXT', 1),
+    ('Perfect! Let''s test it thoroughly', 1, 8, 'TEXT', 2)
+ON CONFLICT DO NOTHING;
+
+-- Continue numbering after the sample messages, so the first live send takes the next seq
+INSERT INTO conversation_sequences (conversation_key, last_seq)
+SELECT 'c:' || channel_id, max(seq) FROM messages WHERE channel_id IS NOT NULL GROUP BY channel_id
+UNION ALL
+SELECT 'd:' || LEAST(sender_id, recipient_id) || ':' || GREATEST(sender_id, recipient_id), max(seq)
+FROM messages WHERE recipient_id IS NOT NULL
+GROUP BY LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id)
+ON CONFLICT (conversation_key) DO UPDATE SET last_seq = GREATEST(conversation_sequences.last_seq, EXCLUDED.last_seq);
+
+-- Restore pooled id allocation (see schema.sql)
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE channels_id_seq INCREMENT BY 50;
+ALTER SEQUENCE messages_id_seq INCREMENT BY 50; 
\ No newline at end of file
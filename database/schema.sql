@@ -36,6 +36,7 @@ CREATE TABLE IF NOT EXISTS users (
     last_seen TIMESTAMP WITH TIME ZONE,
     firebase_token TEXT,
     is_online BOOLEAN DEFAULT FALSE,
+    tokens_valid_after TIMESTAMP WITH TIME ZONE,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
@@ -84,6 +85,9 @@ CREATE TABLE IF NOT EXISTS messages (
     edited_at TIMESTAMP WITH TIME ZONE,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    seq BIGINT NOT NULL, -- 1, 2, 3, ... within the channel or direct conversation
+    reaction_counts JSONB, -- {"emoji": count}, rewritten from message_reactions on every reaction flush
+    search_vector tsvector GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED,
     FOREIGN KEY (sender_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (channel_id) REFERENCES channels(id) ON DELETE CASCADE,
     FOREIGN KEY (recipient_id) REFERENCES users(id) ON DELETE CASCADE,
@@ -95,7 +99,7 @@ CREATE TABLE IF NOT EXISTS messages (
     )
 );
 
--- Create message_reactions table (for future emoji reactions)
+-- Create message_reactions table (emoji reactions, written in batches by the backend)
 CREATE TABLE IF NOT EXISTS message_reactions (
     id BIGSERIAL PRIMARY KEY,
     message_id BIGINT NOT NULL,
@@ -115,8 +119,16 @@ CREATE TABLE IF NOT EXISTS message_attachments (
     file_url VARCHAR(500) NOT NULL,
     file_size BIGINT,
     mime_type VARCHAR(100),
+    uploader_id BIGINT,
+    -- UPLOADING (chunks arriving), PROCESSING (hashing), READY
+    status VARCHAR(10) NOT NULL DEFAULT 'READY' CHECK (status IN ('UPLOADING', 'PROCESSING', 'READY')),
+    storage_key VARCHAR(300), -- blob store key; content-addressed (shared by equal files) once READY
+    content_hash VARCHAR(64), -- sha-256
+    thumbnail_key VARCHAR(300),
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE,
+    FOREIGN KEY (uploader_id) REFERENCES users(id) ON DELETE SET NULL
 );
 
 -- Create user_sessions table for managing active sessions
@@ -129,6 +141,69 @@ CREATE TABLE IF NOT EXISTS user_sessions (
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Create conversation_summary table: per-user inbox rows maintained on message write.
+-- conversation_id is the channel id, or the other user's id for direct messages
+CREATE TABLE IF NOT EXISTS conversation_summary (
+    user_id BIGINT NOT NULL,
+    conversation_type VARCHAR(10) NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    last_message_id BIGINT,
+    last_sender_id BIGINT,
+    last_sender_username VARCHAR(50),
+    last_message_preview VARCHAR(200),
+    last_message_at TIMESTAMP WITH TIME ZONE,
+    last_read_message_id BIGINT,
+    last_message_seq BIGINT,
+    last_read_seq BIGINT,
+    unread_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, conversation_type, conversation_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Create conversation_sequences table: next message seq per conversation,
+-- keyed 'c:<channel id>' or 'd:<low user id>:<high user id>'
+CREATE TABLE IF NOT EXISTS conversation_sequences (
+    conversation_key VARCHAR(50) PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
+
+-- Create message_mentions table: the mentions inbox, one row per mentioned user and message.
+-- The message key is deferred because mention rows may be written before the ORM flushes the message
+CREATE TABLE IF NOT EXISTS message_mentions (
+    user_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    channel_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    mention_type VARCHAR(10) NOT NULL CHECK (mention_type IN ('USER', 'CHANNEL', 'HERE')),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (user_id, message_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE DEFERRABLE INITIALLY DEFERRED,
+    FOREIGN KEY (channel_id) REFERENCES channels(id) ON DELETE CASCADE
+);
+
+-- Create message_dead_letters table: write-behind messages the database rejected for good,
+-- kept for inspection and replay instead of being dropped (no foreign keys on purpose)
+CREATE TABLE IF NOT EXISTS message_dead_letters (
+    message_id BIGINT PRIMARY KEY,
+    content TEXT,
+    sender_id BIGINT NOT NULL,
+    channel_id BIGINT,
+    recipient_id BIGINT,
+    parent_message_id BIGINT,
+    type VARCHAR(20) NOT NULL,
+    seq BIGINT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    error TEXT,
+    failed_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Pooled id allocation: the backend reserves blocks of 50 ids per nextval
+-- (Hibernate pooled-lo optimizer), which lets inserts be sent as JDBC batches
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE channels_id_seq INCREMENT BY 50;
+ALTER SEQUENCE messages_id_seq INCREMENT BY 50;
+
 -- Insert default roles
 INSERT INTO roles (name) VALUES 
     ('ROLE_USER'),
@@ -153,6 +228,22 @@ CREATE INDEX IF NOT EXISTS idx_messages_parent_message_id ON messages(parent_mes
 CREATE INDEX IF NOT EXISTS idx_messages_created_at ON messages(created_at);
 CREATE INDEX IF NOT EXISTS idx_messages_type ON messages(type);
 
+-- Keyset (cursor) pagination of channel and direct message history on (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_messages_channel_keyset
+    ON messages(channel_id, created_at DESC, id DESC)
+    WHERE channel_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_messages_direct_keyset
+    ON messages(LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), created_at DESC, id DESC)
+    WHERE recipient_id IS NOT NULL;
+
+-- Full-text search on message content
+CREATE INDEX IF NOT EXISTS idx_messages_search_vector ON messages USING GIN (search_vector);
+
+-- Per-conversation sequence numbers are unique and serve resume queries
+CREATE UNIQUE INDEX IF NOT EXISTS idx_messages_channel_seq ON messages(channel_id, seq) WHERE channel_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_messages_direct_seq
+    ON messages(LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), seq) WHERE recipient_id IS NOT NULL;
+
 CREATE INDEX IF NOT EXISTS idx_message_reactions_message_id ON message_reactions(message_id);
 CREATE INDEX IF NOT EXISTS idx_message_reactions_user_id ON message_reactions(user_id);
 
@@ -160,6 +251,13 @@ CREATE INDEX IF NOT EXISTS idx_user_sessions_user_id ON user_sessions(user_id);
 CREATE INDEX IF NOT EXISTS idx_user_sessions_token ON user_sessions(session_token);
 CREATE INDEX IF NOT EXISTS idx_user_sessions_expires_at ON user_sessions(expires_at);
 
+CREATE INDEX IF NOT EXISTS idx_conversation_summary_inbox ON conversation_summary(user_id, last_message_at DESC NULLS LAST);
+
+CREATE INDEX IF NOT EXISTS idx_message_attachments_message_id ON message_attachments(message_id);
+CREATE INDEX IF NOT EXISTS idx_message_attachments_pending ON message_attachments(status, updated_at) WHERE status <> 'READY';
+
+CREATE INDEX IF NOT EXISTS idx_message_mentions_inbox ON message_mentions(user_id, created_at DESC, message_id DESC);
+
 -- Create trigger function to update updated_at timestamp
 CREATE OR REPLACE FUNCTION update_updated_at_column()
 RETURNS TRIGGER AS $$
@@ -33,15 +33,15 @@ class MessageService {
     };
   }
 
-  async getChannelMessages(channelId: number, page: number = 0): Promise<MessageWithUI[]> {
+  async getChannelMessages(channelId: number, before?: number): Promise<MessageWithUI[]> {
     await this.initialize();
-    const response = await apiService.getChannelMessages(channelId, page);
+    const response = await apiService.getChannelMessages(channelId, before);
     return response.content.map(msg => this.formatMessage(msg)).reverse(); // Reverse for chronological order
   }
 
-  async getDirectMessages(userId: number, page: number = 0): Promise<MessageWithUI[]> {
+  async getDirectMessages(userId: number, before?: number): Promise<MessageWithUI[]> {
     await this.initialize();
-    const response = await apiService.getDirectMessages(userId, page);
+    const response = await apiService.getDirectMessages(userId, before);
     return response.content.map(msg => this.formatMessage(msg)).reverse();
   }
 
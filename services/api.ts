@@ -172,28 +172,36 @@ class ApiService {
   }
 
   // Messages
-  async getChannelMessages(channelId: number, page: number = 0, size: number = 20): Promise<{
+  // History is cursor-paged: pass the id of the oldest loaded message to get older ones
+  async getChannelMessages(channelId: number, before?: number, size: number = 20): Promise<{
     content: Message[];
-    totalElements: number;
-    totalPages: number;
     last: boolean;
   }> {
+    const params = new URLSearchParams({ size: size.toString() });
+    if (before !== undefined) {
+      params.append('before', before.toString());
+    }
+
     const response = await fetch(
-      `${API_BASE_URL}/messages/channel/${channelId}?page=${page}&size=${size}`,
+      `${API_BASE_URL}/messages/channel/${channelId}?${params}`,
       { headers: await this.getAuthHeaders() }
     );
     
     return this.handleResponse(response);
   }
 
-  async getDirectMessages(userId: number, page: number = 0, size: number = 20): Promise<{
+  // History is cursor-paged: pass the id of the oldest loaded message to get older ones
+  async getDirectMessages(userId: number, before?: number, size: number = 20): Promise<{
     content: Message[];
-    totalElements: number;
-    totalPages: number;
     last: boolean;
   }> {
+    const params = new URLSearchParams({ size: size.toString() });
+    if (before !== undefined) {
+      params.append('before', before.toString());
+    }
+
     const response = await fetch(
-      `${API_BASE_URL}/messages/direct/${userId}?page=${page}&size=${size}`,
+      `${API_BASE_URL}/messages/direct/${userId}?${params}`,
       { headers: await this.getAuthHeaders() }
     );
     
@@ -0,0 +1,10 @@
+-- Pooled id allocation for users, channels and messages
+-- The backend maps these ids with allocationSize = 50 and the pooled-lo optimizer:
+-- every nextval reserves a block of 50 ids, so Hibernate no longer needs an
+-- INSERT round trip per row to learn the generated key and can batch inserts.
+-- Plain INSERTs that rely on the column default keep working; each one simply
+-- consumes a whole block.
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE channels_id_seq INCREMENT BY 50;
+ALTER SEQUENCE messages_id_seq INCREMENT BY 50;
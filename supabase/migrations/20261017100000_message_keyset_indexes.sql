@@ -0,0 +1,11 @@
+-- Composite indexes for keyset (cursor) pagination of message history
+-- Channel history walks (channel_id, created_at, id) and direct messages walk the
+-- unordered user pair, so neither needs an OFFSET scan or a COUNT(*) any more.
+
+CREATE INDEX IF NOT EXISTS idx_messages_channel_keyset
+    ON messages(channel_id, created_at DESC, id DESC)
+    WHERE channel_id IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_messages_direct_keyset
+    ON messages(LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), created_at DESC, id DESC)
+    WHERE recipient_id IS NOT NULL;
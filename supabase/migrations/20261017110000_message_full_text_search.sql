@@ -0,0 +1,11 @@
+-- Full-text search over message content
+-- A stored tsvector column kept up to date by Postgres itself, so neither the JPA
+-- path nor the batched JDBC insert path has to maintain it, and a GIN index to serve
+-- @@ matches instead of the sequential scan LIKE '%keyword%' needed.
+
+ALTER TABLE messages
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_messages_search_vector
+    ON messages USING GIN (search_vector);
@@ -0,0 +1,51 @@
+-- Conversation summaries: the inbox read model
+-- One row per (user, conversation) with the latest message preview and the user's
+-- unread count, maintained by the backend on every message write, so the channel
+-- list is a single indexed query instead of a history fetch per conversation.
+-- conversation_id is the channel id, or the other user's id for direct messages.
+
+CREATE TABLE IF NOT EXISTS conversation_summary (
+    user_id BIGINT NOT NULL,
+    conversation_type VARCHAR(10) NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    last_message_id BIGINT,
+    last_sender_id BIGINT,
+    last_sender_username VARCHAR(50),
+    last_message_preview VARCHAR(200),
+    last_message_at TIMESTAMP WITH TIME ZONE,
+    last_read_message_id BIGINT,
+    unread_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, conversation_type, conversation_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_conversation_summary_inbox
+    ON conversation_summary(user_id, last_message_at DESC NULLS LAST);
+
+-- Backfill from existing history; there is no read state yet, so nothing starts unread
+
+INSERT INTO conversation_summary (user_id, conversation_type, conversation_id, last_message_id,
+    last_sender_id, last_sender_username, last_message_preview, last_message_at)
+SELECT cm.user_id, 'CHANNEL', cm.channel_id, m.id, m.sender_id, u.username, left(m.content, 200), m.created_at
+FROM channel_members cm
+LEFT JOIN LATERAL (
+    SELECT * FROM messages
+    WHERE channel_id = cm.channel_id
+    ORDER BY created_at DESC, id DESC
+    LIMIT 1
+) m ON true
+LEFT JOIN users u ON u.id = m.sender_id
+ON CONFLICT DO NOTHING;
+
+INSERT INTO conversation_summary (user_id, conversation_type, conversation_id, last_message_id,
+    last_sender_id, last_sender_username, last_message_preview, last_message_at)
+SELECT p.user_id, 'DIRECT', p.peer_id, m.id, m.sender_id, u.username, left(m.content, 200), m.created_at
+FROM (
+    SELECT DISTINCT ON (LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id)) *
+    FROM messages
+    WHERE recipient_id IS NOT NULL
+    ORDER BY LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), created_at DESC, id DESC
+) m
+CROSS JOIN LATERAL (VALUES (m.sender_id, m.recipient_id), (m.recipient_id, m.sender_id)) p(user_id, peer_id)
+JOIN users u ON u.id = m.sender_id
+ON CONFLICT DO NOTHING;
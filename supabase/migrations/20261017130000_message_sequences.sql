@@ -0,0 +1,57 @@
+-- Per-conversation message sequence numbers
+-- Every message carries seq, numbered 1, 2, 3, ... within its channel or direct
+-- conversation, so clients can order messages exactly, spot gaps and resume from
+-- the last seq they hold. The backend reserves numbers from conversation_sequences
+-- (conversation_key is 'c:<channel id>' or 'd:<low user id>:<high user id>').
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS seq BIGINT;
+
+UPDATE messages m
+SET seq = numbered.seq
+FROM (
+    SELECT id, row_number() OVER (
+        PARTITION BY channel_id,
+            CASE WHEN recipient_id IS NOT NULL THEN LEAST(sender_id, recipient_id) END,
+            CASE WHEN recipient_id IS NOT NULL THEN GREATEST(sender_id, recipient_id) END
+        ORDER BY created_at, id
+    ) AS seq
+    FROM messages
+) numbered
+WHERE m.id = numbered.id AND m.seq IS NULL;
+
+ALTER TABLE messages ALTER COLUMN seq SET NOT NULL;
+
+-- Uniqueness guard, and the index behind "messages after seq N" resume queries
+CREATE UNIQUE INDEX IF NOT EXISTS idx_messages_channel_seq
+    ON messages(channel_id, seq)
+    WHERE channel_id IS NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_messages_direct_seq
+    ON messages(LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), seq)
+    WHERE recipient_id IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS conversation_sequences (
+    conversation_key VARCHAR(50) PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
+
+INSERT INTO conversation_sequences (conversation_key, last_seq)
+SELECT 'c:' || channel_id, max(seq) FROM messages WHERE channel_id IS NOT NULL GROUP BY channel_id
+UNION ALL
+SELECT 'd:' || LEAST(sender_id, recipient_id) || ':' || GREATEST(sender_id, recipient_id), max(seq)
+FROM messages WHERE recipient_id IS NOT NULL
+GROUP BY LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id)
+ON CONFLICT (conversation_key) DO NOTHING;
+
+-- Unread counts become last_message_seq - last_read_seq
+
+ALTER TABLE conversation_summary ADD COLUMN IF NOT EXISTS last_message_seq BIGINT;
+ALTER TABLE conversation_summary ADD COLUMN IF NOT EXISTS last_read_seq BIGINT;
+
+UPDATE conversation_summary s SET last_message_seq = m.seq FROM messages m WHERE m.id = s.last_message_id;
+UPDATE conversation_summary s SET last_read_seq = m.seq FROM messages m WHERE m.id = s.last_read_message_id;
+
+-- Rows without a read marker keep their current unread count
+UPDATE conversation_summary
+SET last_read_seq = GREATEST(last_message_seq - unread_count, 0)
+WHERE last_read_seq IS NULL AND last_message_seq IS NOT NULL;
@@ -0,0 +1,23 @@
+-- Mentions inbox
+-- One row per mentioned user and message, written with the message. @channel
+-- mentions every member, @here the members online at send time. A direct
+-- @username mention wins over @channel/@here for the same message.
+-- The message foreign key is deferred: the backend writes mention rows in the
+-- same transaction as the message, possibly before the ORM flushes its insert.
+
+CREATE TABLE IF NOT EXISTS message_mentions (
+    user_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    channel_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    mention_type VARCHAR(10) NOT NULL CHECK (mention_type IN ('USER', 'CHANNEL', 'HERE')),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (user_id, message_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE DEFERRABLE INITIALLY DEFERRED,
+    FOREIGN KEY (channel_id) REFERENCES channels(id) ON DELETE CASCADE
+);
+
+-- Newest mentions first, keyset-paged on (created_at, message_id)
+CREATE INDEX IF NOT EXISTS idx_message_mentions_inbox
+    ON message_mentions(user_id, created_at DESC, message_id DESC);
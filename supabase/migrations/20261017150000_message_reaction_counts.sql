@@ -0,0 +1,15 @@
+-- Denormalized reaction counts
+-- messages.reaction_counts holds {"emoji": count} for every message with reactions,
+-- so history pages carry their reactions without a query per message. The backend
+-- rewrites it from message_reactions whenever it flushes a batch of reaction changes.
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS reaction_counts JSONB;
+
+UPDATE messages m
+SET reaction_counts = counts.reaction_counts
+FROM (
+    SELECT message_id, jsonb_object_agg(emoji, n) AS reaction_counts
+    FROM (SELECT message_id, emoji, count(*) AS n FROM message_reactions GROUP BY message_id, emoji) per_emoji
+    GROUP BY message_id
+) counts
+WHERE m.id = counts.message_id;
@@ -0,0 +1,22 @@
+-- Attachment uploads
+-- message_attachments rows now track backend-stored files: a row is created when
+-- the upload starts (UPLOADING), receives its chunks under storage_key, and is
+-- hashed on completion (PROCESSING). Identical content is stored once, under
+-- blobs/<first two hash chars>/<sha-256>, and shared by every attachment with that
+-- content_hash (READY). Rows that predate this keep status READY and their external file_url.
+
+ALTER TABLE message_attachments
+    ADD COLUMN IF NOT EXISTS uploader_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    ADD COLUMN IF NOT EXISTS status VARCHAR(10) NOT NULL DEFAULT 'READY'
+        CHECK (status IN ('UPLOADING', 'PROCESSING', 'READY')),
+    ADD COLUMN IF NOT EXISTS storage_key VARCHAR(300),
+    ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64),
+    ADD COLUMN IF NOT EXISTS thumbnail_key VARCHAR(300),
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_message_attachments_message_id ON message_attachments(message_id);
+
+-- Abandoned uploads and unfinished processing are found by status and age
+CREATE INDEX IF NOT EXISTS idx_message_attachments_pending
+    ON message_attachments(status, updated_at)
+    WHERE status <> 'READY';
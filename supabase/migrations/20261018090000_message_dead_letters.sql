@@ -0,0 +1,18 @@
+-- Write-behind dead letters
+-- Messages are broadcast before the write-behind pipeline stores them. A message the
+-- database rejects for good (e.g. its channel was deleted meanwhile) is kept here
+-- instead of being dropped, so it can be inspected and replayed.
+
+CREATE TABLE IF NOT EXISTS message_dead_letters (
+    message_id BIGINT PRIMARY KEY,
+    content TEXT,
+    sender_id BIGINT NOT NULL,
+    channel_id BIGINT,
+    recipient_id BIGINT,
+    parent_message_id BIGINT,
+    type VARCHAR(20) NOT NULL,
+    seq BIGINT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    error TEXT,
+    failed_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,6 @@
+-- Token revocation marks
+-- A password change, role change or sign-out rejects every token the user was issued
+-- at or before this instant. Kept on the user so the marks survive restarts and reach
+-- instances that never saw the revocation.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS tokens_valid_after TIMESTAMP WITH TIME ZONE;